@@ -1,13 +1,28 @@
 import account.Account;
 import account.Admin;
+import account.Authentification;
 import account.User;
+import commande.JournalCommandes;
 import commande.QteProduit;
 import produit.Category;
+import produit.ImportCatalogue;
+import produit.Montant;
+import produit.Page;
 import produit.Produit;
+import produit.TriProduit;
 import commande.Panier;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import sauvegarde.Instantane;
+import session.GestionnaireSessions;
+import session.Session;
 import java.util.Scanner;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Classe principale du système e-commerce
@@ -17,33 +32,73 @@ public class Main {
     // Scanner global pour la saisie utilisateur
     private static Scanner scanner = new Scanner(System.in);
 
-    // Variables de session pour l'utilisateur connecté
-    private static User currentUser = null;           // Utilisateur actuellement connecté
-    private static Admin currentAdmin = null;         // Administrateur actuellement connecté
-    private static Panier currentPanier = null;      // Panier de l'utilisateur connecté
+    // Nombre de produits affichés par page lors de la navigation
+    private static final int TAILLE_PAGE = 10;
+
+    // Sessions ouvertes (compte connecté et panier en cours), expirées après 30 minutes d'inactivité
+    private static final GestionnaireSessions sessions = new GestionnaireSessions(30, TimeUnit.MINUTES);
+    private static String jetonSession = null;       // Jeton de la session de cette console
+    private static Path instantaneARecrire = null;   // Instantané à réécrire à la fermeture (absent si illisible)
 
     /**
      * Point d'entrée principal du programme
-     * Initialise les données d'exemple et lance la boucle principale
+     * Initialise les données (instantané, catalogue importé ou données d'exemple) et lance la boucle principale
+     * @param args Chemin facultatif d'un fichier catalogue (.csv, .jsonl) à importer
      */
     public static void main(String[] args) {
         System.out.println("=== Bienvenue dans notre E-Shop ===");
 
-        // Initialisation des données d'exemple pour tester le système
-        initializeSampleData();
+        // Instantané de l'état (facultatif) : rechargé au démarrage, réécrit à la fermeture
+        String instantane = System.getProperty("sauvegarde.instantane");
+        if (instantane != null && chargerInstantane(instantane)) {
+            System.out.println("État restauré depuis " + instantane);
+        } else if (args.length > 0) {
+            // Import d'un catalogue réel à la place des produits d'exemple
+            importCatalogue(args[0]);
+            createDefaultAdmin();
+        } else {
+            // Initialisation des données d'exemple pour tester le système
+            initializeSampleData();
+        }
+
+        // Journal des commandes (facultatif) : rejoué une fois les produits chargés
+        String journal = System.getProperty("commande.journal");
+        if (journal != null) {
+            ouvrirJournal(journal);
+        }
+
+        // Un seul crochet d'arrêt : l'instantané doit être écrit avant que le journal soit réduit puis fermé
+        Runtime.getRuntime().addShutdownHook(new Thread(Main::sauvegarderEtFermer));
 
         // Boucle principale du programme
         while (true) {
-            if (currentUser == null && currentAdmin == null) {
+            Session session = sessionCourante();
+            if (session == null) {
                 showMainMenu();           // Menu principal si personne n'est connecté
-            } else if (currentUser != null) {
-                showUserMenu();           // Menu utilisateur si un utilisateur est connecté
-            } else if (currentAdmin != null) {
-                showAdminMenu();          // Menu administrateur si un admin est connecté
+            } else if (session.getUser() != null) {
+                showUserMenu(session);    // Menu utilisateur si un utilisateur est connecté
+            } else if (session.getAdmin() != null) {
+                showAdminMenu(session);   // Menu administrateur si un admin est connecté
             }
         }
     }
 
+    /**
+     * Retrouve la session de la console
+     * @return La session active, ou null si personne n'est connecté ou si la session a expiré
+     */
+    private static Session sessionCourante() {
+        if (jetonSession == null) {
+            return null;
+        }
+        Session session = sessions.trouver(jetonSession);
+        if (session == null) {
+            jetonSession = null;
+            System.out.println("Session expirée, veuillez vous reconnecter.");
+        }
+        return session;
+    }
+
     /**
      * Initialise des données d'exemple pour démontrer le système
      * Crée des catégories, produits et un compte administrateur
@@ -62,18 +117,119 @@ public class Main {
         Produit novel = new Produit("Roman", "Best-seller français", 12.99f);
 
         // Ajout des produits aux catégories correspondantes
-        electronics.getProduits().add(laptop);
-        electronics.getProduits().add(phone);
-        clothing.getProduits().add(tshirt);
-        clothing.getProduits().add(jeans);
-        books.getProduits().add(novel);
+        electronics.addProduit(laptop);
+        electronics.addProduit(phone);
+        clothing.addProduit(tshirt);
+        clothing.addProduit(jeans);
+        books.addProduit(novel);
 
         // Création d'un compte administrateur par défaut
-        Admin admin = new Admin("Admin", "Super", "admin@eshop.com", "admin123");
+        createDefaultAdmin();
 
         System.out.println("Données d'exemple chargées !");
     }
 
+    /**
+     * Crée le compte administrateur par défaut
+     */
+    private static void createDefaultAdmin() {
+        Admin admin = new Admin("Admin", "Super", "admin@eshop.com", "admin123");
+    }
+
+    /**
+     * Importe un fichier catalogue et affiche le compte rendu de l'import
+     * @param fichier Chemin du fichier CSV ou JSON lines
+     */
+    private static void importCatalogue(String fichier) {
+        System.out.println("Import du catalogue " + fichier + "...");
+        try {
+            ImportCatalogue.Rapport rapport = ImportCatalogue.importer(Paths.get(fichier));
+            System.out.println(rapport);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Erreur lors de l'import du catalogue : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Recharge l'état enregistré dans un instantané et prévoit sa réécriture à la fermeture
+     * Si le fichier n'existe pas encore, il sera créé à la fermeture ; s'il est illisible,
+     * il n'est pas remplacé. Si la restauration échoue après avoir commencé, le programme s'arrête
+     * plutôt que de compléter un état partiel
+     * @param fichier Chemin de l'instantané
+     * @return true si l'état a été restauré
+     */
+    private static boolean chargerInstantane(String fichier) {
+        Path chemin = Paths.get(fichier);
+        boolean restaure = false;
+        if (Files.exists(chemin)) {
+            try {
+                System.out.println(Instantane.charger(chemin));
+                restaure = true;
+            } catch (IOException | RuntimeException e) {
+                if (!Produit.getAllProducts().isEmpty() || !Category.findTouteCategory().isEmpty()
+                        || !Account.getAllAccounts().isEmpty() || !Panier.getAllOrders().isEmpty()) {
+                    // Restauration interrompue : ni données d'exemple ni import par-dessus un état partiel
+                    System.out.println("Restauration de l'instantané interrompue, arrêt : " + e);
+                    System.exit(1);
+                }
+                System.out.println("Instantané illisible, démarrage sans restauration : " + e.getMessage());
+                return false;
+            }
+        }
+        instantaneARecrire = chemin;
+        return restaure;
+    }
+
+    /**
+     * Sauvegarde et fermeture, à l'arrêt du programme
+     * Un point de reprise est commencé dans le journal, l'instantané est écrit, puis les segments
+     * du journal qu'il couvre sont supprimés ; si l'instantané échoue, le journal est conservé en entier
+     */
+    private static void sauvegarderEtFermer() {
+        if (instantaneARecrire != null) {
+            int reprise = 0;
+            try {
+                reprise = JournalCommandes.commencerPointDeReprise();
+            } catch (IOException | UncheckedIOException e) {
+                System.out.println("Point de reprise du journal impossible, journal conservé : " + e.getMessage());
+            }
+            try {
+                System.out.println("Sauvegarde : " + Instantane.ecrire(instantaneARecrire));
+                JournalCommandes.terminerPointDeReprise(reprise);
+            } catch (IOException e) {
+                System.out.println("Erreur lors de la sauvegarde de l'état : " + e.getMessage());
+            }
+        }
+        try {
+            JournalCommandes.fermer();
+        } catch (IOException e) {
+            System.out.println("Erreur lors de la fermeture du journal : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Ouvre le journal des commandes, rejoue les commandes qu'il contient et affiche le bilan
+     * L'écriture sur disque avant confirmation peut être désactivée avec -Dcommande.journal.fsync=false
+     * @param dossier Dossier du journal
+     */
+    private static void ouvrirJournal(String dossier) {
+        boolean fsync = !"false".equals(System.getProperty("commande.journal.fsync"));
+        try {
+            JournalCommandes.Relecture relecture = JournalCommandes.ouvrir(Paths.get(dossier), fsync);
+            System.out.println("Journal des commandes : " + relecture.getCommandes() + " commande(s) restaurée(s), "
+                    + relecture.getLivraisons() + " livraison(s)");
+            if (relecture.getProduitsRecrees() > 0 || relecture.getProprietairesNonEnregistres() > 0) {
+                System.out.println(relecture.getProduitsRecrees() + " produit(s) absent(s) du catalogue recréé(s), "
+                        + relecture.getProprietairesNonEnregistres() + " propriétaire(s) sans compte enregistré");
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("Journal des commandes indisponible : " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Journal des commandes mal configuré : " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
     /**
      * Affiche le menu principal pour les utilisateurs non connectés
      * Propose l'inscription, la connexion, ou la navigation en tant qu'invité
@@ -102,7 +258,7 @@ public class Main {
                 loginAdmin();      // Connexion administrateur
                 break;
             case 4:
-                browseCatalog();   // Navigation invité
+                browseCatalog(choisirTri());   // Navigation invité
                 break;
             case 5:
                 System.out.println("Merci de votre visite !");
@@ -116,16 +272,20 @@ public class Main {
     /**
      * Affiche le menu utilisateur pour les clients connectés
      * Propose les fonctionnalités de shopping et de gestion de compte
+     * @param session Session de l'utilisateur connecté
      */
-    private static void showUserMenu() {
+    private static void showUserMenu(Session session) {
+        User user = session.getUser();
         System.out.println("\n=== MENU UTILISATEUR ===");
-        System.out.println("Connecté en tant que: " + currentUser.getPrenom() + " " + currentUser.getNom());
+        System.out.println("Connecté en tant que: " + user.getPrenom() + " " + user.getNom());
         System.out.println("1. Parcourir le catalogue");
-        System.out.println("2. Voir mon panier");
-        System.out.println("3. Ajouter un produit au panier");
-        System.out.println("4. Valider ma commande");
-        System.out.println("5. Gérer mon adresse");
-        System.out.println("6. Se déconnecter");
+        System.out.println("2. Rechercher un produit");
+        System.out.println("3. Voir mon panier");
+        System.out.println("4. Ajouter un produit au panier");
+        System.out.println("5. Valider ma commande");
+        System.out.println("6. Gérer mon adresse");
+        System.out.println("7. Mes commandes");
+        System.out.println("8. Se déconnecter");
         System.out.print("Votre choix : ");
 
         int choice = scanner.nextInt();
@@ -134,21 +294,27 @@ public class Main {
         // Traitement des actions utilisateur
         switch (choice) {
             case 1:
-                browseCatalog();      // Parcourir les produits
+                browseCatalog(choisirTri());  // Parcourir les produits
                 break;
             case 2:
-                viewCart();           // Afficher le panier
+                searchCatalog();      // Rechercher un produit
                 break;
             case 3:
-                addToCart();          // Ajouter au panier
+                viewCart(session.getPanier());  // Afficher le panier
                 break;
             case 4:
-                validateOrder();      // Passer commande
+                addToCart(session);   // Ajouter au panier
                 break;
             case 5:
-                manageAddress();      // Gérer l'adresse de livraison
+                validateOrder(session);  // Passer commande
                 break;
             case 6:
+                manageAddress(user);  // Gérer l'adresse de livraison
+                break;
+            case 7:
+                viewMyOrders(user);   // Historique des commandes
+                break;
+            case 8:
                 logout();             // Déconnexion
                 break;
             default:
@@ -156,7 +322,8 @@ public class Main {
         }
     }
 
-    private static void showAdminMenu() {
+    private static void showAdminMenu(Session session) {
+        Admin admin = session.getAdmin();
         System.out.println("\n=== MENU ADMINISTRATEUR ===");
         System.out.println("1. Créer une nouvelle catégorie");
         System.out.println("2. Ajouter un produit");
@@ -165,8 +332,9 @@ public class Main {
         System.out.println("5. Voir tous les utilisateurs");
         System.out.println("6. Voir toutes les commandes");
         System.out.println("7. Livrer une commande");
-        System.out.println("8. Statistiques système");
-        System.out.println("9. Se déconnecter");
+        System.out.println("8. Livrer une zone");
+        System.out.println("9. Statistiques système");
+        System.out.println("10. Se déconnecter");
         System.out.print("Votre choix : ");
 
         int choice = scanner.nextInt();
@@ -186,18 +354,21 @@ public class Main {
                 viewAllProducts();
                 break;
             case 5:
-                currentAdmin.displayAllUsers();
+                admin.displayAllUsers();
                 break;
             case 6:
-                currentAdmin.displayAllOrders();
+                admin.displayAllOrders();
                 break;
             case 7:
-                deliverOrder();
+                deliverOrder(admin);
                 break;
             case 8:
-                currentAdmin.displayStatistics();
+                deliverArea(admin);
                 break;
             case 9:
+                admin.displayStatistics();
+                break;
+            case 10:
                 logout();
                 break;
             default:
@@ -216,8 +387,8 @@ public class Main {
     }
 
     /**
-     * Processus de connexion utilisateur amélioré
-     * Vérifie l'existence de l'email et valide le mot de passe
+     * Processus de connexion utilisateur
+     * Récupère le compte enregistré sans créer de compte temporaire
      */
     private static void loginUser() {
         System.out.println("\n=== CONNEXION UTILISATEUR ===");
@@ -226,25 +397,27 @@ public class Main {
         System.out.print("Mot de passe : ");
         String password = scanner.nextLine();
 
-        // Vérification de l'existence de l'email
-        if (Account.isEmailExist(email)) {
-            currentUser = new User();
-            // CORRECTION: Utilisation du booléen de retour pour valider la connexion
-            if(currentUser.connecter(email, password)){
-                currentPanier = new Panier(currentUser);  // Création du panier
-                System.out.println("Connexion réussie !");
-            } else {
-                currentUser = null;  // Réinitialisation en cas d'échec
-                System.out.println("Mot de passe incorrect !");
-            }
-        } else {
+        User user;
+        try {
+            user = Authentification.connecterUtilisateur(email, password);
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());  // Service de connexion saturé
+            return;
+        }
+        if (user != null) {
+            // Ouverture de la session avec un nouveau panier
+            jetonSession = sessions.ouvrir(user, new Panier(user)).getJeton();
+            System.out.println("Connexion réussie !");
+        } else if (!Account.isEmailExist(email)) {
             System.out.println("Email non trouvé !");
+        } else {
+            System.out.println("Identifiants incorrects !");
         }
     }
 
     /**
      * Processus de connexion administrateur
-     * Utilise des identifiants fixes pour la démonstration
+     * Authentifie le compte administrateur enregistré (créé au démarrage)
      */
     private static void loginAdmin() {
         System.out.println("\n=== CONNEXION ADMINISTRATEUR ===");
@@ -253,16 +426,75 @@ public class Main {
         System.out.print("Mot de passe : ");
         String password = scanner.nextLine();
 
-        // Vérification simple des identifiants admin (à sécuriser en production)
-        if (email.equals("admin@eshop.com") && password.equals("admin123")) {
-            currentAdmin = new Admin("Admin", "Super", email, password);
+        Admin admin;
+        try {
+            admin = Authentification.connecterAdmin(email, password);
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());  // Service de connexion saturé
+            return;
+        }
+        if (admin != null) {
+            jetonSession = sessions.ouvrir(admin, null).getJeton();
             System.out.println("Connexion administrateur réussie !");
         } else {
             System.out.println("Identifiants administrateur incorrects !");
         }
     }
 
-    private static void browseCatalog() {
+    /**
+     * Demande l'ordre de tri pour la navigation dans le catalogue
+     * @return Ordre de tri choisi (par ID si le choix est invalide)
+     */
+    private static TriProduit choisirTri() {
+        System.out.print("Trier par (1) ID, (2) Nom, (3) Prix : ");
+        String choix = scanner.nextLine().trim();
+        switch (choix) {
+            case "2":
+                return TriProduit.NOM;
+            case "3":
+                return TriProduit.PRIX;
+            default:
+                return TriProduit.ID;
+        }
+    }
+
+    /**
+     * Affiche les produits d'une catégorie page par page
+     * Seule la page affichée est lue, la suivante est demandée à l'utilisateur
+     * @param category Catégorie à afficher
+     * @param tri Ordre de tri
+     * @param details true pour afficher aussi la description des produits
+     * @return Nombre de produits affichés
+     */
+    private static int afficherProduitsPagines(Category category, TriProduit tri, boolean details) {
+        int affiches = 0;
+        String curseur = null;
+        do {
+            Page<Produit> page = category.getPage(tri, curseur, TAILLE_PAGE);
+            for (Produit produit : page.getElements()) {
+                System.out.printf("ID: %d | %s - %.2f€%n",
+                        produit.getId(), produit.getNom(), produit.getPrix());
+                if (details) {
+                    System.out.println("  Description: " + produit.getDescription());
+                }
+                affiches++;
+            }
+            curseur = page.getCurseurSuivant();
+        } while (curseur != null && demanderPageSuivante());
+        return affiches;
+    }
+
+    /**
+     * Demande à l'utilisateur s'il veut afficher la page suivante
+     * @return true pour continuer l'affichage
+     */
+    private static boolean demanderPageSuivante() {
+        System.out.print("Page suivante ? (o/n) : ");
+        String reponse = scanner.nextLine();
+        return reponse.equalsIgnoreCase("o") || reponse.equalsIgnoreCase("oui");
+    }
+
+    private static void browseCatalog(TriProduit tri) {
         System.out.println("\n=== CATALOGUE PRODUITS ===");
         List<Category> categories = Category.findTouteCategory();
 
@@ -275,100 +507,136 @@ public class Main {
             System.out.println("\n--- " + category.getNom() + " ---");
             System.out.println("Description: " + category.getDescription());
 
-            if (category.getProduits().isEmpty()) {
+            if (category.getProductCount() == 0) {
                 System.out.println("Aucun produit dans cette catégorie.");
             } else {
-                for (Produit produit : category.getProduits()) {
-                    System.out.printf("ID: %d | %s - %.2f€%n",
-                            produit.getId(), produit.getNom(), produit.getPrix());
-                    System.out.println("  Description: " + produit.getDescription());
-                }
+                afficherProduitsPagines(category, tri, true);
             }
         }
     }
 
-    private static void viewCart() {
-        if (currentPanier == null || currentPanier.getProduits().isEmpty()) {
+    /**
+     * Recherche de produits par mots-clés dans le nom et la description
+     * Affiche les meilleurs résultats classés par pertinence
+     */
+    private static void searchCatalog() {
+        System.out.println("\n=== RECHERCHE PRODUITS ===");
+        System.out.print("Mots-clés : ");
+        String requete = scanner.nextLine();
+
+        List<Produit> resultats = Produit.rechercher(requete, 20);
+        if (resultats.isEmpty()) {
+            System.out.println("Aucun produit trouvé.");
+            return;
+        }
+
+        for (Produit produit : resultats) {
+            System.out.printf("ID: %d | %s - %.2f€%n",
+                    produit.getId(), produit.getNom(), produit.getPrix());
+            System.out.println("  Description: " + produit.getDescription());
+        }
+    }
+
+    private static void viewCart(Panier panier) {
+        if (panier == null || panier.getProduits().isEmpty()) {
             System.out.println("\nVotre panier est vide.");
             return;
         }
 
         System.out.println("\n=== VOTRE PANIER ===");
-        float total = 0;
 
-        for (QteProduit item : currentPanier.getProduits()) {
-            float itemTotal = item.getPrixUnitaire() * item.getQuantite();
+        for (QteProduit item : panier.getProduits()) {
             System.out.printf("%s x%d - %.2f€ chacun = %.2f€%n",
                     item.getProduit().getNom(),
                     item.getQuantite(),
                     item.getPrixUnitaire(),
-                    itemTotal);
-            total += itemTotal;
+                    item.getTotalPrice());
         }
 
-        System.out.printf("TOTAL: %.2f€%n", total);
+        System.out.println("TOTAL: " + Montant.formater(panier.getTotalCentimes()) + "€");  // Total exact tenu à jour par le panier
     }
 
-    private static void addToCart() {
-        if (currentPanier == null) {
+    private static void addToCart(Session session) {
+        Panier panier = session.getPanier();
+        if (panier == null) {
             System.out.println("Erreur: Panier non initialisé.");
             return;
         }
 
         System.out.println("\n=== AJOUTER AU PANIER ===");
-        browseCatalog();
+        browseCatalog(TriProduit.ID);
 
         try {
-            currentPanier.addProduct(); // This will prompt for product ID and quantity
+            panier.addProduct(); // This will prompt for product ID and quantity
             System.out.println("Produit ajouté au panier !");
         } catch (Exception e) {
             System.out.println("Erreur lors de l'ajout au panier.");
         }
     }
 
-    private static void validateOrder() {
-        if (currentPanier == null || currentPanier.getProduits().isEmpty()) {
+    private static void validateOrder(Session session) {
+        Panier panier = session.getPanier();
+        if (panier == null || panier.getProduits().isEmpty()) {
             System.out.println("Votre panier est vide !");
             return;
         }
 
         System.out.println("\n=== VALIDATION COMMANDE ===");
-        viewCart();
+        viewCart(panier);
 
         System.out.print("Confirmer la commande ? (o/n) : ");
         String confirm = scanner.nextLine();
 
         if (confirm.equalsIgnoreCase("o") || confirm.equalsIgnoreCase("oui")) {
-            currentPanier.validerPanier();
+            if (!panier.validerPanier()) {
+                return;  // Panier conservé : il pourra être validé à nouveau
+            }
             System.out.println("Commande validée avec succès !");
-            System.out.println("Numéro de commande: " + currentPanier.getId());
+            System.out.println("Numéro de commande: " + panier.getId());
 
             // Create new cart for future orders
-            currentPanier = new Panier(currentUser);
+            session.setPanier(new Panier(session.getUser()));
         } else {
             System.out.println("Commande annulée.");
         }
     }
 
-    private static void manageAddress() {
+    private static void viewMyOrders(User user) {
+        List<Panier> commandes = Panier.getOrdersByUser(user);
+        if (commandes.isEmpty()) {
+            System.out.println("\nVous n'avez passé aucune commande.");
+            return;
+        }
+
+        System.out.println("\n=== MES COMMANDES ===");
+        for (Panier commande : commandes) {
+            System.out.printf("Commande %d | Articles: %d | Total: %.2f€ | Statut: %s%n",
+                    commande.getId(),
+                    commande.getItemCount(),
+                    commande.getTotalPrice(),
+                    commande.getStatusString());
+        }
+    }
+
+    private static void manageAddress(User user) {
         System.out.println("\n=== GESTION ADRESSE ===");
 
-        if (currentUser.getAddress() != null) {
+        if (user.getAddress() != null) {
             System.out.println("Adresse actuelle:");
-            System.out.println("Ville: " + currentUser.getAddress().getVille());
-            System.out.println("Secteur: " + currentUser.getAddress().getSecteur());
-            System.out.println("Description: " + currentUser.getAddress().getDescription());
+            System.out.println("Ville: " + user.getAddress().getVille());
+            System.out.println("Secteur: " + user.getAddress().getSecteur());
+            System.out.println("Description: " + user.getAddress().getDescription());
 
             System.out.print("Modifier l'adresse ? (o/n) : ");
             String modify = scanner.nextLine();
 
             if (modify.equalsIgnoreCase("o") || modify.equalsIgnoreCase("oui")) {
-                currentUser.addAddress();
+                user.addAddress();
                 System.out.println("Adresse mise à jour !");
             }
         } else {
             System.out.println("Aucune adresse enregistrée. Ajout d'une nouvelle adresse:");
-            currentUser.addAddress();
+            user.addAddress();
             System.out.println("Adresse ajoutée !");
         }
     }
@@ -408,15 +676,29 @@ public class Main {
         }
     }
 
-    private static void deliverOrder(){
+    private static void deliverOrder(Admin admin){
         System.out.println("\n=== LIVRER COMMANDE ===");
-        currentAdmin.displayAllOrders();
+        admin.displayAllOrders();
 
         System.out.print("Entrez l'ID de la commande à livrer : ");
         int orderId = scanner.nextInt();
         scanner.nextLine(); // consume newline
 
-        currentAdmin.deliverOrder(orderId);
+        admin.deliverOrder(orderId);
+    }
+
+    private static void deliverArea(Admin admin) {
+        admin.displayPendingAreas();
+
+        System.out.print("Ville à livrer (vide pour les commandes sans adresse) : ");
+        String ville = scanner.nextLine().trim();
+        String secteur = null;
+        if (!ville.isEmpty()) {
+            System.out.print("Secteur à livrer : ");
+            secteur = scanner.nextLine().trim();
+        }
+
+        admin.deliverArea(ville.isEmpty() ? null : ville, secteur);
     }
 
     private static void viewAllCategories() {
@@ -428,7 +710,7 @@ public class Main {
         } else {
             for (Category category : categories) {
                 System.out.println("- " + category.getNom() + ": " + category.getDescription());
-                System.out.println("  Nombre de produits: " + category.getProduits().size());
+                System.out.println("  Nombre de produits: " + category.getProductCount());
             }
         }
     }
@@ -439,13 +721,10 @@ public class Main {
         int totalProducts = 0;
 
         for (Category category : categories) {
-            if (!category.getProduits().isEmpty()) {
+            if (category.getProductCount() > 0) {
                 System.out.println("\n--- " + category.getNom() + " ---");
-                for (Produit produit : category.getProduits()) {
-                    System.out.printf("ID: %d | %s - %.2f€%n",
-                            produit.getId(), produit.getNom(), produit.getPrix());
-                    totalProducts++;
-                }
+                afficherProduitsPagines(category, TriProduit.ID, false);
+                totalProducts += category.getProductCount();
             }
         }
 
@@ -453,9 +732,8 @@ public class Main {
     }
 
     private static void logout() {
-        currentUser = null;
-        currentAdmin = null;
-        currentPanier = null;
+        sessions.fermer(jetonSession);
+        jetonSession = null;
         System.out.println("Déconnexion réussie !");
     }
 }
\ No newline at end of file
@@ -1,8 +1,13 @@
 package account;
 
-import java.util.ArrayList;
+import statistiques.Statistiques;
+import stockage.ListeInstantanee;
+
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Classe de base pour tous les comptes utilisateurs
@@ -11,13 +16,18 @@ import java.util.Scanner;
 public class Account {
 
     // Base de données statique pour stocker tous les comptes
-    private static List<Account> db = new ArrayList<>();
+    // Les lecteurs obtiennent un instantané immuable, sans copie
+    private static ListeInstantanee<Account> db = new ListeInstantanee<>();
+
+    // Index des comptes enregistrés par email normalisé (espaces retirés, minuscules) :
+    // vérification d'unicité et connexion en temps constant
+    private static final Map<String, Account> parEmail = new ConcurrentHashMap<>();
 
     // Informations personnelles du compte
     private String nom;
     private String prenom;
     private String email;
-    protected String password; // Protégé pour permettre l'accès aux classes filles
+    protected volatile String password; // Empreinte PBKDF2 du mot de passe (jamais le mot de passe en clair)
 
     /**
      * Constructeur par défaut - demande les informations à l'utilisateur
@@ -38,12 +48,9 @@ public class Account {
         this.nom = nom;
         this.prenom = prenom;
         this.email = email;
-        this.password = password;
 
-        // CORRECTION: Logique inversée - sauvegarder si l'email n'existe pas
-        if(!isEmailExist(this.getEmail())){
-            saveAccount();
-        } else {
+        // Sauvegarder si l'email n'existe pas (vérification et insertion atomiques)
+        if(!hacherEtEnregistrer(password)){
             System.out.println("Email déjà utilisé !");
         }
     }
@@ -59,11 +66,27 @@ public class Account {
         this.nom = nom;
         this.prenom = prenom;
         this.email = email;
-        this.password = password;
 
         // Sauvegarde automatique si l'email n'existe pas déjà
-        if(!isEmailExist(this.getEmail())){
-            saveAccount();
+        hacherEtEnregistrer(password);
+    }
+
+    /**
+     * Constructeur d'un compte restauré (voir User.restaurer et Admin.restaurer)
+     * L'empreinte du mot de passe est reprise telle quelle, sans nouveau calcul
+     * @param nom Nom de famille
+     * @param prenom Prénom
+     * @param email Adresse email
+     * @param empreinte Empreinte du mot de passe au format "itérations:sel:empreinte"
+     * @param enregistrer true pour enregistrer le compte (sans message) si son email est libre
+     */
+    protected Account(String nom, String prenom, String email, String empreinte, boolean enregistrer){
+        this.nom = nom;
+        this.prenom = prenom;
+        this.email = email;
+        this.password = empreinte;
+        if(enregistrer){
+            enregistrer();
         }
     }
 
@@ -89,12 +112,36 @@ public class Account {
         this.prenom = prenom;
     }
 
-    public void setEmail(String email) {
-        this.email = email;
+    /**
+     * Modifier l'email du compte
+     * Pour un compte enregistré, le nouvel email est réservé atomiquement dans l'index
+     * avant de libérer l'ancien : deux comptes ne peuvent jamais partager un email
+     * @param email Nouvel email
+     */
+    public synchronized void setEmail(String email) {
+        String nouvelleCle = cleEmail(email);
+        String ancienneCle = cleEmail(this.email);
+        // Compte non enregistré ou même email (aux majuscules et espaces près)
+        if(ancienneCle == null || parEmail.get(ancienneCle) != this
+                || (nouvelleCle != null && nouvelleCle.equals(ancienneCle))){
+            this.email = email;
+        } else if(nouvelleCle != null && parEmail.putIfAbsent(nouvelleCle, this) == null){
+            this.email = email;
+            parEmail.remove(ancienneCle, this);
+        } else {
+            System.out.println("Email déjà utilisé !");
+        }
     }
 
+    /**
+     * Modifier le mot de passe (seule son empreinte est conservée)
+     * @param password Nouveau mot de passe en clair
+     */
     public void setPassword(String password) {
-        this.password = password;
+        String empreinte = MotDePasse.hacher(password);  // Calcul coûteux hors du verrou
+        synchronized(this){
+            this.password = empreinte;
+        }
     }
 
     /**
@@ -104,47 +151,147 @@ public class Account {
      * @return true si la connexion réussit, false sinon
      */
     public boolean connecter(String email, String password){
-        for(int i = 0; i < db.size(); i++){
-            if(db.get(i).getEmail().equals(email) && db.get(i).password.equals(password)){
-                // Mise à jour des informations de l'objet actuel
-                this.setNom(db.get(i).nom);
-                this.setPrenom(db.get(i).prenom);
-                this.setEmail(db.get(i).getEmail());
-                this.setPassword(db.get(i).password);
-                return true; // Connexion réussie
-            }
+        Account account = Authentification.connecter(email, password);
+        if(account != null){
+            // Mise à jour des informations de l'objet actuel
+            this.setNom(account.nom);
+            this.setPrenom(account.prenom);
+            this.setEmail(account.getEmail());
+            this.password = account.password;  // Copie de l'empreinte
+            return true; // Connexion réussie
         }
         return false; // Identifiants incorrects
     }
 
+    /**
+     * Vérifier le mot de passe du compte dans le pool de vérification
+     * Une empreinte calculée avec un ancien nombre d'itérations est recalculée en arrière-plan,
+     * dans le même pool, avec le réglage actuel après une vérification réussie
+     * @param password Mot de passe saisi
+     * @return true si le mot de passe correspond
+     * @throws IllegalStateException si trop de connexions sont en cours
+     */
+    boolean verifierMotDePasse(String password){
+        String empreinte = this.password;
+        if(!MotDePasse.verifierDansPool(password, empreinte)){
+            return false;
+        }
+        if(MotDePasse.doitRehacher(empreinte)){
+            MotDePasse.rehacherDansPool(password, nouvelle -> remplacerEmpreinte(empreinte, nouvelle));
+        }
+        return true;
+    }
+
+    /**
+     * Remplacer l'empreinte recalculée, sauf si le mot de passe a changé entre-temps
+     * @param ancienne Empreinte vérifiée
+     * @param nouvelle Empreinte recalculée avec le réglage actuel
+     */
+    private synchronized void remplacerEmpreinte(String ancienne, String nouvelle){
+        if(ancienne.equals(this.password)){
+            this.password = nouvelle;
+        }
+    }
+
     /**
      * Vérifie si un email existe déjà dans la base de données
      * @param email Email à vérifier
      * @return true si l'email existe, false sinon
      */
     public static boolean isEmailExist(String email){
-        for(int i = 0; i < db.size(); i++){
-            if(db.get(i).getEmail().equals(email)) return true;
+        return findByEmail(email) != null;
+    }
+
+    /**
+     * Rechercher un compte enregistré par son email
+     * L'email est comparé sans tenir compte des majuscules ni des espaces autour
+     * @param email Email recherché
+     * @return Le compte trouvé ou null
+     */
+    public static Account findByEmail(String email){
+        String cle = cleEmail(email);
+        return cle == null ? null : parEmail.get(cle);
+    }
+
+    /**
+     * Indiquer si ce compte est enregistré (et non un compte refusé pour email en double)
+     * @return true si le compte est celui enregistré pour son email
+     */
+    boolean estEnregistre(){
+        String cle = cleEmail(this.email);
+        return cle != null && parEmail.get(cle) == this;
+    }
+
+    /**
+     * Clé de l'index des emails
+     * @param email Email saisi
+     * @return Email sans espaces autour et en minuscules, ou null si l'email est vide
+     */
+    private static String cleEmail(String email){
+        if(email == null) return null;
+        String cle = email.trim().toLowerCase(Locale.ROOT);
+        return cle.isEmpty() ? null : cle;
+    }
+
+    /**
+     * Calculer l'empreinte du mot de passe puis sauvegarder le compte
+     * Un email vide ou déjà utilisé est refusé avant le calcul de l'empreinte (PBKDF2,
+     * volontairement coûteux) ; l'empreinte d'un compte refusé reste null
+     * @param motDePasse Mot de passe en clair
+     * @return true si le compte a été enregistré
+     */
+    private boolean hacherEtEnregistrer(String motDePasse){
+        if(cleEmail(this.email) == null || isEmailExist(this.email)){
+            return false;
         }
-        return false;
+        this.password = MotDePasse.hacher(motDePasse);
+        return saveAccount();  // Deux inscriptions simultanées restent départagées par l'insertion atomique
     }
 
     /**
      * Sauvegarde le compte dans la base de données
      * Méthode privée appelée lors de la création d'un compte
+     * L'email est réservé dans l'index par une insertion atomique : deux inscriptions
+     * simultanées avec le même email ne peuvent pas réussir toutes les deux
+     * @return true si le compte a été enregistré, false si l'email est vide ou déjà utilisé
      */
-    private void saveAccount(){
-        db.add(this);
+    private boolean saveAccount(){
+        if(!enregistrer()){
+            return false;
+        }
         System.out.println("Compte enregistré avec succès !");
-        System.out.println("Nombre de compte créés : " + db.size());
+        System.out.println("Nombre de compte créés : " + db.taille());
+        return true;
+    }
+
+    /**
+     * Empreinte du mot de passe, pour la sauvegarde de l'état
+     * @return Empreinte au format "itérations:sel:empreinte"
+     */
+    public String getEmpreinteMotDePasse(){
+        return this.password;
+    }
+
+    /**
+     * Enregistrer le compte dans la base de données, sans message
+     * @return true si le compte a été enregistré, false si l'email est vide ou déjà utilisé
+     */
+    private synchronized boolean enregistrer(){
+        String cle = cleEmail(this.email);
+        if(cle == null || parEmail.putIfAbsent(cle, this) != null){
+            return false;
+        }
+        db.ajouter(this);
+        Statistiques.compteCree();
+        return true;
     }
 
     /**
      * Méthode pour obtenir tous les comptes (utile pour l'administration)
-     * Retourne une copie de la liste pour éviter les modifications externes
+     * Retourne un instantané non modifiable, obtenu sans copier la liste
      * @return Liste de tous les comptes enregistrés
      */
     public static List<Account> getAllAccounts(){
-        return new ArrayList<>(db);
+        return db.instantane();
     }
 }
\ No newline at end of file
@@ -2,9 +2,13 @@ package account;
 
 import commande.Panier;
 import produit.Category;
+import produit.Montant;
 import produit.Produit;
+import statistiques.Statistiques;
 
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Classe représentant un administrateur du système e-commerce
@@ -13,10 +17,14 @@ import java.util.List;
 public class Admin extends Account{
 
     /**
-     * Affiche le mot de passe en clair
+     * Affiche la protection du mot de passe (le mot de passe en clair n'est pas conservé)
      */
     public void afficherMotDePasse(){
-        System.out.println("Mon mot de passe est : " + this.password);
+        if(this.password == null){
+            System.out.println("Aucun mot de passe : compte non enregistré");
+            return;
+        }
+        System.out.println("Mot de passe protégé par PBKDF2 (" + this.password.split(":")[0] + " itérations)");
     }
 
     /**
@@ -30,6 +38,26 @@ public class Admin extends Account{
         super(nom, prenom, email, password);  // Appel du constructeur parent
     }
 
+    /**
+     * Constructeur d'un administrateur restauré
+     * @see #restaurer
+     */
+    private Admin(String nom, String prenom, String email, String empreinte, boolean enregistrer){
+        super(nom, prenom, email, empreinte, enregistrer);
+    }
+
+    /**
+     * Restaurer un administrateur sauvegardé, sans message et sans recalculer l'empreinte du mot de passe
+     * @param nom Nom de famille
+     * @param prenom Prénom
+     * @param email Email de connexion
+     * @param empreinte Empreinte du mot de passe
+     * @return L'administrateur restauré (enregistré si son email est libre)
+     */
+    public static Admin restaurer(String nom, String prenom, String email, String empreinte){
+        return new Admin(nom, prenom, email, empreinte, true);
+    }
+
     /**
      * Constructeur par défaut pour créer un compte administrateur.
      * Appelle le constructeur de la class Account qui demandera la saisie des informations necessaire.
@@ -80,11 +108,11 @@ public class Admin extends Account{
 
         // Affichage détaillé de chaque commande
         for(Panier order : orders){
-            System.out.printf("ID: %d | User: %s | Items: %d | Total: %.2f€ | Status: %s%n",
+            System.out.printf("ID: %d | User: %s | Items: %d | Total: %s€ | Status: %s%n",
                     order.getId(),
                     order.getUser().getEmail(),
                     order.getItemCount(),
-                    order.getTotalPrice(),
+                    Montant.formater(order.getTotalCentimes()),
                     order.getStatusString());
         }
         System.out.println("Total commandes: " + orders.size());
@@ -93,53 +121,39 @@ public class Admin extends Account{
     /**
      * Afficher les statistiques complètes du système
      * Tableau de bord avec métriques importantes pour la gestion
+     * Les compteurs sont tenus à jour au fil des événements : aucun compte
+     * ni aucune commande n'est parcouru
      */
     public void displayStatistics(){
         System.out.println("\n=== STATISTIQUES SYSTÈME ===");
 
-        // Statistiques des utilisateurs
-        List<Account> accounts = Account.getAllAccounts();
-        int userCount = accounts.size();
-        int usersWithAddress = 0;
-
-        // Comptage des utilisateurs avec adresse
-        for(Account account : accounts){
-            if(account instanceof User && ((User)account).hasAddress()){
-                usersWithAddress++;
-            }
-        }
-
-        // Statistiques des produits et catégories
-        List<Category> categories = Category.findTouteCategory();
-        List<Produit> products = Produit.getAllProducts();
-
-        // Statistiques des commandes et chiffre d'affaires
-        List<Panier> orders = Panier.getAllOrders();
-        int validatedOrders = 0;   // Commandes confirmées
-        int deliveredOrders = 0;   // Commandes livrées
-        float totalRevenue = 0;    // Chiffre d'affaires total
-
-        // Calcul des métriques de commandes
-        for(Panier order : orders){
-            if(order.getStatus() == 1) validatedOrders++;    // Statut validé
-            if(order.getStatus() == 2) deliveredOrders++;    // Statut livré
-            if(order.getStatus() >= 1) totalRevenue += order.getTotalPrice();  // Revenus des commandes payées
-        }
-
         // Affichage des statistiques organisées par sections
         System.out.println("UTILISATEURS:");
-        System.out.println("  Total: " + userCount);
-        System.out.println("  Avec adresse: " + usersWithAddress);
+        System.out.println("  Total: " + Statistiques.getComptes());
+        System.out.println("  Avec adresse: " + Statistiques.getUtilisateursAvecAdresse());
 
+        // Les instantanés des catégories et des produits donnent leur taille sans copie
         System.out.println("\nPRODUITS:");
-        System.out.println("  Catégories: " + categories.size());
-        System.out.println("  Produits: " + products.size());
+        System.out.println("  Catégories: " + Category.findTouteCategory().size());
+        System.out.println("  Produits: " + Produit.getAllProducts().size());
 
         System.out.println("\nCOMMANDES:");
-        System.out.println("  Total: " + orders.size());
-        System.out.println("  Validées: " + validatedOrders);
-        System.out.println("  Livrées: " + deliveredOrders);
-        System.out.printf("  Chiffre d'affaires: %.2f€%n", totalRevenue);
+        System.out.println("  Total: " + Panier.getAllOrders().size());
+        System.out.println("  Validées: " + Statistiques.getCommandesValidees());
+        System.out.println("  Livrées: " + Statistiques.getCommandesLivrees());
+        System.out.println("  Chiffre d'affaires: " + Montant.formater(Statistiques.getChiffreAffairesCentimes()) + "€");
+        System.out.printf("  CA dernière minute / heure / 24 h: %.2f€ / %.2f€ / %.2f€%n",
+                Statistiques.getChiffreAffairesDerniereMinute(),
+                Statistiques.getChiffreAffairesDerniereHeure(),
+                Statistiques.getChiffreAffairesDernierJour());
+        System.out.printf("  Montant des commandes p50 / p95 / p99: %.2f€ / %.2f€ / %.2f€%n",
+                Statistiques.getPercentileMontant(50),
+                Statistiques.getPercentileMontant(95),
+                Statistiques.getPercentileMontant(99));
+        System.out.printf("  (dernière heure: %.2f€ / %.2f€ / %.2f€)%n",
+                Statistiques.getPercentileMontantDerniereHeure(50),
+                Statistiques.getPercentileMontantDerniereHeure(95),
+                Statistiques.getPercentileMontantDerniereHeure(99));
     }
 
     /**
@@ -150,12 +164,59 @@ public class Admin extends Account{
     public void deliverOrder(int orderId){
         Panier order = Panier.findOrderById(orderId);
         if(order != null){
-            order.livrerPanier();  // Appel de la méthode de livraison
+            try {
+                order.livrerPanier();  // Appel de la méthode de livraison
+            } catch (UncheckedIOException e) {
+                System.out.println("Livraison impossible : journal des commandes indisponible, la commande reste validée !");
+            }
         } else {
             System.out.println("Commande non trouvée avec l'ID: " + orderId);
         }
     }
 
+    /**
+     * Livrer en une tournée toutes les commandes validées d'une zone
+     * @param ville Ville de livraison (null pour les commandes sans adresse)
+     * @param secteur Secteur de livraison (null pour les commandes sans adresse)
+     */
+    public void deliverArea(String ville, String secteur){
+        int livrees;
+        try {
+            livrees = Panier.livrerZone(ville, secteur);
+        } catch (UncheckedIOException e) {
+            System.out.println("Tournée interrompue : journal des commandes indisponible, "
+                    + "les commandes non livrées restent en attente !");
+            return;
+        }
+        if(livrees > 0){
+            System.out.println(livrees + " commande(s) livrée(s) pour la zone " + ville + " / " + secteur);
+        } else {
+            System.out.println("Aucune commande en attente pour la zone " + ville + " / " + secteur);
+        }
+    }
+
+    /**
+     * Afficher les zones ayant des commandes en attente de livraison
+     */
+    public void displayPendingAreas(){
+        System.out.println("\n=== COMMANDES À LIVRER PAR ZONE ===");
+        Map<Long, Integer> zones = Panier.getCommandesEnAttenteParZone();
+        if(zones.isEmpty()){
+            System.out.println("Aucune commande en attente.");
+            return;
+        }
+        for(Map.Entry<Long, Integer> zone : zones.entrySet()){
+            if(zone.getKey() == Panier.SANS_ADRESSE){
+                System.out.printf("(sans adresse) : %d commande(s)%n", zone.getValue());
+            } else {
+                System.out.printf("%s / %s : %d commande(s)%n",
+                        DictionnaireZones.villeDeZone(zone.getKey()),
+                        DictionnaireZones.secteurDeZone(zone.getKey()),
+                        zone.getValue());
+            }
+        }
+    }
+
     /**
      * Modifier le prix d'un produit
      * Permet à l'administrateur d'ajuster les prix
@@ -0,0 +1,52 @@
+package account;
+
+/**
+ * Service d'authentification des comptes
+ * Vérifie des identifiants sans aucune saisie console et renvoie le compte enregistré
+ * lui-même : aucun compte temporaire n'est créé ni copié lors d'une connexion.
+ */
+public class Authentification {
+
+    private Authentification(){
+        // Classe utilitaire, pas d'instance
+    }
+
+    /**
+     * Authentifier un compte, quel que soit son type
+     * @param email Email de connexion (majuscules et espaces autour ignorés)
+     * @param password Mot de passe
+     * @return Le compte enregistré correspondant, ou null si les identifiants sont incorrects
+     * @throws IllegalStateException si trop de connexions sont en cours de vérification
+     */
+    public static Account connecter(String email, String password){
+        Account account = Account.findByEmail(email);
+        if(account == null || password == null || !account.verifierMotDePasse(password)){
+            return null;
+        }
+        return account;
+    }
+
+    /**
+     * Authentifier un utilisateur
+     * @param email Email de connexion
+     * @param password Mot de passe
+     * @return L'utilisateur enregistré, ou null si les identifiants sont incorrects
+     *         ou si le compte n'est pas un compte utilisateur
+     */
+    public static User connecterUtilisateur(String email, String password){
+        Account account = connecter(email, password);
+        return account instanceof User ? (User) account : null;
+    }
+
+    /**
+     * Authentifier un administrateur
+     * @param email Email de connexion
+     * @param password Mot de passe
+     * @return L'administrateur enregistré, ou null si les identifiants sont incorrects
+     *         ou si le compte n'est pas un compte administrateur
+     */
+    public static Admin connecterAdmin(String email, String password){
+        Account account = connecter(email, password);
+        return account instanceof Admin ? (Admin) account : null;
+    }
+}
@@ -0,0 +1,120 @@
+package account;
+
+import stockage.TableIndexee;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dictionnaire partagé des noms de villes et de secteurs
+ * Chaque nom distinct reçoit une fois pour toutes un identifiant entier (0, 1, 2, ...) ;
+ * les adresses ne stockent que ces identifiants. Quelques centaines de noms suffisent
+ * alors pour des millions d'adresses, et comparer ou regrouper des adresses par zone
+ * revient à comparer des entiers.
+ */
+public final class DictionnaireZones {
+
+    // Identifiant réservé à l'absence de valeur (null)
+    public static final int AUCUN = -1;
+
+    // Identifiant renvoyé par chercher pour un nom absent du dictionnaire
+    public static final int INCONNU = -2;
+
+    private static final Map<String, Integer> identifiants = new ConcurrentHashMap<>();
+    private static final TableIndexee<String> valeurs = new TableIndexee<>();
+    private static final AtomicInteger prochainId = new AtomicInteger();
+
+    private DictionnaireZones(){
+        // Classe utilitaire, pas d'instance
+    }
+
+    /**
+     * Obtenir l'identifiant d'un nom, en l'ajoutant au dictionnaire s'il est nouveau
+     * @param valeur Nom de ville ou de secteur (null accepté)
+     * @return Identifiant du nom, ou AUCUN si la valeur est null
+     */
+    public static int encoder(String valeur){
+        if(valeur == null){
+            return AUCUN;
+        }
+        Integer id = identifiants.get(valeur);
+        if(id != null){
+            return id;
+        }
+        // Insertion atomique : un même nom ne reçoit jamais deux identifiants
+        return identifiants.computeIfAbsent(valeur, v -> {
+            int nouveau = prochainId.getAndIncrement();
+            valeurs.placer(nouveau, v);
+            return nouveau;
+        });
+    }
+
+    /**
+     * Obtenir l'identifiant d'un nom sans l'ajouter au dictionnaire
+     * @param valeur Nom de ville ou de secteur (null accepté)
+     * @return Identifiant du nom, AUCUN si la valeur est null, INCONNU si le nom est absent
+     */
+    public static int chercher(String valeur){
+        if(valeur == null){
+            return AUCUN;
+        }
+        Integer id = identifiants.get(valeur);
+        return id == null ? INCONNU : id;
+    }
+
+    /**
+     * Retrouver le nom correspondant à un identifiant
+     * @param id Identifiant obtenu par encoder
+     * @return Le nom, ou null pour AUCUN
+     */
+    public static String decoder(int id){
+        return id == AUCUN ? null : valeurs.get(id);
+    }
+
+    /**
+     * Clé de zone regroupant une ville et un secteur dans un seul entier
+     * @param ville Identifiant de la ville
+     * @param secteur Identifiant du secteur
+     * @return Clé de zone (ville dans les 32 bits de poids fort, secteur dans les autres)
+     */
+    public static long zone(int ville, int secteur){
+        return ((long) ville << 32) | (secteur & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Clé de zone d'une ville et d'un secteur donnés par leur nom
+     * @param ville Nom de la ville
+     * @param secteur Nom du secteur
+     * @return Clé de zone
+     */
+    public static long zone(String ville, String secteur){
+        return zone(encoder(ville), encoder(secteur));
+    }
+
+    /**
+     * Nom de la ville d'une clé de zone
+     * @param zone Clé de zone
+     * @return Nom de la ville
+     */
+    public static String villeDeZone(long zone){
+        return decoder((int) (zone >> 32));
+    }
+
+    /**
+     * Nom du secteur d'une clé de zone
+     * @param zone Clé de zone
+     * @return Nom du secteur
+     */
+    public static String secteurDeZone(long zone){
+        return decoder((int) zone);
+    }
+
+    /**
+     * Nombre de noms distincts dans le dictionnaire
+     * @return Taille du dictionnaire
+     */
+    public static int getTaille(){
+        return identifiants.size();
+    }
+}
@@ -1,16 +1,19 @@
 package account;
 
+import java.util.Objects;
 import java.util.Scanner;
 
 /**
  * Classe représentant une adresse de livraison
  * Stocke les informations géographiques pour la livraison des commandes
+ * La ville et le secteur sont stockés sous forme d'identifiants du dictionnaire partagé
+ * (DictionnaireZones) : les noms ne sont pas dupliqués d'une adresse à l'autre.
  */
 public class Localisation {
 
     // Attributs de l'adresse
-    private String ville;        // Ville de livraison
-    private String secteur;      // Secteur
+    private int ville;           // Ville de livraison (identifiant du dictionnaire)
+    private int secteur;         // Secteur (identifiant du dictionnaire)
     private String description;  // Description détaillée (rue, numéro, indications)
 
     /**
@@ -39,15 +42,15 @@ public class Localisation {
             }
 
             // Attribution des valeurs avec validation
-            this.ville = ville;
-            this.secteur = secteur;
+            this.ville = DictionnaireZones.encoder(ville);
+            this.secteur = DictionnaireZones.encoder(secteur);
             this.description = description.isEmpty() ? "Aucune description" : description;
 
         } catch (Exception e) {
             // Gestion d'erreur robuste avec valeurs par défaut
             System.out.println("Erreur lors de la saisie de l'adresse. Valeurs par défaut utilisées.");
-            this.ville = "Non spécifié";
-            this.secteur = "Non spécifié";
+            this.ville = DictionnaireZones.encoder("Non spécifié");
+            this.secteur = DictionnaireZones.encoder("Non spécifié");
             this.description = "Aucune description";
         }
     }
@@ -60,20 +63,37 @@ public class Localisation {
      */
     public Localisation(String ville, String secteur, String description){
         // Validation et nettoyage des entrées
-        this.ville = ville;
-        this.secteur = secteur;
+        this.ville = DictionnaireZones.encoder(ville);
+        this.secteur = DictionnaireZones.encoder(secteur);
         this.description = description;
     }
 
     // Getters - méthodes d'accès aux attributs
     public String getVille() {
-        return ville;
+        return DictionnaireZones.decoder(ville);
     }
 
     public String getSecteur() {
+        return DictionnaireZones.decoder(secteur);
+    }
+
+    public int getIdVille() {
+        return ville;
+    }
+
+    public int getIdSecteur() {
         return secteur;
     }
 
+    /**
+     * Clé de la zone de livraison (ville et secteur) sous forme d'un seul entier
+     * Deux adresses de la même zone ont la même clé : regrouper par zone ne compare pas de chaînes
+     * @return Clé de zone (voir DictionnaireZones.zone)
+     */
+    public long getZone() {
+        return DictionnaireZones.zone(ville, secteur);
+    }
+
     public String getDescription() {
         return description;
     }
@@ -86,7 +106,7 @@ public class Localisation {
      */
     public void setVille(String ville) {
         if(ville != null && !ville.isEmpty()){
-            this.ville = ville.trim();
+            this.ville = DictionnaireZones.encoder(ville.trim());
         } else {
             System.out.println("La ville ne peut pas être vide !");
         }
@@ -98,7 +118,7 @@ public class Localisation {
      */
     public void setSecteur(String secteur) {
         if(secteur != null && !secteur.isEmpty()){
-            this.secteur = secteur.trim();
+            this.secteur = DictionnaireZones.encoder(secteur.trim());
         } else {
             System.out.println("Le secteur ne peut pas être vide !");
         }
@@ -118,7 +138,7 @@ public class Localisation {
      * @return Adresse complète sous forme de chaîne
      */
     public String getFormattedAddress(){
-        return String.format("%s, %s - %s", ville, secteur, description);
+        return String.format("%s, %s - %s", getVille(), getSecteur(), description);
     }
 
     /**
@@ -154,8 +174,19 @@ public class Localisation {
         if(obj == null || getClass() != obj.getClass()) return false;  // Type différent
 
         Localisation other = (Localisation) obj;
-        return ville.equals(other.ville) &&
-                secteur.equals(other.secteur) &&
-                description.equals(other.description);
+        return ville == other.ville &&
+                secteur == other.secteur &&
+                Objects.equals(description, other.description);
+    }
+
+    /**
+     * Code de hachage cohérent avec equals
+     * Attention : une adresse modifiée change de code, elle doit être retirée
+     * d'une table de hachage avant d'être modifiée
+     * @return Code de hachage de l'adresse
+     */
+    @Override
+    public int hashCode(){
+        return 31 * Long.hashCode(getZone()) + Objects.hashCode(description);
     }
 }
\ No newline at end of file
@@ -0,0 +1,188 @@
+package account;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Hachage des mots de passe avec PBKDF2 (HMAC-SHA256) et un sel aléatoire par compte
+ * Le mot de passe n'est jamais stocké : seul le format "itérations:sel:empreinte"
+ * (sel et empreinte en Base64) est conservé dans le compte.
+ *
+ * Le calcul est volontairement coûteux. Les vérifications de connexion passent donc
+ * par un pool de threads borné, avec une file d'attente limitée : en cas d'afflux
+ * de connexions, les demandes en trop sont refusées au lieu d'occuper tous les threads.
+ *
+ * Réglages (propriétés système) :
+ * - motdepasse.iterations : nombre d'itérations PBKDF2 (100000 par défaut)
+ * - motdepasse.threads : nombre de threads de vérification (nombre de processeurs par défaut)
+ * - motdepasse.file : nombre de vérifications en attente au maximum (64 par défaut)
+ */
+public class MotDePasse {
+
+    private static final String ALGORITHME = "PBKDF2WithHmacSHA256";
+    private static final int TAILLE_SEL = 16;       // Octets
+    private static final int TAILLE_EMPREINTE = 256; // Bits
+
+    private static final SecureRandom ALEA = new SecureRandom();
+
+    // Nombre d'itérations utilisé pour les nouvelles empreintes
+    private static volatile int iterations = lireReglage("motdepasse.iterations", 100_000);
+
+    // Pool de vérification : threads démons, file bornée, refus au-delà
+    private static final ThreadPoolExecutor verificateurs = creerPool(
+            lireReglage("motdepasse.threads", Runtime.getRuntime().availableProcessors()),
+            lireReglage("motdepasse.file", 64));
+
+    private MotDePasse(){
+        // Classe utilitaire, pas d'instance
+    }
+
+    /**
+     * Modifier le nombre d'itérations des nouvelles empreintes
+     * Les empreintes existantes restent valides et sont recalculées à la connexion suivante
+     * @param iterations Nombre d'itérations (au moins 1)
+     */
+    public static void setIterations(int iterations){
+        if(iterations < 1){
+            throw new IllegalArgumentException("Nombre d'itérations invalide: " + iterations);
+        }
+        MotDePasse.iterations = iterations;
+    }
+
+    public static int getIterations(){
+        return iterations;
+    }
+
+    /**
+     * Calculer l'empreinte d'un mot de passe avec un nouveau sel
+     * @param motDePasse Mot de passe en clair
+     * @return Empreinte au format "itérations:sel:empreinte"
+     */
+    public static String hacher(String motDePasse){
+        byte[] sel = new byte[TAILLE_SEL];
+        ALEA.nextBytes(sel);
+        int n = iterations;
+        Base64.Encoder base64 = Base64.getEncoder();
+        return n + ":" + base64.encodeToString(sel) + ":" + base64.encodeToString(pbkdf2(motDePasse, sel, n));
+    }
+
+    /**
+     * Vérifier un mot de passe dans le thread appelant
+     * La comparaison des empreintes se fait en temps constant
+     * @param motDePasse Mot de passe saisi
+     * @param empreinte Empreinte stockée
+     * @return true si le mot de passe correspond
+     */
+    public static boolean verifier(String motDePasse, String empreinte){
+        String[] parties = empreinte.split(":");
+        if(parties.length != 3){
+            return false;
+        }
+        int n;
+        try {
+            n = Integer.parseInt(parties[0]);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        Base64.Decoder base64 = Base64.getDecoder();
+        byte[] attendue = base64.decode(parties[2]);
+        return MessageDigest.isEqual(attendue, pbkdf2(motDePasse, base64.decode(parties[1]), n));
+    }
+
+    /**
+     * Vérifier un mot de passe dans le pool de vérification
+     * Le thread appelant attend le résultat, mais le nombre de calculs simultanés
+     * et de demandes en attente est borné
+     * @param motDePasse Mot de passe saisi
+     * @param empreinte Empreinte stockée
+     * @return true si le mot de passe correspond
+     * @throws IllegalStateException si le pool est saturé (trop de connexions en cours)
+     */
+    public static boolean verifierDansPool(String motDePasse, String empreinte){
+        Future<Boolean> resultat;
+        try {
+            resultat = verificateurs.submit(() -> verifier(motDePasse, empreinte));
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("Trop de connexions en cours, réessayez plus tard");
+        }
+        try {
+            return resultat.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            resultat.cancel(true);
+            return false;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Vérification du mot de passe impossible", e.getCause());
+        }
+    }
+
+    /**
+     * Recalculer en arrière-plan l'empreinte d'un mot de passe qui vient d'être vérifié
+     * Le calcul passe par le pool de vérification ; s'il est saturé, le recalcul est
+     * abandonné et sera retenté à la connexion suivante
+     * @param motDePasse Mot de passe vérifié
+     * @param remplacement Reçoit la nouvelle empreinte une fois calculée
+     */
+    public static void rehacherDansPool(String motDePasse, Consumer<String> remplacement){
+        try {
+            verificateurs.execute(() -> remplacement.accept(hacher(motDePasse)));
+        } catch (RejectedExecutionException e) {
+            // Pool saturé : l'ancienne empreinte reste valide
+        }
+    }
+
+    /**
+     * Indiquer si une empreinte a été calculée avec un autre nombre d'itérations
+     * que le réglage actuel et doit donc être recalculée
+     * @param empreinte Empreinte stockée
+     * @return true si l'empreinte doit être recalculée
+     */
+    public static boolean doitRehacher(String empreinte){
+        int separateur = empreinte.indexOf(':');
+        return separateur < 0 || !empreinte.substring(0, separateur).equals(Integer.toString(iterations));
+    }
+
+    private static byte[] pbkdf2(String motDePasse, byte[] sel, int iterations){
+        PBEKeySpec spec = new PBEKeySpec(motDePasse.toCharArray(), sel, iterations, TAILLE_EMPREINTE);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHME).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Algorithme " + ALGORITHME + " indisponible", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    /**
+     * Lire un réglage entier strictement positif
+     * @throws IllegalArgumentException si la propriété vaut 0 ou moins, afin d'échouer
+     * dès le chargement de la classe plutôt qu'au premier hachage
+     */
+    private static int lireReglage(String propriete, int defaut){
+        int valeur = Integer.getInteger(propriete, defaut);
+        if(valeur < 1){
+            throw new IllegalArgumentException("Réglage " + propriete + " invalide (doit être au moins 1): " + valeur);
+        }
+        return valeur;
+    }
+
+    private static ThreadPoolExecutor creerPool(int threads, int file){
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(file), tache -> {
+                    Thread thread = new Thread(tache, "verification-mot-de-passe");
+                    thread.setDaemon(true);  // Ne bloque pas l'arrêt de l'application
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -1,5 +1,7 @@
 package account;
 
+import statistiques.Statistiques;
+
 /**
  * Classe représentant un utilisateur du système e-commerce
  * Hérite de Account et ajoute la gestion des adresses de livraison
@@ -16,7 +18,7 @@ public class User extends Account{
      */
     public User(){
         super(); // Appel du constructeur parent pour saisir nom, prénom, email, password
-        this.addresse = new Localisation();
+        changerAdresse(new Localisation());
         // L'adresse sera ajoutée ultérieurement si nécessaire
     }
 
@@ -30,7 +32,33 @@ public class User extends Account{
      */
     public User(String nom, String prenom, String email, String password, Localisation addresse){
         super(nom, prenom, email, password);
-        this.addresse = addresse;
+        changerAdresse(addresse);
+    }
+
+    /**
+     * Constructeur d'un utilisateur restauré
+     * @see #restaurer
+     */
+    private User(String nom, String prenom, String email, String empreinte, boolean enregistrer){
+        super(nom, prenom, email, empreinte, enregistrer);
+    }
+
+    /**
+     * Restaurer un utilisateur sauvegardé, sans message et sans recalculer l'empreinte du mot de passe
+     * @param nom Nom de famille
+     * @param prenom Prénom
+     * @param email Adresse email
+     * @param empreinte Empreinte du mot de passe
+     * @param addresse Adresse de livraison (null si aucune)
+     * @param enregistrer true pour l'enregistrer si son email est libre, false pour un compte
+     *                    qui n'était pas enregistré (propriétaire d'une commande uniquement)
+     * @return L'utilisateur restauré
+     */
+    public static User restaurer(String nom, String prenom, String email, String empreinte,
+                                 Localisation addresse, boolean enregistrer){
+        User user = new User(nom, prenom, email, empreinte, enregistrer);
+        user.changerAdresse(addresse);
+        return user;
     }
 
     /**
@@ -40,7 +68,7 @@ public class User extends Account{
      * @param description Description détaillée de l'adresse
      */
     public void addAddress(String ville, String secteur, String description){
-        this.addresse = new Localisation(ville, secteur, description);
+        changerAdresse(new Localisation(ville, secteur, description));
         System.out.println("Adresse ajoutée avec succès !");
     }
 
@@ -49,7 +77,7 @@ public class User extends Account{
      * Utilise le constructeur par défaut de Localisation
      */
     public void addAddress(){
-        this.addresse = new Localisation();
+        changerAdresse(new Localisation());
         System.out.println("Adresse ajoutée avec succès !");
     }
 
@@ -66,10 +94,27 @@ public class User extends Account{
      * Utile si l'utilisateur ne souhaite plus avoir d'adresse enregistrée
      */
     public void removeAddress(){
-        this.addresse = null;
+        changerAdresse(null);
         System.out.println("Adresse supprimée !");
     }
 
+    /**
+     * Remplacer l'adresse et tenir à jour le nombre d'utilisateurs avec adresse
+     * @param nouvelle Nouvelle adresse (null pour supprimer l'adresse)
+     */
+    private synchronized void changerAdresse(Localisation nouvelle){
+        boolean avait = this.addresse != null;
+        this.addresse = nouvelle;
+        if(!estEnregistre()){
+            return;  // Compte refusé (email en double) : pas compté
+        }
+        if(!avait && nouvelle != null){
+            Statistiques.adresseAjoutee();
+        } else if(avait && nouvelle == null){
+            Statistiques.adresseRetiree();
+        }
+    }
+
     /**
      * Vérifier si l'utilisateur a une adresse enregistrée
      * @return true si une adresse est définie, false sinon
@@ -0,0 +1,91 @@
+package commande;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocation des identifiants de commande
+ * Chaque identifiant est attribué une seule fois, sans verrou, par incrément atomique
+ * d'un compteur partagé. Pour les débits élevés, chaque thread peut réserver un bloc
+ * d'identifiants consécutifs et les distribuer ensuite sans toucher au compteur partagé
+ * (propriété système commande.ids.bloc, 0 par défaut : pas de bloc). Les identifiants
+ * restent uniques et croissants dans chaque thread, mais ne suivent plus l'ordre
+ * global des créations.
+ */
+public final class AllocateurIds {
+
+    // Taille des blocs réservés par thread (0 ou 1 : allocation une à une)
+    private static final int TAILLE_BLOC = Integer.getInteger("commande.ids.bloc", 0);
+
+    // Prochain identifiant libre (le premier panier reçoit l'identifiant 1)
+    private static final AtomicLong prochain = new AtomicLong(1);
+
+    // Bloc réservé par le thread courant : [suivant, fin)
+    private static final ThreadLocal<long[]> blocDuThread = ThreadLocal.withInitial(() -> new long[]{0, 0});
+
+    private AllocateurIds(){
+        // Classe utilitaire, pas d'instance
+    }
+
+    /**
+     * Attribuer un nouvel identifiant de commande
+     * @return Identifiant jamais attribué auparavant
+     * @throws IllegalStateException si tous les identifiants ont été attribués
+     */
+    public static int allouer(){
+        return TAILLE_BLOC > 1 ? allouerDansBloc(TAILLE_BLOC) : allouerUn();
+    }
+
+    /**
+     * Attribuer un identifiant directement depuis le compteur partagé
+     * Les identifiants sont strictement croissants dans l'ordre des appels
+     * @return Nouvel identifiant
+     */
+    public static int allouerUn(){
+        return verifier(prochain.getAndIncrement());
+    }
+
+    /**
+     * Attribuer un identifiant depuis le bloc du thread courant,
+     * en réservant un nouveau bloc lorsque le précédent est épuisé
+     * @param tailleBloc Nombre d'identifiants réservés à la fois
+     * @return Nouvel identifiant
+     */
+    public static int allouerDansBloc(int tailleBloc){
+        long[] bloc = blocDuThread.get();
+        if(bloc[0] >= bloc[1]){
+            bloc[0] = prochain.getAndAdd(tailleBloc);
+            bloc[1] = bloc[0] + tailleBloc;
+        }
+        return verifier(bloc[0]++);
+    }
+
+    /**
+     * Réserver une plage d'identifiants consécutifs (par exemple pour un import)
+     * @param taille Nombre d'identifiants
+     * @return Premier identifiant de la plage [premier, premier + taille)
+     */
+    public static int reserver(int taille){
+        if(taille < 1){
+            throw new IllegalArgumentException("Taille de plage invalide: " + taille);
+        }
+        long premier = prochain.getAndAdd(taille);
+        verifier(premier + taille - 1);
+        return (int) premier;
+    }
+
+    /**
+     * S'assurer que les prochains identifiants dépassent un identifiant déjà attribué
+     * (par exemple une commande restaurée depuis le journal)
+     * @param id Identifiant déjà utilisé
+     */
+    public static void avancerApres(int id){
+        prochain.accumulateAndGet(id + 1L, Math::max);
+    }
+
+    private static int verifier(long id){
+        if(id > Integer.MAX_VALUE){
+            throw new IllegalStateException("Plus d'identifiant de commande disponible");
+        }
+        return (int) id;
+    }
+}
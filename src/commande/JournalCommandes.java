@@ -0,0 +1,872 @@
+package commande;
+
+import account.Account;
+import account.DictionnaireZones;
+import account.Localisation;
+import account.User;
+import produit.Produit;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * Journal des commandes, écrit avant publication (write-ahead)
+ * Chaque validation (avec le contenu du panier) et chaque livraison est ajoutée sous la forme
+ * d'un enregistrement binaire compact à la fin d'un segment de fichier projeté en mémoire.
+ * Au démarrage, la relecture du journal reconstruit les commandes validées et livrées.
+ * Une validation ou une livraison dont l'écriture sur disque a échoué est suivie d'un
+ * enregistrement d'annulation : la relecture se fait en deux passages, le premier relevant
+ * les enregistrements annulés, le second rejouant les autres.
+ *
+ * Une validation est de taille fixe (22 octets, plus 16 par ligne) : propriétaire, ville, secteur
+ * et produits y sont désignés par des numéros propres au journal. Chaque numéro est défini une
+ * seule fois, par un enregistrement de définition écrit juste avant sa première utilisation
+ * (email et nom du propriétaire, nom de ville ou de secteur, nom, description et prix du produit).
+ * Les IDs de produits et de noms ne sont pas stables d'un lancement à l'autre (import parallèle,
+ * produits créés en cours d'exécution) : à la relecture, une définition de produit est rattachée
+ * au produit de même nom et de même prix, ou recrée ce produit s'il n'existe plus, afin que
+ * les commandes soient restaurées avec toutes leurs lignes.
+ *
+ * Point de reprise : une fois un instantané complet écrit (voir sauvegarde.Instantane), les
+ * segments qui le précèdent sont supprimés. Le nouveau segment commence par un enregistrement
+ * de reprise qui remet les numéros à zéro, ses définitions ne dépendant d'aucun segment supprimé.
+ *
+ * Format d'un enregistrement : longueur (int), CRC32 du contenu (int), contenu.
+ * Un enregistrement est repéré par sa position de fin : numéro de segment (32 bits de poids fort)
+ * et position dans le segment, ce qui reste valable d'un lancement à l'autre.
+ * Une longueur nulle marque la fin d'un segment ; un enregistrement dont le CRC ne
+ * correspond pas (écriture interrompue par un arrêt brutal) termine la relecture du segment.
+ * Lorsqu'un segment est plein, le suivant est créé (commandes-000002.journal, ...).
+ *
+ * Validation groupée : l'ajout d'un enregistrement n'est qu'une copie en mémoire. Le thread
+ * qui doit rendre son enregistrement durable force l'écriture sur disque de tout ce qui a été
+ * ajouté jusque-là ; les threads arrivés pendant ce temps trouvent souvent leur
+ * enregistrement déjà couvert et n'appellent pas force() à leur tour.
+ * Sans fsync, le journal survit à l'arrêt du programme mais pas à une panne du système.
+ *
+ * Réglages (propriétés système) :
+ * - commande.journal.segment : taille d'un segment en Mo, de 1 à 1024 (8 par défaut)
+ */
+public final class JournalCommandes {
+
+    private static final byte VALIDATION = 1;
+    private static final byte LIVRAISON = 2;
+    private static final byte ANNULATION = 3;
+    private static final byte PRODUIT = 4;        // Définition d'un numéro de produit
+    private static final byte PROPRIETAIRE = 5;   // Définition d'un numéro de propriétaire
+    private static final byte NOM = 6;            // Définition d'un numéro de ville ou de secteur
+    private static final byte REPRISE = 7;        // Point de reprise : numéros remis à zéro
+
+    private static final int ENTETE = 8;  // Longueur et CRC32
+    private static final String PREFIXE = "commandes-";
+    private static final String SUFFIXE = ".journal";
+
+    private static final int TAILLE_SEGMENT_MAX_MO = 1024;
+    private static final int SANS_NUMERO = -1;    // Ville ou secteur absent
+
+    // Taille d'un segment en Mo, vérifiée à l'ouverture
+    private static final int TAILLE_SEGMENT_MO = Integer.getInteger("commande.journal.segment", 8);
+    private static final int TAILLE_SEGMENT = TAILLE_SEGMENT_MO << 20;
+
+    // Journal ouvert (null : commandes conservées en mémoire uniquement)
+    private static volatile JournalCommandes actif;
+
+    // Opérations journalisées en cours (partagé) contre point de reprise (exclusif) : un point
+    // de reprise attend que chaque commande journalisée soit aussi publiée en mémoire
+    private static final ReentrantReadWriteLock barriere = new ReentrantReadWriteLock();
+
+    private final Path dossier;
+    private final boolean fsync;
+
+    // Segment courant, protégé par le verrou du journal
+    private int numeroSegment;
+    private FileChannel canal;
+    private MappedByteBuffer segment;
+
+    // Validation groupée : un seul force() à la fois, position déjà sur disque
+    private final Object verrouForce = new Object();
+    private final AtomicLong durables = new AtomicLong();
+
+    // Numéros déjà définis dans le journal depuis le dernier point de reprise,
+    // protégés par le verrou du journal
+    private final Map<Produit, Integer> numerosProduits = new HashMap<>();
+    private final Map<User, Integer> numerosProprietaires = new HashMap<>();
+    private final Map<Integer, Integer> numerosNoms = new HashMap<>();   // Par identifiant du dictionnaire
+    private int prochainNumero;
+
+    private JournalCommandes(Path dossier, boolean fsync){
+        this.dossier = dossier;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Ouvrir le journal d'un dossier et rejouer les commandes qu'il contient
+     * Les produits et comptes doivent déjà être chargés : un produit journalisé introuvable est
+     * recréé, le propriétaire d'une commande dont le compte est absent est restauré sans être
+     * enregistré (il ne peut pas se connecter)
+     * @param dossier Dossier du journal (créé s'il n'existe pas)
+     * @param fsync true pour forcer l'écriture sur disque avant de confirmer une commande
+     * @return Bilan de la relecture
+     * @throws IOException si le journal ne peut pas être lu ou créé, ou s'il fait référence
+     * à un numéro jamais défini (aucune commande n'est alors modifiée après cet enregistrement)
+     * @throws IllegalStateException si un journal est déjà ouvert
+     * @throws IllegalArgumentException si la taille de segment configurée est invalide
+     */
+    public static synchronized Relecture ouvrir(Path dossier, boolean fsync) throws IOException {
+        if(actif != null){
+            throw new IllegalStateException("Journal des commandes déjà ouvert");
+        }
+        if(TAILLE_SEGMENT_MO < 1 || TAILLE_SEGMENT_MO > TAILLE_SEGMENT_MAX_MO){
+            throw new IllegalArgumentException("Réglage commande.journal.segment invalide : " + TAILLE_SEGMENT_MO
+                    + " Mo (de 1 à " + TAILLE_SEGMENT_MAX_MO + " Mo)");
+        }
+        Files.createDirectories(dossier);
+        JournalCommandes journal = new JournalCommandes(dossier, fsync);
+        Relecture relecture = journal.relire();
+        actif = journal;
+        return relecture;
+    }
+
+    /**
+     * Fermer le journal ouvert, après avoir forcé son écriture sur disque
+     */
+    public static synchronized void fermer() throws IOException {
+        JournalCommandes journal = actif;
+        if(journal == null){
+            return;
+        }
+        actif = null;
+        synchronized(journal){
+            journal.segment.force();
+            journal.canal.close();
+        }
+    }
+
+    public static boolean isOuvert(){
+        return actif != null;
+    }
+
+    /**
+     * Commencer un point de reprise, juste avant l'écriture d'un instantané complet
+     * Attend la fin des opérations journalisées en cours (toute commande du journal est alors
+     * publiée en mémoire, donc reprise par l'instantané), puis passe à un nouveau segment qui
+     * commence par un enregistrement de reprise
+     * @return Numéro du premier segment à conserver, à transmettre à terminerPointDeReprise
+     * (0 si aucun journal n'est ouvert)
+     * @throws IOException si le nouveau segment ne peut pas être créé
+     */
+    public static int commencerPointDeReprise() throws IOException {
+        JournalCommandes journal = actif;
+        if(journal == null){
+            return 0;
+        }
+        barriere.writeLock().lock();
+        try {
+            synchronized(journal){
+                journal.segmentSuivant();
+                journal.numerosProduits.clear();
+                journal.numerosProprietaires.clear();
+                journal.numerosNoms.clear();
+                journal.prochainNumero = 0;
+                journal.ajouterSousVerrou(new byte[]{REPRISE});
+                return journal.numeroSegment;
+            }
+        } finally {
+            barriere.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Terminer un point de reprise une fois l'instantané écrit : supprimer les segments qui le
+     * précèdent. Si l'instantané a échoué, ne pas appeler cette méthode : les anciens segments
+     * restent et seront rejoués (l'enregistrement de reprise n'y change rien)
+     * @param premierConserve Numéro renvoyé par commencerPointDeReprise
+     * @return Nombre de segments supprimés
+     * @throws IOException si un segment ne peut pas être supprimé
+     */
+    public static int terminerPointDeReprise(int premierConserve) throws IOException {
+        JournalCommandes journal = actif;
+        if(journal == null || premierConserve == 0){
+            return 0;
+        }
+        int supprimes = 0;
+        for(Map.Entry<Integer, Path> segment : journal.listerSegments().entrySet()){
+            if(segment.getKey() < premierConserve){
+                Files.delete(segment.getValue());
+                supprimes++;
+            }
+        }
+        return supprimes;
+    }
+
+    /**
+     * Verrou partagé à tenir pendant une opération journalisée, de l'ajout au journal jusqu'à
+     * la publication en mémoire (ou jusqu'à l'annulation en cas d'échec)
+     */
+    static Lock operation(){
+        return barriere.readLock();
+    }
+
+    /**
+     * Journaliser la validation d'un panier (appelé sous le verrou du panier, avant publication)
+     * @param panier Panier validé, dont les lignes ne changent plus
+     * @param zone Zone de livraison retenue
+     * @return Position à rendre durable (0 si aucun journal n'est ouvert)
+     */
+    static long validation(Panier panier, long zone){
+        JournalCommandes journal = actif;
+        return journal == null ? 0 : journal.ajouterValidation(panier, zone);
+    }
+
+    /**
+     * Journaliser la livraison d'une commande (appelé sous le verrou du panier)
+     * @param id Identifiant de la commande
+     * @return Position à rendre durable (0 si aucun journal n'est ouvert)
+     */
+    static long livraison(int id){
+        JournalCommandes journal = actif;
+        return journal == null ? 0 : journal.ajouter(encoderLivraison(id));
+    }
+
+    /**
+     * Annuler un enregistrement dont l'écriture sur disque a échoué, pour que la relecture
+     * l'ignore s'il a malgré tout atteint le disque
+     * Au mieux : si le journal ne peut plus rien ajouter, l'annulation est abandonnée
+     * @param id Identifiant de la commande
+     * @param position Position renvoyée par validation ou livraison
+     * @return true si l'annulation a été ajoutée au journal
+     */
+    static boolean annuler(int id, long position){
+        JournalCommandes journal = actif;
+        if(journal == null || position == 0){
+            return false;
+        }
+        try {
+            journal.ajouter(encoderAnnulation(id, position));
+            return true;
+        } catch (UncheckedIOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Attendre que le journal soit sur disque jusqu'à une position donnée
+     * Sans fsync ou sans journal, ne fait rien
+     * @param position Position renvoyée par validation ou livraison
+     * @throws UncheckedIOException si l'écriture sur disque échoue
+     */
+    static void rendreDurable(long position){
+        JournalCommandes journal = actif;
+        if(journal != null && journal.fsync){
+            journal.forcerJusqua(position);
+        }
+    }
+
+    /**
+     * Attendre que tout ce qui a été journalisé jusqu'ici soit sur disque
+     * @throws UncheckedIOException si l'écriture sur disque échoue
+     */
+    static void rendreDurable(){
+        JournalCommandes journal = actif;
+        if(journal != null && journal.fsync){
+            long position;
+            synchronized(journal){
+                position = journal.position();
+            }
+            journal.forcerJusqua(position);
+        }
+    }
+
+    /**
+     * Ajouter un enregistrement à la fin du segment courant, en changeant de segment s'il est plein
+     * @param contenu Contenu de l'enregistrement
+     * @return Position de la fin de l'enregistrement
+     * @throws UncheckedIOException si le segment suivant ne peut pas être créé (rien n'est ajouté)
+     */
+    private synchronized long ajouter(byte[] contenu){
+        return ajouterSousVerrou(contenu);
+    }
+
+    private long ajouterSousVerrou(byte[] contenu){
+        if(contenu.length > TAILLE_SEGMENT - ENTETE){
+            throw new IllegalArgumentException("Enregistrement trop grand pour un segment du journal: " + contenu.length + " octets");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(contenu, 0, contenu.length);
+        if(segment.remaining() < ENTETE + contenu.length){
+            try {
+                segmentSuivant();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Impossible de créer un segment du journal", e);
+            }
+        }
+        segment.putInt(contenu.length).putInt((int) crc.getValue()).put(contenu);
+        return position();
+    }
+
+    /**
+     * Ajouter une validation, précédée des définitions des numéros qu'elle utilise pour la
+     * première fois. Un numéro n'est retenu qu'une fois sa définition ajoutée au journal
+     * @return Position de la fin de la validation
+     */
+    private synchronized long ajouterValidation(Panier panier, long zone){
+        Collection<QteProduit> lignes = panier.getProduits();
+        ByteBuffer contenu = ByteBuffer.allocate(22 + 16 * lignes.size());
+        contenu.put(VALIDATION)
+                .putInt(panier.getId())
+                .putInt(numeroProprietaire(panier.getUser()))
+                .putInt(numeroNom((int) (zone >> 32)))
+                .putInt(numeroNom((int) zone))
+                .putInt(lignes.size());
+        for(QteProduit ligne : lignes){
+            contenu.putInt(numeroProduit(ligne.getProduit()))
+                    .putInt(ligne.getQuantite())
+                    .putLong(ligne.getPrixUnitaireCentimes());
+        }
+        return ajouterSousVerrou(contenu.array());
+    }
+
+    private int numeroProduit(Produit produit){
+        Integer numero = numerosProduits.get(produit);
+        if(numero != null){
+            return numero;
+        }
+        ByteArrayOutputStream octets = new ByteArrayOutputStream(64);
+        try(DataOutputStream sortie = new DataOutputStream(octets)){
+            sortie.writeByte(PRODUIT);
+            sortie.writeInt(prochainNumero);
+            sortie.writeInt(produit.getId());
+            sortie.writeLong(produit.getPrixCentimes());
+            sortie.writeUTF(texte(produit.getNom()));
+            sortie.writeUTF(texte(produit.getDescription()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);  // Impossible en mémoire
+        }
+        return definir(octets.toByteArray(), numerosProduits, produit);
+    }
+
+    private int numeroProprietaire(User user){
+        Integer numero = numerosProprietaires.get(user);
+        if(numero != null){
+            return numero;
+        }
+        Localisation adresse = user.getAddress();
+        long zone = adresse != null ? adresse.getZone() : DictionnaireZones.zone(DictionnaireZones.AUCUN, DictionnaireZones.AUCUN);
+        int ville = numeroNom((int) (zone >> 32));
+        int secteur = numeroNom((int) zone);
+        ByteArrayOutputStream octets = new ByteArrayOutputStream(64);
+        try(DataOutputStream sortie = new DataOutputStream(octets)){
+            sortie.writeByte(PROPRIETAIRE);
+            sortie.writeInt(prochainNumero);
+            sortie.writeUTF(texte(user.getEmail()));
+            sortie.writeUTF(texte(user.getNom()));
+            sortie.writeUTF(texte(user.getPrenom()));
+            sortie.writeInt(ville);
+            sortie.writeInt(secteur);
+            sortie.writeUTF(adresse != null ? texte(adresse.getDescription()) : "");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);  // Impossible en mémoire
+        }
+        return definir(octets.toByteArray(), numerosProprietaires, user);
+    }
+
+    /**
+     * @param id Identifiant de ville ou de secteur dans DictionnaireZones
+     */
+    private int numeroNom(int id){
+        if(id == DictionnaireZones.AUCUN){
+            return SANS_NUMERO;
+        }
+        Integer numero = numerosNoms.get(id);
+        if(numero != null){
+            return numero;
+        }
+        ByteArrayOutputStream octets = new ByteArrayOutputStream(32);
+        try(DataOutputStream sortie = new DataOutputStream(octets)){
+            sortie.writeByte(NOM);
+            sortie.writeInt(prochainNumero);
+            sortie.writeUTF(DictionnaireZones.decoder(id));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);  // Impossible en mémoire
+        }
+        return definir(octets.toByteArray(), numerosNoms, id);
+    }
+
+    private <T> int definir(byte[] definition, Map<T, Integer> numeros, T cle){
+        ajouterSousVerrou(definition);
+        int numero = prochainNumero++;
+        numeros.put(cle, numero);
+        return numero;
+    }
+
+    private static String texte(String valeur){
+        return valeur != null ? valeur : "";
+    }
+
+    /**
+     * Position courante : numéro de segment et position dans le segment
+     * Croissante d'un enregistrement au suivant, y compris d'un segment à l'autre
+     * Appelé sous le verrou du journal
+     */
+    private long position(){
+        return ((long) numeroSegment << 32) | segment.position();
+    }
+
+    /**
+     * Forcer l'écriture sur disque jusqu'à une position, en une seule opération pour tous
+     * les threads en attente : celui qui obtient le verrou couvre aussi les enregistrements
+     * ajoutés par les autres pendant qu'il attendait
+     */
+    private void forcerJusqua(long position){
+        if(durables.get() >= position){
+            return;
+        }
+        synchronized(verrouForce){
+            if(durables.get() >= position){
+                return;  // Couvert par le force() précédent
+            }
+            MappedByteBuffer tampon;
+            long cible;
+            synchronized(this){
+                tampon = segment;  // Les segments précédents ont été forcés lors du changement
+                cible = position();
+            }
+            tampon.force();
+            durables.accumulateAndGet(cible, Math::max);
+        }
+    }
+
+    /**
+     * Fermer le segment courant (qui se termine par des zéros) et en ouvrir un nouveau
+     * Appelé sous le verrou du journal
+     */
+    private void segmentSuivant() throws IOException {
+        if(fsync){
+            segment.force();
+            durables.accumulateAndGet(position(), Math::max);
+        }
+        canal.close();
+        projeter(numeroSegment + 1, true);
+    }
+
+    private void projeter(int numero, boolean nouveau) throws IOException {
+        Path fichier = dossier.resolve(String.format("%s%06d%s", PREFIXE, numero, SUFFIXE));
+        canal = nouveau
+                ? FileChannel.open(fichier, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(fichier, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long taille = nouveau ? TAILLE_SEGMENT : Math.max(canal.size(), TAILLE_SEGMENT);
+        segment = canal.map(FileChannel.MapMode.READ_WRITE, 0, taille);
+        numeroSegment = numero;
+    }
+
+    /**
+     * Rejouer tous les segments dans l'ordre, puis se placer à la fin du dernier
+     * Premier passage : relever les enregistrements annulés ; second passage : rejouer les autres
+     */
+    private synchronized Relecture relire() throws IOException {
+        TreeMap<Integer, Path> segments = listerSegments();
+        Relecture relecture = new Relecture();
+        if(segments.isEmpty()){
+            projeter(1, true);
+            return relecture;
+        }
+        Set<Long> annules = new HashSet<>();
+        for(int numero : segments.keySet()){
+            projeter(numero, false);
+            parcourirSegment((position, contenu) -> {
+                if(contenu[0] == ANNULATION){
+                    DataInputStream entree = lecture(contenu);
+                    entree.readInt();
+                    annules.add(entree.readLong());
+                }
+            });
+            canal.close();
+        }
+        for(int numero : segments.keySet()){
+            if(canal.isOpen()){
+                canal.close();
+            }
+            projeter(numero, false);
+            boolean interrompu = parcourirSegment((position, contenu) -> {
+                if(!annules.contains(position)){
+                    rejouer(contenu, relecture);
+                }
+            });
+            if(interrompu){
+                tronquer(segment.position(), relecture);
+            }
+        }
+        // Le dernier segment reste ouvert : les ajouts reprennent après son dernier enregistrement valide
+        durables.set(position());
+        AllocateurIds.avancerApres(relecture.dernierId);
+        // Les numéros définis depuis le dernier point de reprise restent valables pour les ajouts
+        prochainNumero = relecture.prochainNumero;
+        for(Map.Entry<Integer, ProduitJournalise> definition : relecture.produits.entrySet()){
+            if(definition.getValue().produit != null){
+                numerosProduits.put(definition.getValue().produit, definition.getKey());
+            }
+        }
+        for(Map.Entry<Integer, ProprietaireJournalise> definition : relecture.proprietaires.entrySet()){
+            if(definition.getValue().user != null){
+                numerosProprietaires.put(definition.getValue().user, definition.getKey());
+            }
+        }
+        for(Map.Entry<Integer, String> definition : relecture.noms.entrySet()){
+            numerosNoms.put(DictionnaireZones.encoder(definition.getValue()), definition.getKey());
+        }
+        return relecture;
+    }
+
+    /**
+     * Segments présents dans le dossier du journal, par numéro
+     */
+    private TreeMap<Integer, Path> listerSegments() throws IOException {
+        TreeMap<Integer, Path> segments = new TreeMap<>();
+        try(DirectoryStream<Path> fichiers = Files.newDirectoryStream(dossier, PREFIXE + "*" + SUFFIXE)){
+            for(Path fichier : fichiers){
+                String nom = fichier.getFileName().toString();
+                try {
+                    segments.put(Integer.parseInt(nom.substring(PREFIXE.length(), nom.length() - SUFFIXE.length())), fichier);
+                } catch (NumberFormatException e) {
+                    // Fichier étranger au journal
+                }
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Parcourir les enregistrements valides du segment projeté, depuis son début
+     * S'arrête sur la fin du segment ou sur le premier enregistrement interrompu,
+     * la position du segment étant alors placée au début de cet enregistrement
+     * @param lecteur Traitement de chaque enregistrement, avec sa position de fin
+     * @return true si le parcours s'est arrêté sur un enregistrement interrompu
+     */
+    private boolean parcourirSegment(LecteurEnregistrement lecteur){
+        while(segment.remaining() >= ENTETE){
+            int debut = segment.position();
+            int longueur = segment.getInt();
+            int controle = segment.getInt();
+            if(longueur == 0){
+                segment.position(debut);  // Fin du segment
+                return false;
+            }
+            if(longueur < 0 || longueur > segment.remaining()){
+                segment.position(debut);
+                return true;
+            }
+            byte[] contenu = new byte[longueur];
+            segment.get(contenu);
+            CRC32 crc = new CRC32();
+            crc.update(contenu, 0, longueur);
+            if((int) crc.getValue() != controle){
+                segment.position(debut);
+                return true;
+            }
+            try {
+                lecteur.lire(position(), contenu);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Enregistrement du journal illisible", e);
+            }
+        }
+        return false;
+    }
+
+    private interface LecteurEnregistrement {
+        void lire(long position, byte[] contenu) throws IOException;
+    }
+
+    /**
+     * Effacer la fin d'un enregistrement interrompu pour que les ajouts suivants
+     * ne puissent pas être confondus avec ses restes
+     */
+    private void tronquer(int debut, Relecture relecture){
+        relecture.enregistrementsTronques++;
+        for(int i = debut; i < segment.limit(); i++){
+            segment.put(i, (byte) 0);
+        }
+        segment.position(debut);
+    }
+
+    private static void rejouer(byte[] contenu, Relecture relecture) throws IOException {
+        DataInputStream entree = lecture(contenu);
+        byte type = entree.readByte();
+        switch(type){
+            case REPRISE:
+                relecture.reprendre();
+                return;
+            case NOM:
+                relecture.definir(relecture.noms, entree.readInt(), entree.readUTF());
+                return;
+            case PRODUIT: {
+                int numero = entree.readInt();
+                relecture.definir(relecture.produits, numero, new ProduitJournalise(
+                        entree.readInt(), entree.readLong(), entree.readUTF(), entree.readUTF()));
+                return;
+            }
+            case PROPRIETAIRE: {
+                int numero = entree.readInt();
+                relecture.definir(relecture.proprietaires, numero, new ProprietaireJournalise(
+                        entree.readUTF(), entree.readUTF(), entree.readUTF(),
+                        relecture.nom(entree.readInt()), relecture.nom(entree.readInt()), entree.readUTF()));
+                return;
+            }
+            default:
+                break;
+        }
+        int id = entree.readInt();
+        relecture.dernierId = Math.max(relecture.dernierId, id);
+        if(type == ANNULATION){
+            return;  // Traitée au premier passage
+        }
+        if(type == LIVRAISON){
+            Panier commande = Panier.findOrderById(id);
+            if(commande != null && commande.restaurerLivraison()){
+                relecture.livraisons++;
+            }
+            return;
+        }
+        if(type != VALIDATION){
+            throw new IOException("Type d'enregistrement inconnu: " + type);
+        }
+        ProprietaireJournalise proprietaire = relecture.proprietaires.get(entree.readInt());
+        String ville = relecture.nom(entree.readInt());
+        String secteur = relecture.nom(entree.readInt());
+        int nombreLignes = entree.readInt();
+        List<ProduitJournalise> produits = new ArrayList<>(nombreLignes);
+        int[] quantites = new int[nombreLignes];
+        long[] prixUnitaires = new long[nombreLignes];
+        for(int i = 0; i < nombreLignes; i++){
+            ProduitJournalise produit = relecture.produits.get(entree.readInt());
+            if(produit == null){
+                throw new IOException("Commande " + id + " : produit non défini dans le journal");
+            }
+            produits.add(produit);
+            quantites[i] = entree.readInt();
+            prixUnitaires[i] = entree.readLong();
+        }
+        if(proprietaire == null){
+            throw new IOException("Commande " + id + " : propriétaire non défini dans le journal");
+        }
+        if(Panier.findOrderById(id) != null){
+            return;  // Déjà en mémoire (instantané écrit après cet enregistrement)
+        }
+        List<QteProduit> lignes = new ArrayList<>(nombreLignes);
+        for(int i = 0; i < nombreLignes; i++){
+            lignes.add(new QteProduit(relecture.produit(produits.get(i)), quantites[i], prixUnitaires[i]));
+        }
+        Panier.restaurer(id, relecture.proprietaire(proprietaire), lignes, DictionnaireZones.zone(ville, secteur), false);
+        relecture.commandes++;
+    }
+
+    private static DataInputStream lecture(byte[] contenu){
+        return new DataInputStream(new ByteArrayInputStream(contenu));
+    }
+
+    private static byte[] encoderLivraison(int id){
+        return new byte[]{LIVRAISON, (byte) (id >>> 24), (byte) (id >>> 16), (byte) (id >>> 8), (byte) id};
+    }
+
+    private static byte[] encoderAnnulation(int id, long position){
+        return ByteBuffer.allocate(13).put(ANNULATION).putInt(id).putLong(position).array();
+    }
+
+    /**
+     * Produit défini dans le journal, rattaché au catalogue lors de sa première utilisation
+     */
+    private static class ProduitJournalise {
+        final int id;              // ID lors de la journalisation, simple indication
+        final long prix;
+        final String nom;
+        final String description;
+        Produit produit;           // Produit retrouvé ou recréé
+
+        ProduitJournalise(int id, long prix, String nom, String description){
+            this.id = id;
+            this.prix = prix;
+            this.nom = nom;
+            this.description = description;
+        }
+    }
+
+    /**
+     * Propriétaire défini dans le journal, rattaché à son compte lors de sa première utilisation
+     */
+    private static class ProprietaireJournalise {
+        final String email;
+        final String nom;
+        final String prenom;
+        final String ville;
+        final String secteur;
+        final String description;
+        User user;                 // Compte retrouvé ou propriétaire restauré
+
+        ProprietaireJournalise(String email, String nom, String prenom, String ville, String secteur, String description){
+            this.email = email;
+            this.nom = nom;
+            this.prenom = prenom;
+            this.ville = ville;
+            this.secteur = secteur;
+            this.description = description;
+        }
+    }
+
+    /**
+     * Bilan de la relecture du journal au démarrage
+     */
+    public static class Relecture {
+
+        private long commandes;                  // Commandes validées restaurées
+        private long livraisons;                 // Livraisons rejouées
+        private long produitsRecrees;            // Produits journalisés absents du catalogue, recréés
+        private long enregistrementsTronques;    // Fins de segment interrompues (arrêt brutal)
+        private int dernierId;                   // Plus grand identifiant de commande rencontré
+
+        // Définitions en vigueur depuis le dernier point de reprise, par numéro
+        private final Map<Integer, ProduitJournalise> produits = new HashMap<>();
+        private final Map<Integer, ProprietaireJournalise> proprietaires = new HashMap<>();
+        private final Map<Integer, String> noms = new HashMap<>();
+        private int prochainNumero;
+
+        // Propriétaires sans compte enregistré, par email : un seul objet pour toutes leurs commandes
+        private final Map<String, User> nonEnregistres = new HashMap<>();
+
+        // Produits par nom, construit à la première définition qui n'est plus à son ID d'origine
+        private Map<String, List<Produit>> produitsParNom;
+
+        private <T> void definir(Map<Integer, T> definitions, int numero, T definition){
+            definitions.put(numero, definition);
+            prochainNumero = Math.max(prochainNumero, numero + 1);
+        }
+
+        private void reprendre(){
+            produits.clear();
+            proprietaires.clear();
+            noms.clear();
+            prochainNumero = 0;
+        }
+
+        private String nom(int numero) throws IOException {
+            if(numero == SANS_NUMERO){
+                return null;
+            }
+            String nom = noms.get(numero);
+            if(nom == null){
+                throw new IOException("Nom de ville ou de secteur non défini dans le journal : " + numero);
+            }
+            return nom;
+        }
+
+        /**
+         * Retrouver le produit d'une définition
+         * L'ID n'est retenu que s'il désigne encore un produit de même nom et de même prix ;
+         * sinon le produit est cherché par nom et prix, et recréé s'il n'existe plus
+         */
+        private Produit produit(ProduitJournalise definition){
+            if(definition.produit != null){
+                return definition.produit;
+            }
+            Produit produit = Produit.findProduitById(definition.id);
+            if(produit == null || !definition.nom.equals(produit.getNom()) || produit.getPrixCentimes() != definition.prix){
+                if(produitsParNom == null){
+                    produitsParNom = new HashMap<>();
+                    for(Produit existant : Produit.getAllProducts()){
+                        produitsParNom.computeIfAbsent(existant.getNom(), n -> new ArrayList<>(1)).add(existant);
+                    }
+                }
+                produit = null;
+                List<Produit> memeNom = produitsParNom.computeIfAbsent(definition.nom, n -> new ArrayList<>(1));
+                for(Produit candidat : memeNom){
+                    if(candidat.getPrixCentimes() == definition.prix){
+                        produit = candidat;
+                        break;
+                    }
+                }
+                if(produit == null){
+                    // Créé en cours d'exécution puis perdu (pas d'instantané) : recréé tel que journalisé
+                    produit = Produit.enCentimes(definition.nom, definition.description, definition.prix);
+                    memeNom.add(produit);
+                    produitsRecrees++;
+                }
+            }
+            definition.produit = produit;
+            return produit;
+        }
+
+        /**
+         * Retrouver le compte d'un propriétaire, ou le restaurer sans l'enregistrer
+         * (sans mot de passe) si son compte n'existe plus
+         */
+        private User proprietaire(ProprietaireJournalise definition){
+            if(definition.user != null){
+                return definition.user;
+            }
+            Account compte = Account.findByEmail(definition.email);
+            User user;
+            if(compte instanceof User){
+                user = (User) compte;
+            } else {
+                user = nonEnregistres.get(definition.email);
+                if(user == null){
+                    user = User.restaurer(definition.nom, definition.prenom, definition.email, null,
+                            definition.ville != null ? new Localisation(definition.ville, definition.secteur, definition.description) : null,
+                            false);
+                    nonEnregistres.put(definition.email, user);
+                }
+            }
+            definition.user = user;
+            return user;
+        }
+
+        public long getCommandes(){
+            return commandes;
+        }
+
+        public long getLivraisons(){
+            return livraisons;
+        }
+
+        /**
+         * Nombre de produits journalisés introuvables dans le catalogue chargé, recréés pour que
+         * leurs commandes gardent toutes leurs lignes
+         */
+        public long getProduitsRecrees(){
+            return produitsRecrees;
+        }
+
+        /**
+         * Nombre de propriétaires de commandes dont le compte n'existe plus,
+         * restaurés sans être enregistrés
+         */
+        public long getProprietairesNonEnregistres(){
+            return nonEnregistres.size();
+        }
+
+        public long getEnregistrementsTronques(){
+            return enregistrementsTronques;
+        }
+    }
+}
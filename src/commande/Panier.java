@@ -1,10 +1,26 @@
 package commande;
 
+import account.DictionnaireZones;
+import account.Localisation;
 import account.User;
+import produit.Montant;
 import produit.Produit;
+import statistiques.Statistiques;
+import stockage.ListeInstantanee;
 
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Classe représentant un panier d'achat
@@ -13,21 +29,38 @@ import java.util.List;
 public class Panier {
 
     // Base de données statique pour stocker toutes les commandes
-    private static ArrayList<Panier> db = new ArrayList<>();
+    private static ListeInstantanee<Panier> db = new ListeInstantanee<>();
+
+    // Index des commandes validées : par identifiant, et par utilisateur dans l'ordre de validation
+    private static final Map<Integer, Panier> parId = new ConcurrentHashMap<>();
+    private static final Map<User, ListeInstantanee<Panier>> parUtilisateur = new ConcurrentHashMap<>();
+
+    // Commandes validées en attente de livraison, par zone (ville et secteur de l'adresse)
+    // Une livraison par zone ne parcourt que la file de sa zone
+    private static final Map<Long, FileZone> enAttenteParZone = new ConcurrentHashMap<>();
+
+    // Zone des commandes dont l'utilisateur n'a pas d'adresse
+    public static final long SANS_ADRESSE = DictionnaireZones.zone(DictionnaireZones.AUCUN, DictionnaireZones.AUCUN);
 
     // Attributs du panier
     private int id;                                    // Identifiant unique du panier
     private User user;                                // Utilisateur propriétaire du panier
-    private ArrayList<QteProduit> produits = new ArrayList<>();  // Liste des produits avec quantités
-    private int status;                               // Statut: 0=en cours, 1=validé, 2=livré
+    // Lignes du panier par ID de produit, dans l'ordre d'ajout : ajout, fusion et retrait en temps constant
+    private final Map<Integer, QteProduit> produits = new LinkedHashMap<>();
+    private volatile int status;                      // Statut: 0=en cours, 1=validé, 2=livré
+
+    // Totaux tenus à jour à chaque modification des lignes, figés à la validation
+    private volatile long total = Montant.ZERO;  // En centimes : somme exacte
+    private volatile int nombreArticles = 0;
+    private long zoneLivraison = SANS_ADRESSE;        // Zone de l'adresse au moment de la validation
+    private long livraisonJournalisee;                // Position de la livraison dans le journal (pour l'annuler)
 
     /**
      * Constructeur par défaut - crée un panier avec un utilisateur par défaut
      */
     public Panier(){
-        this.id = db.size() + 1;
+        this.id = AllocateurIds.allouer();  // Unique même si le panier n'est jamais validé
         this.user = new User();
-        this.produits = new ArrayList<>();
         this.status = 0;
     }
 
@@ -36,9 +69,17 @@ public class Panier {
      * @param user Utilisateur propriétaire du panier
      */
     public Panier(User user){
-        this.id = db.size() + 1;
+        this.id = AllocateurIds.allouer();  // Unique même si le panier n'est jamais validé
+        this.user = user;
+        this.status = 0;
+    }
+
+    /**
+     * Constructeur d'une commande restaurée : l'identifiant est repris du journal
+     */
+    private Panier(int id, User user){
+        this.id = id;
         this.user = user;
-        this.produits = new ArrayList<>();
         this.status = 0;
     }
 
@@ -57,22 +98,23 @@ public class Panier {
      * Méthode surchargée pour ajouter directement un QteProduit
      * @param produit Produit avec quantité à ajouter
      */
-    public void addProduct(QteProduit produit){
-        boolean found = false;
-
-        // Recherche si le produit existe déjà dans le panier
-        for(int i = 0; i < this.produits.size(); i++){
-            if(this.produits.get(i).getProduit().getId() == produit.getProduit().getId()){
-                // Si trouvé, augmenter la quantité
-                this.produits.get(i).setQuantite(this.produits.get(i).getQuantite() + produit.getQuantite());
-                found = true;
-                break;
-            }
+    public synchronized void addProduct(QteProduit produit){
+        if(this.status != 0){
+            System.out.println("Commande déjà validée : le panier ne peut plus être modifié !");
+            return;
+        }
+        if(produit.getPanier() != null){
+            throw new IllegalArgumentException("Cette ligne appartient déjà à un panier");
         }
-
         // Ajouter le produit s'il n'était pas déjà présent
-        if(!found) {
-            this.produits.add(produit);
+        QteProduit existant = this.produits.putIfAbsent(produit.getProduit().getId(), produit);
+        if(existant != null){
+            // Si trouvé, augmenter la quantité
+            modifierLigne(existant, existant.getQuantite() + produit.getQuantite(), existant.getPrixUnitaireCentimes());
+        } else {
+            produit.setPanier(this);
+            this.total = Montant.ajouter(this.total, produit.getTotalCentimes());
+            this.nombreArticles += produit.getQuantite();
         }
     }
 
@@ -81,43 +123,71 @@ public class Panier {
      * @param id ID du produit à supprimer
      * @return true si la suppression réussit, false si le produit n'existe pas
      */
-    public boolean removeProduct(int id){
-        for(int i = 0; i < this.produits.size(); i++){
-            if(this.produits.get(i).getProduit().getId() == id){
-                this.produits.remove(i);
-                return true;
-            }
+    public synchronized boolean removeProduct(int id){
+        if(this.status != 0){
+            System.out.println("Commande déjà validée : le panier ne peut plus être modifié !");
+            return false;
+        }
+        QteProduit ligne = this.produits.remove(id);
+        if(ligne == null){
+            return false; // Produit non trouvé
         }
-        return false; // Produit non trouvé
+        ligne.setPanier(null);
+        this.nombreArticles -= ligne.getQuantite();
+        this.total = Montant.soustraire(this.total, ligne.getTotalCentimes());
+        return true;
     }
 
     /**
-     * Calculer le prix total du panier
-     * @return Prix total en euros
+     * Modifier la quantité ou le prix unitaire d'une ligne du panier et ajuster les totaux
+     * Appelée par QteProduit.setQuantite et QteProduit.updatePrice
+     * @param ligne Ligne du panier
+     * @param quantite Nouvelle quantité
+     * @param prixUnitaire Nouveau prix unitaire en centimes
      */
-    public float getTotalPrice(){
-        float total = 0;
-        for(QteProduit item : this.produits){
-            total += item.getPrixUnitaire() * item.getQuantite();
+    synchronized void modifierLigne(QteProduit ligne, int quantite, long prixUnitaire){
+        if(this.status != 0){
+            System.out.println("Commande déjà validée : la ligne ne peut plus être modifiée !");
+            return;
         }
-        return total;
+        this.total = Montant.ajouter(Montant.soustraire(this.total, ligne.getTotalCentimes()),
+                Montant.multiplier(prixUnitaire, quantite));
+        this.nombreArticles += quantite - ligne.getQuantite();
+        ligne.appliquer(quantite, prixUnitaire);
+    }
+
+    /**
+     * Prix total du panier (tenu à jour, sans parcourir les lignes)
+     * @return Prix total en euros, pour l'affichage
+     */
+    public float getTotalPrice(){
+        return Montant.enEuros(this.total);
+    }
+
+    /**
+     * Prix total exact du panier (tenu à jour, sans parcourir les lignes)
+     * @return Prix total en centimes
+     */
+    public long getTotalCentimes(){
+        return this.total;
     }
 
     /**
-     * Compter le nombre total d'articles dans le panier
+     * Nombre total d'articles dans le panier (tenu à jour, sans parcourir les lignes)
      * @return Nombre total d'articles (somme des quantités)
      */
     public int getItemCount(){
-        int count = 0;
-        for(QteProduit item : this.produits){
-            count += item.getQuantite();
-        }
-        return count;
+        return this.nombreArticles;
     }
 
     // Getters
-    public List<QteProduit> getProduits(){
-        return this.produits;
+
+    /**
+     * Obtenir les lignes du panier, dans l'ordre d'ajout
+     * @return Vue non modifiable des lignes (sans copie)
+     */
+    public Collection<QteProduit> getProduits(){
+        return Collections.unmodifiableCollection(this.produits.values());
     }
 
     public User getUser(){
@@ -132,6 +202,14 @@ public class Panier {
         return this.status;
     }
 
+    /**
+     * Zone de livraison de la commande (voir DictionnaireZones.zone)
+     * @return Zone de l'adresse de l'utilisateur lors de la validation, ou SANS_ADRESSE
+     */
+    public long getZoneLivraison(){
+        return this.zoneLivraison;
+    }
+
     /**
      * Obtenir le statut sous forme de texte
      * @return Description textuelle du statut
@@ -148,44 +226,268 @@ public class Panier {
     /**
      * Valider le panier (passer la commande)
      * Change le statut à "validé" et ajoute à la base de données des commandes
+     * La validation est journalisée (et écrite sur disque si demandé) avant tout changement d'état :
+     * si le journal échoue, le panier reste en cours et peut être validé à nouveau
+     * @return true si la commande a été validée
      */
-    public void validerPanier(){
-        if(this.produits.isEmpty()){
-            System.out.println("Impossible de valider un panier vide !");
-            return;
+    public boolean validerPanier(){
+        Lock operation = JournalCommandes.operation();  // Un point de reprise attend la publication
+        operation.lock();
+        try {
+            return valider();
+        } finally {
+            operation.unlock();
+        }
+    }
+
+    private boolean valider(){
+        synchronized(this){
+            if(this.produits.isEmpty()){
+                System.out.println("Impossible de valider un panier vide !");
+                return false;
+            }
+            if(this.status != 0){
+                System.out.println("Ce panier a déjà été validé !");
+                return false;
+            }
+            Localisation adresse = this.user.getAddress();
+            long zone = adresse != null ? adresse.getZone() : SANS_ADRESSE;
+            long position;
+            try {
+                position = JournalCommandes.validation(this, zone);  // Journalisée avant d'être visible
+            } catch (UncheckedIOException e) {
+                System.out.println("Validation impossible : journal des commandes indisponible !");
+                return false;
+            }
+            try {
+                // Seul ce panier attend : la validation reste groupée avec celles des autres paniers
+                JournalCommandes.rendreDurable(position);
+            } catch (UncheckedIOException e) {
+                JournalCommandes.annuler(this.id, position);
+                System.out.println("Validation impossible : écriture du journal des commandes en échec !");
+                return false;
+            }
+            this.zoneLivraison = zone;
+            this.status = 1;
         }
-        this.status = 1;
-        db.add(this);
+        publier(false);
         System.out.println("Panier validé avec l'ID: " + this.id);
+        return true;
+    }
+
+    /**
+     * Rendre visible une commande validée : base, index, statistiques et file de sa zone
+     * @param restauree true pour une commande restaurée (hors chiffre d'affaires glissant)
+     */
+    private void publier(boolean restauree){
+        db.ajouter(this);
+        parId.put(this.id, this);
+        parUtilisateur.computeIfAbsent(this.user, u -> new ListeInstantanee<>()).ajouter(this);
+        if(restauree){
+            Statistiques.commandeRestauree(getTotalCentimes());
+        } else {
+            Statistiques.commandeValidee(getTotalCentimes());
+        }
+        if(this.status == 2){
+            Statistiques.commandeLivree();
+            return;  // Déjà livrée : aucune file d'attente
+        }
+        FileZone file = fileDeZone(this.zoneLivraison);
+        file.enAttente.incrementAndGet();
+        file.commandes.add(this);
+    }
+
+    /**
+     * Restaurer une commande validée ou livrée (journal ou instantané), sans la journaliser à nouveau
+     * @param id Identifiant d'origine de la commande
+     * @param user Propriétaire de la commande
+     * @param lignes Lignes de la commande, avec leur prix unitaire d'origine
+     * @param zone Zone de livraison retenue lors de la validation
+     * @param livree true si la commande a déjà été livrée
+     * @return La commande restaurée
+     * @throws IllegalArgumentException si une commande de même identifiant existe déjà
+     */
+    public static Panier restaurer(int id, User user, List<QteProduit> lignes, long zone, boolean livree){
+        if(parId.containsKey(id)){
+            throw new IllegalArgumentException("Commande déjà existante: " + id);
+        }
+        Panier panier = new Panier(id, user);
+        for(QteProduit ligne : lignes){
+            panier.addProduct(ligne);
+        }
+        panier.zoneLivraison = zone;
+        panier.status = livree ? 2 : 1;
+        panier.publier(true);
+        AllocateurIds.avancerApres(id);
+        return panier;
+    }
+
+    /**
+     * Restaurer la livraison d'une commande lue dans le journal, sans la journaliser à nouveau
+     * @return true si la commande était validée
+     */
+    boolean restaurerLivraison(){
+        return marquerLivre(false);
     }
 
     /**
      * Livrer le panier (marquer comme livré)
      * Ne peut être appelé que sur un panier validé
+     * @throws UncheckedIOException si le journal des commandes échoue (le panier reste validé)
      */
     public void livrerPanier(){
-        if(this.status != 1){
+        Lock operation = JournalCommandes.operation();
+        operation.lock();
+        try {
+            livrer();
+        } finally {
+            operation.unlock();
+        }
+    }
+
+    private void livrer(){
+        if(!marquerLivre(true)){
             System.out.println("Le panier doit être validé avant d'être livré !");
             return;
         }
-        this.status = 2;
+        try {
+            JournalCommandes.rendreDurable();
+        } catch (UncheckedIOException e) {
+            annulerLivraison(false);
+            throw e;
+        }
+        // Le panier reste dans la file de sa zone : il y sera ignoré lors de la tournée
+        System.out.println("Panier livré avec succès !");
+    }
+
+    /**
+     * Passer le panier de l'état validé à l'état livré
+     * La livraison est journalisée avant le changement d'état
+     * @param journaliser true pour ajouter la livraison au journal des commandes
+     * @return true si le panier était validé, false s'il était en cours ou déjà livré
+     * @throws UncheckedIOException si la livraison ne peut pas être journalisée (état inchangé)
+     */
+    private boolean marquerLivre(boolean journaliser){
+        synchronized(this){
+            if(this.status != 1){
+                return false;
+            }
+            if(journaliser){
+                this.livraisonJournalisee = JournalCommandes.livraison(this.id);
+            }
+            this.status = 2;  // La base contient la référence du panier : rien d'autre à mettre à jour
+        }
+        // La commande peut être livrée avant que publier ne l'ait placée dans la file de sa zone
+        fileDeZone(this.zoneLivraison).enAttente.decrementAndGet();
+        Statistiques.commandeLivree();
+        return true;
+    }
+
+    /**
+     * Revenir à l'état validé après l'échec de l'écriture sur disque d'une livraison
+     * La livraison est annulée dans le journal pour que la relecture l'ignore
+     * @param remettreEnFile true si le panier a été retiré de la file de sa zone
+     */
+    private void annulerLivraison(boolean remettreEnFile){
+        synchronized(this){
+            if(this.status != 2){
+                return;
+            }
+            this.status = 1;
+            JournalCommandes.annuler(this.id, this.livraisonJournalisee);
+        }
+        FileZone file = fileDeZone(this.zoneLivraison);
+        file.enAttente.incrementAndGet();
+        if(remettreEnFile){
+            file.commandes.add(this);
+        }
+        Statistiques.livraisonAnnulee();
+    }
 
-        // CORRECTION: Logique de mise à jour améliorée
-        for (int i = 0; i < db.size(); i++){
-            if(db.get(i).getId() == this.id){
-                db.set(i, this);
+    /**
+     * File d'attente d'une zone, créée au premier besoin
+     * @param zone Zone de livraison
+     */
+    private static FileZone fileDeZone(long zone){
+        return enAttenteParZone.computeIfAbsent(zone, z -> new FileZone());
+    }
+
+    /**
+     * Livrer en une tournée toutes les commandes validées d'une zone
+     * Seule la file de la zone est parcourue ; les commandes déjà livrées
+     * individuellement y sont simplement ignorées
+     * Si le journal échoue en cours de tournée, la commande en cours reste dans la file ;
+     * si l'écriture sur disque échoue, toute la tournée est annulée
+     * @param ville Ville de livraison (null pour les commandes sans adresse)
+     * @param secteur Secteur de livraison (null pour les commandes sans adresse)
+     * @return Nombre de commandes livrées
+     * @throws UncheckedIOException si le journal des commandes échoue
+     */
+    public static int livrerZone(String ville, String secteur){
+        Lock operation = JournalCommandes.operation();
+        operation.lock();
+        try {
+            return livrerFile(ville, secteur);
+        } finally {
+            operation.unlock();
+        }
+    }
+
+    private static int livrerFile(String ville, String secteur){
+        FileZone file = enAttenteParZone.get(
+                DictionnaireZones.zone(DictionnaireZones.chercher(ville), DictionnaireZones.chercher(secteur)));
+        if(file == null){
+            return 0;
+        }
+        List<Panier> livrees = new ArrayList<>();
+        UncheckedIOException echec = null;
+        Panier panier;
+        while((panier = file.commandes.poll()) != null){
+            try {
+                if(panier.marquerLivre(true)){
+                    livrees.add(panier);
+                }
+            } catch (UncheckedIOException e) {
+                file.commandes.add(panier);  // Toujours validée : elle reste à livrer
+                echec = e;
                 break;
             }
         }
-        System.out.println("Panier livré avec succès !");
+        try {
+            JournalCommandes.rendreDurable();  // Un seul passage sur disque pour toute la tournée
+        } catch (UncheckedIOException e) {
+            for(Panier livree : livrees){
+                livree.annulerLivraison(true);
+            }
+            throw e;
+        }
+        if(echec != null){
+            throw echec;
+        }
+        return livrees.size();
+    }
+
+    /**
+     * Nombre de commandes en attente de livraison par zone
+     * @return Zones ayant au moins une commande en attente, avec leur nombre de commandes
+     */
+    public static Map<Long, Integer> getCommandesEnAttenteParZone(){
+        Map<Long, Integer> resultat = new TreeMap<>();
+        for(Map.Entry<Long, FileZone> entree : enAttenteParZone.entrySet()){
+            int enAttente = entree.getValue().enAttente.get();
+            if(enAttente > 0){
+                resultat.put(entree.getKey(), enAttente);
+            }
+        }
+        return resultat;
     }
 
     /**
      *Obtenir toutes les commandes du système
-     * @return Copie de la liste de toutes les commandes
+     * @return Instantané non modifiable de toutes les commandes, obtenu sans copie
      */
     public static List<Panier> getAllOrders(){
-        return new ArrayList<>(db);
+        return db.instantane();
     }
 
     /**
@@ -194,12 +496,18 @@ public class Panier {
      * @return La commande trouvée ou null
      */
     public static Panier findOrderById(int id){
-        for(Panier panier : db){
-            if(panier.getId() == id){
-                return panier;
-            }
-        }
-        return null;
+        return parId.get(id);
+    }
+
+    /**
+     * Obtenir les commandes d'un utilisateur
+     * Seules les commandes de cet utilisateur sont lues
+     * @param user Utilisateur
+     * @return Instantané non modifiable de ses commandes validées, dans l'ordre de validation
+     */
+    public static List<Panier> getOrdersByUser(User user){
+        ListeInstantanee<Panier> commandes = user == null ? null : parUtilisateur.get(user);
+        return commandes == null ? Collections.emptyList() : commandes.instantane();
     }
 
     /**
@@ -208,7 +516,17 @@ public class Panier {
      */
     @Override
     public String toString(){
-        return String.format("Panier{id=%d, user=%s, items=%d, total=%.2f€, status=%s}",
-                id, user.getEmail(), getItemCount(), getTotalPrice(), getStatusString());
+        return String.format("Panier{id=%d, user=%s, items=%d, total=%s€, status=%s}",
+                id, user.getEmail(), getItemCount(), Montant.formater(getTotalCentimes()), getStatusString());
+    }
+
+    /**
+     * File des commandes d'une zone
+     * La file peut contenir des commandes déjà livrées individuellement ;
+     * le compteur, lui, ne compte que les commandes encore à livrer
+     */
+    private static class FileZone {
+        final Queue<Panier> commandes = new ConcurrentLinkedQueue<>();
+        final AtomicInteger enAttente = new AtomicInteger();
     }
 }
\ No newline at end of file
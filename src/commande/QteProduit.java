@@ -1,5 +1,6 @@
 package commande;
 
+import produit.Montant;
 import produit.Produit;
 
 import java.util.Scanner;
@@ -12,7 +13,8 @@ public class QteProduit {
 
     private Produit produit;        // Référence vers le produit
     private int quantite;           // Quantité commandée
-    private float prixUnitaire;     // Prix unitaire fixé au moment de l'ajout
+    private long prixUnitaire;      // Prix unitaire en centimes, fixé au moment de l'ajout
+    private Panier panier;          // Panier contenant la ligne (null tant qu'elle n'est dans aucun panier)
 
     /**
      * Constructeur avec produit et quantité spécifiés
@@ -21,7 +23,19 @@ public class QteProduit {
      */
     public QteProduit(Produit produit, int qte){
         this.produit = produit;
-        this.prixUnitaire = produit.getPrix();  // Fixation du prix au moment de l'ajout
+        this.prixUnitaire = produit.getPrixCentimes();  // Fixation du prix au moment de l'ajout
+        this.quantite = qte;
+    }
+
+    /**
+     * Constructeur d'une ligne restaurée (journal ou instantané), avec le prix unitaire fixé à l'origine
+     * @param produit Le produit commandé
+     * @param qte Quantité commandée
+     * @param prixUnitaire Prix unitaire en centimes
+     */
+    public QteProduit(Produit produit, int qte, long prixUnitaire){
+        this.produit = produit;
+        this.prixUnitaire = prixUnitaire;
         this.quantite = qte;
     }
 
@@ -46,7 +60,7 @@ public class QteProduit {
             }
 
             this.produit = produit1;
-            this.prixUnitaire = produit1.getPrix();
+            this.prixUnitaire = produit1.getPrixCentimes();
 
             System.out.print("Entrez la quantité : ");
             int qte = sc.nextInt();
@@ -77,7 +91,7 @@ public class QteProduit {
         Produit produit = Produit.findProduitById(productId);
         if(produit != null && quantity > 0){
             this.produit = produit;
-            this.prixUnitaire = produit.getPrix();
+            this.prixUnitaire = produit.getPrixCentimes();
             this.quantite = quantity;
         } else {
             throw new IllegalArgumentException("Produit inexistant ou quantité invalide");
@@ -94,36 +108,75 @@ public class QteProduit {
     }
 
     public float getPrixUnitaire(){
+        return Montant.enEuros(this.prixUnitaire);
+    }
+
+    public long getPrixUnitaireCentimes(){
         return this.prixUnitaire;
     }
 
+    Panier getPanier(){
+        return this.panier;
+    }
+
+    void setPanier(Panier panier){
+        this.panier = panier;
+    }
+
     /**
      * Setter avec validation pour la quantité
+     * Si la ligne est dans un panier, les totaux du panier sont ajustés
      * @param quantite Nouvelle quantité (doit être positive)
      */
     public void setQuantite(int quantite){
-        if(quantite > 0){
-            this.quantite = quantite;
-        } else {
+        if(quantite <= 0){
             System.out.println("La quantité doit être positive !");
+        } else if(this.panier != null){
+            this.panier.modifierLigne(this, quantite, this.prixUnitaire);
+        } else {
+            this.quantite = quantite;
         }
     }
 
+    /**
+     * Appliquer une nouvelle quantité et un nouveau prix (totaux déjà ajustés par le panier)
+     * @param quantite Nouvelle quantité
+     * @param prixUnitaire Nouveau prix unitaire en centimes
+     */
+    void appliquer(int quantite, long prixUnitaire){
+        this.quantite = quantite;
+        this.prixUnitaire = prixUnitaire;
+    }
+
     /**
      * Calculer le prix total pour cette ligne de produit
-     * @return Prix total (prix unitaire × quantité)
+     * @return Prix total en euros (prix unitaire × quantité), pour l'affichage
      */
     public float getTotalPrice(){
-        return this.prixUnitaire * this.quantite;
+        return Montant.enEuros(getTotalCentimes());
+    }
+
+    /**
+     * Calculer le prix total exact pour cette ligne de produit
+     * @return Prix total en centimes (prix unitaire × quantité)
+     */
+    public long getTotalCentimes(){
+        return Montant.multiplier(this.prixUnitaire, this.quantite);
     }
 
     /**
      * Mettre à jour le prix unitaire
      * Utile si le prix du produit change après l'ajout au panier
+     * Si la ligne est dans un panier, les totaux du panier sont ajustés
      */
     public void updatePrice(){
-        if(this.produit != null){
-            this.prixUnitaire = this.produit.getPrix();
+        if(this.produit == null){
+            return;
+        }
+        if(this.panier != null){
+            this.panier.modifierLigne(this, this.quantite, this.produit.getPrixCentimes());
+        } else {
+            this.prixUnitaire = this.produit.getPrixCentimes();
         }
     }
 
@@ -143,8 +196,8 @@ public class QteProduit {
     @Override
     public String toString(){
         if(produit != null){
-            return String.format("%s x%d @ %.2f€ = %.2f€",
-                    produit.getNom(), quantite, prixUnitaire, getTotalPrice());
+            return String.format("%s x%d @ %s€ = %s€",
+                    produit.getNom(), quantite, Montant.formater(prixUnitaire), Montant.formater(getTotalCentimes()));
         }
         return "Produit invalide";
     }
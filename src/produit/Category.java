@@ -1,24 +1,55 @@
 package produit;
 
-import account.Account;
+import stockage.ListeInstantanee;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Scanner;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
 
 /**
  * Classe représentant une catégorie de produits
  * Organise les produits par type et gère leur classification
+ * Les modifications d'une catégorie sont synchronisées sur la catégorie elle-même,
+ * ce qui permet d'alimenter le catalogue depuis plusieurs threads
  */
 public class Category {
 
     // Base de données statique pour stocker toutes les catégories
-    private static List<Category> db = new ArrayList<>();
+    private static ListeInstantanee<Category> db = new ListeInstantanee<>();
+
+    // Index des noms : nom normalisé (sans accents ni majuscules) -> catégorie
+    // "Électronique" et "electronique" désignent donc la même catégorie
+    private static Map<String, Category> parNomNormalise = new ConcurrentHashMap<>();
+
+    // Index inverse : ID produit -> catégories contenant ce produit
+    // Maintenu par toutes les méthodes qui modifient la liste des produits d'une catégorie
+    private static Map<Integer, List<Category>> categoriesParProduit = new ConcurrentHashMap<>();
 
     // Attributs de la catégorie
-    private String nom;                              // Nom de la catégorie (unique)
+    private volatile String nom;                     // Nom de la catégorie (unique)
     private String description;                      // Description de la catégorie
-    private ArrayList<Produit> produits;            // Liste des produits dans cette catégorie
+    private boolean enregistree = false;             // true si la catégorie est dans la base
+    private ListeInstantanee<Produit> produits;     // Liste des produits dans cette catégorie
+
+    // Index triés maintenus à chaque ajout, retrait ou modification d'un produit
+    // (les produits partageant une même clé sont rangés par ID croissant)
+    private TreeMap<Integer, List<Produit>> parId = new TreeMap<>();  // Produits triés par ID
+    private TreeMap<String, List<Produit>> parNom = new TreeMap<>();  // Produits triés par nom
+    private TreeMap<Long, List<Produit>> parPrix = new TreeMap<>();   // Produits triés par prix (centimes)
+    private long sommePrix = 0;                                       // Somme exacte des prix en centimes
+
+    // Clés sous lesquelles chaque produit est rangé dans les index triés (ID produit -> rangement)
+    // Les retraits et reclassements partent de ces clés, jamais des valeurs courantes du produit
+    // qui ont pu changer entre-temps
+    private HashMap<Integer, Rangement> rangements = new HashMap<>();
 
     /**
      * Constructeur par défaut - demande les informations à l'utilisateur
@@ -34,7 +65,7 @@ public class Category {
         // Initialisation des attributs
         this.nom = nom;
         this.description = description;
-        this.produits = new ArrayList<>();
+        this.produits = new ListeInstantanee<>();
 
         this.save();  // Sauvegarde automatique
     }
@@ -47,11 +78,54 @@ public class Category {
     public Category(String nom, String description){
         this.nom = nom;
         this.description = description;
-        this.produits = new ArrayList<>();
+        this.produits = new ListeInstantanee<>();
 
         this.save();  // Sauvegarde automatique
     }
 
+    /**
+     * Constructeur sans sauvegarde ni message, utilisé par l'import en masse
+     * @param nom Nom de la catégorie
+     */
+    private Category(String nom){
+        this.nom = nom;
+        this.description = "";
+        this.produits = new ListeInstantanee<>();
+    }
+
+    /**
+     * Trouver une catégorie par son nom ou la créer si elle n'existe pas, sans message
+     * @param nom Nom de la catégorie
+     * @return La catégorie existante ou nouvellement enregistrée
+     */
+    static Category trouverOuCreer(String nom){
+        Category category = findByNom(nom);
+        if(category != null){
+            return category;
+        }
+        Category nouvelle = new Category(nom);
+        // Si un autre thread a créé la catégorie entre-temps, c'est la sienne qui est gardée
+        return nouvelle.enregistrer() ? nouvelle : findByNom(nom);
+    }
+
+    /**
+     * Restaurer une catégorie sauvegardée avec ses produits, sans message
+     * @param nom Nom de la catégorie
+     * @param description Description de la catégorie
+     * @param produits Produits de la catégorie, dans leur ordre d'origine
+     * @return La catégorie restaurée
+     * @throws IllegalArgumentException si une catégorie de même nom existe déjà
+     */
+    public static Category restaurer(String nom, String description, List<Produit> produits){
+        Category category = new Category(nom);
+        category.description = description;
+        if(!category.enregistrer()){
+            throw new IllegalArgumentException("Catégorie déjà existante: " + nom);
+        }
+        category.ajouterLot(produits);
+        return category;
+    }
+
     // Getters - méthodes d'accès aux attributs
     public String getDescription() {
         return description;
@@ -61,31 +135,46 @@ public class Category {
         return nom;
     }
 
-    public ArrayList<Produit> getProduits() {
-        return produits;
+    /**
+     * Obtenir les produits de la catégorie
+     * La liste est en lecture seule : les modifications passent par addProduit/removeProduit
+     * afin de garder l'index inverse à jour
+     * @return Instantané non modifiable des produits de la catégorie
+     */
+    public List<Produit> getProduits() {
+        return produits.instantane();
     }
 
     // Setters - méthodes de modification des attributs avec validation
 
     /**
      * Modifier la description de la catégorie
-     * Met automatiquement à jour la base de données
      * @param description Nouvelle description
      */
     public void setDescription(String description) {
         this.description = description;
-        updateInDatabase(); // Mise à jour en base
     }
 
     /**
      * Modifier le nom de la catégorie avec vérification d'unicité
      * @param nom Nouveau nom (doit être unique)
      */
-    public void setNom(String nom) {
-        // Permettre le même nom pour les mises à jour, sinon vérifier l'unicité
-        if(!isNomExist(nom) || nom.equals(this.nom)){
+    public synchronized void setNom(String nom) {
+        String nouvelleCle = cleCategorie(nom);
+        // Permettre le même nom (aux accents et majuscules près) pour les mises à jour
+        if(nouvelleCle.equals(cleCategorie(this.nom))){
+            this.nom = nom;
+        } else if(!this.enregistree){
+            if(!isNomExist(nom)){
+                this.nom = nom;
+            } else {
+                System.out.println("Ce nom de catégorie existe déjà !");
+            }
+        } else if(parNomNormalise.putIfAbsent(nouvelleCle, this) == null){
+            // Nouveau nom réservé atomiquement, puis libération de l'ancien
+            String ancienneCle = cleCategorie(this.nom);
             this.nom = nom;
-            updateInDatabase();
+            parNomNormalise.remove(ancienneCle, this);
         } else {
             System.out.println("Ce nom de catégorie existe déjà !");
         }
@@ -95,8 +184,23 @@ public class Category {
      * Définir la liste des produits de la catégorie
      * @param produits Nouvelle liste de produits
      */
-    public void setProduits(ArrayList<Produit> produits) {
-        this.produits = produits;
+    public synchronized void setProduits(ArrayList<Produit> produits) {
+        for(Produit produit : this.produits.instantane()){
+            desindexer(produit);
+        }
+        this.produits = new ListeInstantanee<>();
+        this.parId = new TreeMap<>();
+        this.parNom = new TreeMap<>();
+        this.parPrix = new TreeMap<>();
+        this.rangements = new HashMap<>();
+        this.sommePrix = 0;
+        for(Produit produit : produits){
+            if(produit != null && !this.contient(produit)){
+                this.produits.ajouter(produit);
+                indexer(produit);
+                ajouterAuxTris(produit);
+            }
+        }
     }
 
     /**
@@ -104,20 +208,43 @@ public class Category {
      * Vérifie que le produit n'existe pas déjà pour éviter les doublons
      * @param produit Produit à ajouter
      */
-    public void addProduit(Produit produit){
-        if(produit != null && !this.produits.contains(produit)){
-            this.produits.add(produit);
+    public synchronized void addProduit(Produit produit){
+        if(produit != null && !this.contient(produit)){
+            this.produits.ajouter(produit);
+            indexer(produit);
+            ajouterAuxTris(produit);
             System.out.println("Produit ajouté à la catégorie " + this.nom);
         }
     }
 
+    /**
+     * Ajouter un lot de produits à la catégorie, sans message
+     * Utilisé par l'import en masse : un seul verrou pour tout le lot
+     * @param lot Produits à ajouter
+     */
+    synchronized void ajouterLot(List<Produit> lot){
+        for(Produit produit : lot){
+            if(produit != null && !this.contient(produit)){
+                this.produits.ajouter(produit);
+                indexer(produit);
+                ajouterAuxTris(produit);
+            }
+        }
+    }
+
     /**
      * Supprimer un produit de la catégorie
      * @param produit Produit à supprimer
      * @return true si la suppression réussit
      */
-    public boolean removeProduit(Produit produit){
-        return this.produits.remove(produit);
+    public synchronized boolean removeProduit(Produit produit){
+        if(produit == null || !this.contient(produit)){
+            return false;
+        }
+        this.produits.retirer(produit);
+        desindexer(produit);
+        retirerDesTris(produit);
+        return true;
     }
 
     /**
@@ -126,7 +253,44 @@ public class Category {
      * @return true si la suppression réussit
      */
     public boolean removeProduitById(int id){
-        return this.produits.removeIf(p -> p.getId() == id);
+        return removeProduit(Produit.findProduitById(id));
+    }
+
+    /**
+     * Vérifier si le produit appartient à cette catégorie
+     * Passe par l'index inverse : coût proportionnel au nombre de catégories du produit
+     * @param produit Produit à vérifier
+     * @return true si le produit est dans la catégorie
+     */
+    boolean contient(Produit produit){
+        List<Category> categories = categoriesParProduit.get(produit.getId());
+        return categories != null && categories.contains(this);
+    }
+
+    /**
+     * Enregistrer cette catégorie dans l'index inverse du produit
+     * @param produit Produit ajouté à la catégorie
+     */
+    private void indexer(Produit produit){
+        categoriesParProduit.compute(produit.getId(), (id, categories) -> {
+            if(categories == null){
+                categories = new CopyOnWriteArrayList<>();
+            }
+            categories.add(this);
+            return categories;
+        });
+    }
+
+    /**
+     * Retirer cette catégorie de l'index inverse du produit
+     * @param produit Produit retiré de la catégorie
+     */
+    private void desindexer(Produit produit){
+        // La liste vide est retirée de l'index dans la même opération atomique
+        categoriesParProduit.computeIfPresent(produit.getId(), (id, categories) -> {
+            categories.remove(this);
+            return categories.isEmpty() ? null : categories;
+        });
     }
 
     /**
@@ -135,10 +299,17 @@ public class Category {
      * @return true si le nom existe déjà
      */
     private boolean isNomExist(String nom){
-        for(int i = 0; i < db.size(); i++){
-            if(db.get(i).getNom().equals(nom)) return true;
-        }
-        return false;
+        return parNomNormalise.containsKey(cleCategorie(nom));
+    }
+
+    /**
+     * Clé d'un nom de catégorie dans l'index : sans accents, majuscules ni espaces superflus
+     * Deux catégories dont les noms ont la même clé ne peuvent pas coexister
+     * @param nom Nom de la catégorie
+     * @return Nom normalisé
+     */
+    public static String cleCategorie(String nom){
+        return nom == null ? "" : RechercheProduit.normaliser(nom.trim());
     }
 
     /**
@@ -146,26 +317,25 @@ public class Category {
      * Vérifie l'unicité du nom avant la sauvegarde
      */
     public void save(){
-        if(this.isNomExist(this.nom)){
-            System.out.println("Categorie déjà existant");
-        }
-        else {
-            db.add(this);
+        if(this.enregistrer()){
             System.out.println("Categorie enregistré avec succès");
+        } else {
+            System.out.println("Categorie déjà existant");
         }
     }
 
     /**
-     * Mettre à jour une catégorie existante dans la base de données
-     * Méthode privée appelée lors des modifications
+     * Enregistrer la catégorie dans la base de données, sans message
+     * Le nom est réservé atomiquement : deux catégories ne peuvent avoir le même nom
+     * @return true si la catégorie a été enregistrée, false si le nom existe déjà
      */
-    private void updateInDatabase(){
-        for(int i = 0; i < db.size(); i++){
-            if(db.get(i) == this){
-                db.set(i, this);
-                break;
-            }
+    private synchronized boolean enregistrer(){
+        if(this.enregistree || parNomNormalise.putIfAbsent(cleCategorie(this.nom), this) != null){
+            return false;
         }
+        this.enregistree = true;
+        db.ajouter(this);
+        return true;
     }
 
     /**
@@ -173,32 +343,34 @@ public class Category {
      * Ne peut être supprimée que si elle ne contient aucun produit
      * @return true si la suppression réussit
      */
-    public boolean delete(){
-        if(!this.produits.isEmpty()){
+    public synchronized boolean delete(){
+        if(this.produits.taille() != 0){
             System.out.println("Impossible de supprimer une catégorie contenant des produits !");
             return false;
         }
-        return db.remove(this);
+        if(!db.retirer(this)){
+            return false;
+        }
+        this.enregistree = false;
+        parNomNormalise.remove(cleCategorie(this.nom), this);
+        return true;
     }
 
     /**
      * Obtenir toutes les catégories du système
-     * @return Copie de la liste des catégories (évite les modifications externes)
+     * @return Instantané non modifiable des catégories, obtenu sans copie
      */
     public static List<Category> findTouteCategory(){
-        return new ArrayList<>(db);
+        return db.instantane();
     }
 
     /**
-     * Rechercher une catégorie par son nom
+     * Rechercher une catégorie par son nom (sans tenir compte des accents ni des majuscules)
      * @param nom Nom de la catégorie recherchée
      * @return La catégorie trouvée ou null si non trouvée
      */
     public static Category findByNom(String nom){
-        for(int i = 0; i < db.size(); i++){
-            if(db.get(i).getNom().equals(nom)) return db.get(i);
-        }
-        return null;
+        return parNomNormalise.get(cleCategorie(nom));
     }
 
     /**
@@ -207,14 +379,258 @@ public class Category {
      * @return La catégorie contenant le produit ou null
      */
     public static Category findCategoryByProductId(int productId){
-        for(Category category : db){
-            for(Produit produit : category.getProduits()){
-                if(produit.getId() == productId){
-                    return category;
+        List<Category> categories = categoriesParProduit.get(productId);
+        if(categories == null){
+            return null;
+        }
+        return categories.get(0);
+    }
+
+    /**
+     * Trouver toutes les catégories contenant un produit spécifique
+     * @param productId ID du produit recherché
+     * @return Copie de la liste des catégories du produit (vide si aucune)
+     */
+    public static List<Category> findCategoriesByProductId(int productId){
+        List<Category> categories = categoriesParProduit.get(productId);
+        if(categories == null){
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(categories);
+    }
+
+    /**
+     * Retirer un produit de toutes les catégories qui le contiennent
+     * Ne visite que les catégories du produit grâce à l'index inverse. Chaque catégorie est retirée
+     * de l'index sous son propre verrou, comme dans removeProduit : un ajout concurrent passe donc
+     * entièrement avant (et le produit est retiré) ou entièrement après (et le produit reste,
+     * indexé de façon cohérente)
+     * @param produit Produit à retirer
+     */
+    static void retirerDeToutesCategories(Produit produit){
+        List<Category> categories = categoriesParProduit.get(produit.getId());
+        if(categories == null){
+            return;
+        }
+        // CopyOnWriteArrayList : le parcours porte sur un instantané que desindexer ne perturbe pas
+        for(Category category : categories){
+            category.removeProduit(produit);
+        }
+    }
+
+    /**
+     * Répercuter un changement de nom ou de prix sur les catégories contenant le produit
+     * Appelé par Produit.setNom et Produit.setPrixCentimes une fois la nouvelle valeur enregistrée,
+     * sous le verrou du produit : les modifications d'un même produit sont donc reclassées une à une
+     * @param produit Produit modifié
+     */
+    static void reclasser(Produit produit){
+        List<Category> categories = categoriesParProduit.get(produit.getId());
+        if(categories == null){
+            return;
+        }
+        for(Category category : categories){
+            synchronized(category){
+                category.reclasserDansTris(produit);
+            }
+        }
+    }
+
+    /**
+     * Déplacer un produit de ses clés de rangement vers ses valeurs courantes
+     * Sans effet si le produit a été retiré entre-temps, ou déjà rangé sous ses valeurs courantes
+     * (cas d'un ajout concurrent qui a lu les nouvelles valeurs)
+     * @param produit Produit modifié
+     */
+    private void reclasserDansTris(Produit produit){
+        Rangement ancien = rangements.get(produit.getId());
+        if(ancien == null){
+            return;
+        }
+        Rangement actuel = new Rangement(cleNom(produit.getNom()), produit.getPrixCentimes());
+        if(!ancien.cleNom.equals(actuel.cleNom)){
+            enlever(parNom, ancien.cleNom, produit);
+            ranger(parNom, actuel.cleNom, produit);
+        }
+        if(ancien.prix != actuel.prix){
+            enlever(parPrix, ancien.prix, produit);
+            ranger(parPrix, actuel.prix, produit);
+            sommePrix += actuel.prix - ancien.prix;
+        }
+        rangements.put(produit.getId(), actuel);
+    }
+
+    /**
+     * Ajouter un produit aux index triés et aux agrégats de prix, sous ses valeurs courantes
+     * @param produit Produit ajouté
+     */
+    private void ajouterAuxTris(Produit produit){
+        Rangement rangement = new Rangement(cleNom(produit.getNom()), produit.getPrixCentimes());
+        rangements.put(produit.getId(), rangement);
+        ranger(parId, produit.getId(), produit);
+        ranger(parNom, rangement.cleNom, produit);
+        ranger(parPrix, rangement.prix, produit);
+        sommePrix += rangement.prix;
+    }
+
+    /**
+     * Retirer un produit des index triés et des agrégats de prix, par ses clés de rangement
+     * @param produit Produit retiré
+     */
+    private void retirerDesTris(Produit produit){
+        Rangement rangement = rangements.remove(produit.getId());
+        if(rangement == null){
+            return;
+        }
+        enlever(parId, produit.getId(), produit);
+        enlever(parNom, rangement.cleNom, produit);
+        enlever(parPrix, rangement.prix, produit);
+        sommePrix -= rangement.prix;
+    }
+
+    /**
+     * Clés sous lesquelles un produit a été rangé : nom normalisé et prix en centimes
+     */
+    private static final class Rangement {
+        final String cleNom;
+        final long prix;
+
+        Rangement(String cleNom, long prix){
+            this.cleNom = cleNom;
+            this.prix = prix;
+        }
+    }
+
+    /**
+     * Clé de tri d'un nom : sans accents ni majuscules
+     * @param nom Nom du produit
+     * @return Clé utilisée dans l'index par nom
+     */
+    private static String cleNom(String nom){
+        return nom == null ? "" : RechercheProduit.normaliser(nom);
+    }
+
+    /**
+     * Ranger un produit sous une clé, en gardant les produits de même clé triés par ID
+     * @param index Index trié
+     * @param cle Clé du produit
+     * @param produit Produit à ranger
+     */
+    private static <K> void ranger(TreeMap<K, List<Produit>> index, K cle, Produit produit){
+        List<Produit> memeCle = index.get(cle);
+        if(memeCle == null){
+            // Cas le plus courant (clé unique) : liste à un élément, plus légère qu'une ArrayList
+            index.put(cle, Collections.singletonList(produit));
+            return;
+        }
+        if(!(memeCle instanceof ArrayList)){
+            memeCle = new ArrayList<>(memeCle);
+            index.put(cle, memeCle);
+        }
+        memeCle.add(premierApres(memeCle, produit.getId()), produit);
+    }
+
+    /**
+     * Retirer un produit rangé sous une clé
+     * @param index Index trié
+     * @param cle Clé sous laquelle le produit a été rangé
+     * @param produit Produit à retirer
+     * @return true si le produit a été trouvé et retiré
+     */
+    private static <K> boolean enlever(TreeMap<K, List<Produit>> index, K cle, Produit produit){
+        List<Produit> memeCle = index.get(cle);
+        if(memeCle == null || !memeCle.contains(produit)){
+            return false;
+        }
+        if(memeCle.size() == 1){
+            index.remove(cle);
+        } else {
+            memeCle.remove(produit);
+        }
+        return true;
+    }
+
+    /**
+     * Position du premier produit d'ID strictement supérieur (recherche dichotomique)
+     * @param produits Produits triés par ID
+     * @param id ID de référence
+     * @return Position d'insertion après l'ID donné
+     */
+    private static int premierApres(List<Produit> produits, int id){
+        int bas = 0;
+        int haut = produits.size();
+        while(bas < haut){
+            int milieu = (bas + haut) >>> 1;
+            if(produits.get(milieu).getId() <= id){
+                bas = milieu + 1;
+            } else {
+                haut = milieu;
+            }
+        }
+        return bas;
+    }
+
+    /**
+     * Obtenir une page de produits de la catégorie
+     * Les produits sont lus directement dans l'index trié, à partir du curseur,
+     * sans copier ni trier la liste complète
+     * @param tri Ordre de tri
+     * @param curseur Curseur renvoyé par la page précédente (null pour la première page)
+     * @param taille Nombre maximum de produits dans la page
+     * @return Page de produits avec le curseur de la page suivante
+     * @throws IllegalArgumentException si la taille n'est pas positive ou si le curseur est invalide
+     */
+    public synchronized Page<Produit> getPage(TriProduit tri, String curseur, int taille){
+        if(taille <= 0){
+            throw new IllegalArgumentException("La taille de page doit être positive");
+        }
+        switch(tri){
+            case NOM:
+                return paginer(parNom, tri, curseur, taille, cle -> cle);
+            case PRIX:
+                return paginer(parPrix, tri, curseur, taille, Long::valueOf);
+            default:
+                return paginer(parId, tri, curseur, taille, Integer::valueOf);
+        }
+    }
+
+    /**
+     * Parcourir un index trié à partir d'un curseur
+     * @param index Index trié à parcourir
+     * @param tri Ordre de tri (inscrit dans le curseur)
+     * @param curseur Curseur de départ ou null
+     * @param taille Nombre maximum de produits
+     * @param lireCle Conversion de la clé stockée dans le curseur
+     * @return Page de produits
+     */
+    private static <K> Page<Produit> paginer(TreeMap<K, List<Produit>> index, TriProduit tri,
+                                             String curseur, int taille, Function<String, K> lireCle){
+        NavigableMap<K, List<Produit>> suite = index;
+        K cleDepart = null;
+        int idDepart = 0;
+        if(curseur != null){
+            String[] position = Page.decoderCurseur(curseur, tri);
+            idDepart = Integer.parseInt(position[0]);
+            cleDepart = lireCle.apply(position[1]);
+            suite = index.tailMap(cleDepart, true);
+        }
+
+        List<Produit> elements = new ArrayList<>();
+        K derniereCle = null;
+        for(Map.Entry<K, List<Produit>> entree : suite.entrySet()){
+            List<Produit> memeCle = entree.getValue();
+            int debut = entree.getKey().equals(cleDepart) ? premierApres(memeCle, idDepart) : 0;
+            for(int i = debut; i < memeCle.size(); i++){
+                if(elements.size() == taille){
+                    // Il reste au moins un produit : la page suivante reprendra après le dernier renvoyé
+                    Produit dernier = elements.get(taille - 1);
+                    return new Page<>(elements, Page.encoderCurseur(tri, dernier.getId(), String.valueOf(derniereCle)));
                 }
+                elements.add(memeCle.get(i));
+                derniereCle = entree.getKey();
             }
         }
-        return null;
+        return new Page<>(elements, null);
     }
 
     // Méthodes statistiques ajoutées pour l'analyse des données
@@ -224,53 +640,57 @@ public class Category {
      * @return Nombre de produits
      */
     public int getProductCount(){
-        return this.produits.size();
+        return this.produits.taille();
     }
 
     /**
      * Calculer le prix moyen des produits de la catégorie
-     * @return Prix moyen en euros (0 si aucun produit)
+     * Utilise la somme des prix tenue à jour, sans parcourir les produits
+     * @return Prix moyen en euros, arrondi au centime (0 si aucun produit)
      */
-    public float getAveragePrice(){
-        if(this.produits.isEmpty()) return 0;
+    public synchronized float getAveragePrice(){
+        if(this.produits.taille() == 0) return 0;
 
-        float total = 0;
-        for(Produit produit : this.produits){
-            total += produit.getPrix();
-        }
-        return total / this.produits.size();
+        return Montant.enEuros(Montant.diviser(this.sommePrix, this.produits.taille()));
     }
 
     /**
      * Trouver le produit le moins cher de la catégorie
      * @return Le produit le moins cher ou null si aucun produit
      */
-    public Produit getCheapestProduct(){
-        if(this.produits.isEmpty()) return null;
+    public synchronized Produit getCheapestProduct(){
+        if(this.parPrix.isEmpty()) return null;
 
-        Produit cheapest = this.produits.get(0);
-        for(Produit produit : this.produits){
-            if(produit.getPrix() < cheapest.getPrix()){
-                cheapest = produit;
-            }
-        }
-        return cheapest;
+        return this.parPrix.firstEntry().getValue().get(0);
     }
 
     /**
      * Trouver le produit le plus cher de la catégorie
      * @return Le produit le plus cher ou null si aucun produit
      */
-    public Produit getMostExpensiveProduct(){
-        if(this.produits.isEmpty()) return null;
+    public synchronized Produit getMostExpensiveProduct(){
+        if(this.parPrix.isEmpty()) return null;
 
-        Produit expensive = this.produits.get(0);
-        for(Produit produit : this.produits){
-            if(produit.getPrix() > expensive.getPrix()){
-                expensive = produit;
-            }
+        return this.parPrix.lastEntry().getValue().get(0);
+    }
+
+    /**
+     * Trouver les produits dont le prix est compris entre deux bornes (incluses)
+     * Seule la tranche de prix demandée est parcourue
+     * @param prixMin Prix minimum en euros
+     * @param prixMax Prix maximum en euros
+     * @return Produits de la tranche, du moins cher au plus cher
+     */
+    public synchronized List<Produit> getProduitsEntre(float prixMin, float prixMax){
+        List<Produit> resultats = new ArrayList<>();
+        if(prixMin > prixMax) return resultats;
+
+        long min = Montant.depuisEuros(prixMin);
+        long max = Montant.depuisEuros(prixMax);
+        for(List<Produit> memePrix : this.parPrix.subMap(min, true, max, true).values()){
+            resultats.addAll(memePrix);
         }
-        return expensive;
+        return resultats;
     }
 
     /**
@@ -280,6 +700,6 @@ public class Category {
     @Override
     public String toString(){
         return String.format("Category{nom='%s', description='%s', products=%d}",
-                nom, description, produits.size());
+                nom, description, produits.taille());
     }
 }
\ No newline at end of file
@@ -0,0 +1,502 @@
+package produit;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Import en masse d'un catalogue depuis un fichier CSV ou JSON lines
+ * Le fichier est projeté en mémoire et découpé en morceaux alignés sur les fins de ligne,
+ * analysés en parallèle. Les produits sont insérés par lots dans leurs catégories,
+ * sans aucun message par ligne.
+ *
+ * Formats acceptés (un produit par ligne, encodage UTF-8) :
+ * - CSV (.csv) avec une ligne d'en-tête : nom, description, prix, categorie
+ *   (les noms anglais name, price, category sont aussi reconnus)
+ * - JSON lines (.jsonl, .ndjson) : {"nom": "...", "description": "...", "prix": 12.5, "categorie": "..."}
+ * Une ligne sans catégorie est rejetée : le produit ne serait accessible par aucune catégorie.
+ */
+public class ImportCatalogue {
+
+    private static final int TAILLE_LOT = 10000;                // Produits insérés par lot
+    private static final long TAILLE_MORCEAU_MAX = 64L << 20;   // Taille maximale d'un morceau (64 Mo)
+    private static final long TAILLE_MORCEAU_MIN = 1L << 20;    // Taille minimale d'un morceau (1 Mo)
+
+    // Position des champs dans un enregistrement analysé
+    private static final int NOM = 0;
+    private static final int DESCRIPTION = 1;
+    private static final int PRIX = 2;
+    private static final int CATEGORIE = 3;
+
+    /**
+     * Compte rendu d'un import
+     */
+    public static class Rapport {
+
+        private final long lignes;        // Produits importés
+        private final long erreurs;       // Lignes rejetées
+        private final long dureeNanos;    // Durée totale de l'import
+        private final long piqueMemoire;  // Pic d'utilisation du tas pendant l'import, en octets
+
+        Rapport(long lignes, long erreurs, long dureeNanos, long piqueMemoire){
+            this.lignes = lignes;
+            this.erreurs = erreurs;
+            this.dureeNanos = dureeNanos;
+            this.piqueMemoire = piqueMemoire;
+        }
+
+        public long getLignes(){
+            return lignes;
+        }
+
+        public long getErreurs(){
+            return erreurs;
+        }
+
+        public long getDureeNanos(){
+            return dureeNanos;
+        }
+
+        public long getPiqueMemoire(){
+            return piqueMemoire;
+        }
+
+        public double getLignesParSeconde(){
+            return dureeNanos == 0 ? 0 : lignes * 1e9 / dureeNanos;
+        }
+
+        @Override
+        public String toString(){
+            return String.format("%d produits importés (%d lignes rejetées) en %.2f s - %.0f lignes/s - pic mémoire : %d Mo",
+                    lignes, erreurs, dureeNanos / 1e9, getLignesParSeconde(), piqueMemoire >> 20);
+        }
+    }
+
+    /**
+     * Importer un fichier catalogue
+     * @param fichier Fichier CSV (.csv) ou JSON lines (.jsonl, .ndjson)
+     * @return Compte rendu de l'import
+     * @throws IOException en cas d'erreur de lecture
+     * @throws IllegalArgumentException si le format n'est pas reconnu ou si l'en-tête CSV est invalide
+     */
+    public static Rapport importer(Path fichier) throws IOException {
+        String nomFichier = fichier.getFileName().toString().toLowerCase();
+        boolean csv = nomFichier.endsWith(".csv");
+        if(!csv && !nomFichier.endsWith(".jsonl") && !nomFichier.endsWith(".ndjson")){
+            throw new IllegalArgumentException("Format de fichier non reconnu : " + fichier);
+        }
+
+        List<MemoryPoolMXBean> tas = new ArrayList<>();
+        for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()){
+            if(pool.getType() == MemoryType.HEAP){
+                pool.resetPeakUsage();
+                tas.add(pool);
+            }
+        }
+        long debut = System.nanoTime();
+        long lignes = 0;
+        long erreurs = 0;
+
+        try(FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)){
+            long taille = canal.size();
+            long debutDonnees = sauterBom(canal);
+            int[] colonnes = null;
+            if(csv){
+                long finEntete = lireFinLigne(canal, debutDonnees, taille);
+                colonnes = lireEntete(lireTexte(canal, debutDonnees, finEntete));
+                debutDonnees = finEntete;
+            }
+
+            int processeurs = Runtime.getRuntime().availableProcessors();
+            List<long[]> morceaux = decouper(canal, debutDonnees, taille, processeurs);
+            ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(processeurs, morceaux.size())));
+            try {
+                List<Future<long[]>> resultats = new ArrayList<>();
+                for(long[] morceau : morceaux){
+                    final int[] champs = colonnes;
+                    resultats.add(pool.submit(() -> traiterMorceau(canal, morceau[0], morceau[1], champs)));
+                }
+                for(Future<long[]> resultat : resultats){
+                    long[] compte = resultat.get();
+                    lignes += compte[0];
+                    erreurs += compte[1];
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Import interrompu", e);
+            } catch (ExecutionException e) {
+                throw new IOException("Erreur pendant l'import", e.getCause());
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        long piqueMemoire = 0;
+        for(MemoryPoolMXBean pool : tas){
+            piqueMemoire += pool.getPeakUsage().getUsed();
+        }
+        return new Rapport(lignes, erreurs, System.nanoTime() - debut, piqueMemoire);
+    }
+
+    /**
+     * Découper la zone de données en morceaux se terminant par une fin de ligne
+     * @return Liste de bornes {début, fin} en octets
+     */
+    private static List<long[]> decouper(FileChannel canal, long debut, long fin, int processeurs) throws IOException {
+        long tailleMorceau = Math.max(TAILLE_MORCEAU_MIN, Math.min(TAILLE_MORCEAU_MAX, (fin - debut) / processeurs + 1));
+        List<long[]> morceaux = new ArrayList<>();
+        long position = debut;
+        while(position < fin){
+            long limite = Math.min(fin, position + tailleMorceau);
+            long suivant = limite < fin ? lireFinLigne(canal, limite, fin) : fin;
+            morceaux.add(new long[]{position, suivant});
+            position = suivant;
+        }
+        return morceaux;
+    }
+
+    /**
+     * Sauter l'éventuelle marque d'ordre des octets UTF-8 en début de fichier
+     * @return Position du premier caractère utile
+     */
+    private static long sauterBom(FileChannel canal) throws IOException {
+        ByteBuffer tampon = ByteBuffer.allocate(3);
+        while(tampon.hasRemaining() && canal.read(tampon, tampon.position()) > 0){
+            // Lecture des trois premiers octets
+        }
+        boolean bom = !tampon.hasRemaining() && tampon.get(0) == (byte) 0xEF
+                && tampon.get(1) == (byte) 0xBB && tampon.get(2) == (byte) 0xBF;
+        return bom ? 3 : 0;
+    }
+
+    /**
+     * Trouver la position qui suit la prochaine fin de ligne
+     * @return Position du début de la ligne suivante (ou fin si aucune)
+     */
+    private static long lireFinLigne(FileChannel canal, long position, long fin) throws IOException {
+        ByteBuffer tampon = ByteBuffer.allocate(8192);
+        while(position < fin){
+            tampon.clear();
+            int lus = canal.read(tampon, position);
+            if(lus <= 0){
+                break;
+            }
+            for(int i = 0; i < lus; i++){
+                if(tampon.get(i) == '\n'){
+                    return position + i + 1;
+                }
+            }
+            position += lus;
+        }
+        return fin;
+    }
+
+    private static String lireTexte(FileChannel canal, long debut, long fin) throws IOException {
+        ByteBuffer tampon = ByteBuffer.allocate((int) (fin - debut));
+        while(tampon.hasRemaining() && canal.read(tampon, debut + tampon.position()) > 0){
+            // Lecture jusqu'à remplir le tampon
+        }
+        return new String(tampon.array(), 0, tampon.position(), StandardCharsets.UTF_8).trim();
+    }
+
+    /**
+     * Lire l'en-tête CSV
+     * @param entete Première ligne du fichier
+     * @return Position de chaque champ (nom, description, prix, categorie) dans une ligne, -1 si absent
+     */
+    private static int[] lireEntete(String entete){
+        int[] colonnes = {-1, -1, -1, -1};
+        List<String> noms = champsCsv(entete);
+        for(int i = 0; i < noms.size(); i++){
+            switch(RechercheProduit.normaliser(noms.get(i).trim())){
+                case "nom": case "name":
+                    colonnes[NOM] = i;
+                    break;
+                case "description":
+                    colonnes[DESCRIPTION] = i;
+                    break;
+                case "prix": case "price":
+                    colonnes[PRIX] = i;
+                    break;
+                case "categorie": case "category":
+                    colonnes[CATEGORIE] = i;
+                    break;
+                default:
+                    break;
+            }
+        }
+        if(colonnes[NOM] < 0 || colonnes[PRIX] < 0 || colonnes[CATEGORIE] < 0){
+            throw new IllegalArgumentException("En-tête CSV invalide : les colonnes nom, prix et categorie sont obligatoires");
+        }
+        return colonnes;
+    }
+
+    /**
+     * Analyser et insérer un morceau du fichier
+     * @param colonnes Positions des champs CSV, ou null pour du JSON lines
+     * @return {produits importés, lignes rejetées}
+     */
+    private static long[] traiterMorceau(FileChannel canal, long debut, long fin, int[] colonnes) throws IOException {
+        MappedByteBuffer zone = canal.map(FileChannel.MapMode.READ_ONLY, debut, fin - debut);
+        Map<String, Category> categories = new HashMap<>();      // Catégories déjà résolues par ce thread
+        Map<Category, List<Produit>> lots = new HashMap<>();     // Produits en attente d'insertion
+        long[] compte = new long[2];
+        int enAttente = 0;
+
+        byte[] ligne = new byte[512];
+        int longueur = 0;
+        while(true){
+            boolean finZone = !zone.hasRemaining();
+            byte octet = finZone ? (byte) '\n' : zone.get();
+            if(octet == '\n'){
+                if(longueur > 0 && ligne[longueur - 1] == '\r'){
+                    longueur--;
+                }
+                if(longueur > 0){
+                    String texte = new String(ligne, 0, longueur, StandardCharsets.UTF_8);
+                    if(importerLigne(texte, colonnes, categories, lots)){
+                        compte[0]++;
+                        enAttente++;
+                    } else if(!texte.trim().isEmpty()){
+                        compte[1]++;
+                    }
+                    if(enAttente >= TAILLE_LOT){
+                        vider(lots);
+                        enAttente = 0;
+                    }
+                }
+                longueur = 0;
+                if(finZone){
+                    break;
+                }
+            } else {
+                if(longueur == ligne.length){
+                    ligne = Arrays.copyOf(ligne, ligne.length * 2);
+                }
+                ligne[longueur++] = octet;
+            }
+        }
+        vider(lots);
+        return compte;
+    }
+
+    /**
+     * Créer le produit décrit par une ligne et le placer dans le lot de sa catégorie
+     * @return true si la ligne est valide, son produit étant alors inséré au prochain vidage des lots
+     */
+    private static boolean importerLigne(String texte, int[] colonnes, Map<String, Category> categories,
+                                         Map<Category, List<Produit>> lots){
+        String[] champs;
+        try {
+            champs = colonnes != null ? champsCsv(champsCsv(texte), colonnes) : champsJson(texte);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if(champs[NOM] == null || champs[NOM].trim().isEmpty() || champs[PRIX] == null){
+            return false;
+        }
+        long prix;
+        try {
+            prix = Montant.parser(champs[PRIX]);  // Lecture exacte en centimes
+        } catch (NumberFormatException | ArithmeticException e) {
+            return false;
+        }
+        String nomCategorie = champs[CATEGORIE] == null ? "" : champs[CATEGORIE].trim();
+        if(prix < 0 || nomCategorie.isEmpty()){
+            return false;
+        }
+
+        // Le produit n'est créé (et enregistré) qu'une fois la ligne entièrement validée
+        Produit produit = Produit.enCentimes(champs[NOM].trim(),
+                champs[DESCRIPTION] == null ? "" : champs[DESCRIPTION].trim(), prix);
+        Category category = categories.computeIfAbsent(nomCategorie, Category::trouverOuCreer);
+        lots.computeIfAbsent(category, c -> new ArrayList<>()).add(produit);
+        return true;
+    }
+
+    /**
+     * Insérer les lots en attente dans leurs catégories
+     */
+    private static void vider(Map<Category, List<Produit>> lots){
+        for(Map.Entry<Category, List<Produit>> lot : lots.entrySet()){
+            lot.getKey().ajouterLot(lot.getValue());
+        }
+        lots.clear();
+    }
+
+    /**
+     * Découper une ligne CSV en champs (séparateur virgule, guillemets doublés pour les échapper)
+     */
+    private static List<String> champsCsv(String ligne){
+        List<String> champs = new ArrayList<>();
+        StringBuilder champ = new StringBuilder();
+        boolean entreGuillemets = false;
+        for(int i = 0; i < ligne.length(); i++){
+            char c = ligne.charAt(i);
+            if(entreGuillemets){
+                if(c == '"'){
+                    if(i + 1 < ligne.length() && ligne.charAt(i + 1) == '"'){
+                        champ.append('"');
+                        i++;
+                    } else {
+                        entreGuillemets = false;
+                    }
+                } else {
+                    champ.append(c);
+                }
+            } else if(c == '"'){
+                entreGuillemets = true;
+            } else if(c == ','){
+                champs.add(champ.toString());
+                champ.setLength(0);
+            } else {
+                champ.append(c);
+            }
+        }
+        if(entreGuillemets){
+            throw new IllegalArgumentException("Guillemet non fermé");
+        }
+        champs.add(champ.toString());
+        return champs;
+    }
+
+    /**
+     * Réordonner les champs CSV selon les colonnes de l'en-tête
+     */
+    private static String[] champsCsv(List<String> valeurs, int[] colonnes){
+        String[] champs = new String[4];
+        for(int i = 0; i < colonnes.length; i++){
+            if(colonnes[i] >= 0 && colonnes[i] < valeurs.size()){
+                champs[i] = valeurs.get(colonnes[i]);
+            }
+        }
+        return champs;
+    }
+
+    /**
+     * Lire un objet JSON plat (chaînes, nombres, true/false/null) sur une ligne
+     * @return Champs nom, description, prix et categorie
+     * @throws IllegalArgumentException si la ligne n'est pas un objet JSON valide
+     */
+    private static String[] champsJson(String ligne){
+        String[] champs = new String[4];
+        int[] position = {sauterEspaces(ligne, 0)};
+        attendre(ligne, position, '{');
+        int suivant = sauterEspaces(ligne, position[0]);
+        if(suivant < ligne.length() && ligne.charAt(suivant) == '}'){
+            return champs;
+        }
+        while(true){
+            String cle = lireChaineJson(ligne, position);
+            attendre(ligne, position, ':');
+            position[0] = sauterEspaces(ligne, position[0]);
+            String valeur;
+            if(position[0] < ligne.length() && ligne.charAt(position[0]) == '"'){
+                valeur = lireChaineJson(ligne, position);
+            } else {
+                int debut = position[0];
+                while(position[0] < ligne.length() && ",} \t".indexOf(ligne.charAt(position[0])) < 0){
+                    position[0]++;
+                }
+                valeur = ligne.substring(debut, position[0]);
+                if(valeur.isEmpty()){
+                    throw new IllegalArgumentException("Valeur JSON manquante");
+                }
+                if(valeur.equals("null")){
+                    valeur = null;
+                }
+            }
+            switch(RechercheProduit.normaliser(cle)){
+                case "nom": case "name":
+                    champs[NOM] = valeur;
+                    break;
+                case "description":
+                    champs[DESCRIPTION] = valeur;
+                    break;
+                case "prix": case "price":
+                    champs[PRIX] = valeur;
+                    break;
+                case "categorie": case "category":
+                    champs[CATEGORIE] = valeur;
+                    break;
+                default:
+                    break;
+            }
+            position[0] = sauterEspaces(ligne, position[0]);
+            if(position[0] < ligne.length() && ligne.charAt(position[0]) == ','){
+                position[0]++;
+            } else {
+                attendre(ligne, position, '}');
+                return champs;
+            }
+        }
+    }
+
+    private static String lireChaineJson(String ligne, int[] position){
+        attendre(ligne, position, '"');
+        StringBuilder chaine = new StringBuilder();
+        int i = position[0];
+        while(i < ligne.length()){
+            char c = ligne.charAt(i++);
+            if(c == '"'){
+                position[0] = i;
+                return chaine.toString();
+            }
+            if(c != '\\'){
+                chaine.append(c);
+                continue;
+            }
+            if(i >= ligne.length()){
+                break;
+            }
+            char echappe = ligne.charAt(i++);
+            switch(echappe){
+                case 'n': chaine.append('\n'); break;
+                case 't': chaine.append('\t'); break;
+                case 'r': chaine.append('\r'); break;
+                case 'b': chaine.append('\b'); break;
+                case 'f': chaine.append('\f'); break;
+                case 'u':
+                    if(i + 4 > ligne.length()){
+                        throw new IllegalArgumentException("Séquence \\u incomplète");
+                    }
+                    chaine.append((char) Integer.parseInt(ligne.substring(i, i + 4), 16));
+                    i += 4;
+                    break;
+                default: chaine.append(echappe); break;  // \" \\ \/
+            }
+        }
+        throw new IllegalArgumentException("Chaîne JSON non fermée");
+    }
+
+    private static void attendre(String ligne, int[] position, char attendu){
+        int i = sauterEspaces(ligne, position[0]);
+        if(i >= ligne.length() || ligne.charAt(i) != attendu){
+            throw new IllegalArgumentException("Caractère '" + attendu + "' attendu");
+        }
+        position[0] = i + 1;
+    }
+
+    private static int sauterEspaces(String ligne, int position){
+        while(position < ligne.length() && Character.isWhitespace(ligne.charAt(position))){
+            position++;
+        }
+        return position;
+    }
+}
@@ -0,0 +1,177 @@
+package produit;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Montants d'argent en virgule fixe
+ * Un montant est un long exprimant des centimes : les sommes sont exactes quel que soit
+ * le chiffre d'affaires (contrairement aux float, qui perdent les centimes au-delà de
+ * quelques millions d'euros) et les calculs ne créent aucun objet. Les conversions depuis les euros
+ * arrondissent explicitement au centime le plus proche (demi-centime arrondi vers le haut
+ * en valeur absolue), les opérations signalent les dépassements de capacité.
+ */
+public final class Montant {
+
+    public static final long ZERO = 0L;
+
+    private static final int CENTIMES_PAR_EURO = 100;
+
+    private Montant(){
+        // Classe utilitaire : les montants sont des long, pas des objets
+    }
+
+    /**
+     * Convertir un prix en euros en centimes, arrondi au centime le plus proche
+     * Le float est lu dans sa représentation décimale la plus courte
+     * (19.99f donne 1999 centimes et 1.005f donne 101 centimes)
+     * @param euros Montant en euros
+     * @return Montant en centimes
+     * @throws IllegalArgumentException si le montant n'est pas un nombre fini ou dépasse la capacité
+     */
+    public static long depuisEuros(float euros){
+        if(Float.isNaN(euros) || Float.isInfinite(euros)){
+            throw new IllegalArgumentException("Montant invalide: " + euros);
+        }
+        return versCentimes(new BigDecimal(Float.toString(euros)));
+    }
+
+    /**
+     * Convertir un montant en euros en centimes, arrondi au centime le plus proche
+     * Le double est lu dans sa représentation décimale la plus courte
+     * @param euros Montant en euros
+     * @return Montant en centimes
+     * @throws IllegalArgumentException si le montant n'est pas un nombre fini ou dépasse la capacité
+     */
+    public static long depuisEuros(double euros){
+        if(Double.isNaN(euros) || Double.isInfinite(euros)){
+            throw new IllegalArgumentException("Montant invalide: " + euros);
+        }
+        return versCentimes(BigDecimal.valueOf(euros));
+    }
+
+    private static long versCentimes(BigDecimal euros){
+        try {
+            return euros.setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Montant trop grand: " + euros);
+        }
+    }
+
+    /**
+     * Lire un montant décimal écrit en euros ("12", "12.5", "12,99", "-3.005")
+     * La lecture est exacte ; au-delà de deux décimales, le montant est arrondi au centime
+     * le plus proche (demi-centime arrondi vers le haut en valeur absolue)
+     * @param texte Montant en euros, avec un point ou une virgule comme séparateur décimal
+     * @return Montant en centimes
+     * @throws NumberFormatException si le texte n'est pas un montant valide
+     */
+    public static long parser(String texte){
+        String s = texte.trim();
+        int i = 0;
+        boolean negatif = false;
+        if(!s.isEmpty() && (s.charAt(0) == '-' || s.charAt(0) == '+')){
+            negatif = s.charAt(0) == '-';
+            i++;
+        }
+        long euros = 0;
+        int chiffres = 0;
+        for(; i < s.length() && estChiffre(s.charAt(i)); i++, chiffres++){
+            euros = Math.addExact(Math.multiplyExact(euros, 10), s.charAt(i) - '0');
+        }
+        long centimes = 0;
+        int decimales = 0;
+        boolean arrondiHaut = false;
+        if(i < s.length() && (s.charAt(i) == '.' || s.charAt(i) == ',')){
+            for(i++; i < s.length() && estChiffre(s.charAt(i)); i++, decimales++){
+                int chiffre = s.charAt(i) - '0';
+                if(decimales < 2){
+                    centimes = centimes * 10 + chiffre;
+                } else if(decimales == 2){
+                    arrondiHaut = chiffre >= 5;  // Seule la troisième décimale décide de l'arrondi
+                }
+            }
+        }
+        if(i != s.length() || chiffres + decimales == 0){
+            throw new NumberFormatException("Montant invalide: " + texte);
+        }
+        for(int d = Math.min(decimales, 2); d < 2; d++){
+            centimes *= 10;
+        }
+        long total = Math.addExact(Math.multiplyExact(euros, CENTIMES_PAR_EURO), centimes + (arrondiHaut ? 1 : 0));
+        return negatif ? -total : total;
+    }
+
+    /**
+     * Seuls les chiffres ASCII sont acceptés : Character.isDigit reconnaît aussi les chiffres
+     * arabes, devanagari, pleine chasse..., que le calcul "c - '0'" ne convertit pas
+     */
+    private static boolean estChiffre(char c){
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Additionner deux montants
+     * @throws ArithmeticException en cas de dépassement de capacité
+     */
+    public static long ajouter(long a, long b){
+        return Math.addExact(a, b);
+    }
+
+    /**
+     * Soustraire un montant d'un autre
+     * @throws ArithmeticException en cas de dépassement de capacité
+     */
+    public static long soustraire(long a, long b){
+        return Math.subtractExact(a, b);
+    }
+
+    /**
+     * Multiplier un prix unitaire par une quantité
+     * @param centimes Prix unitaire en centimes
+     * @param quantite Quantité
+     * @return Montant en centimes
+     * @throws ArithmeticException en cas de dépassement de capacité
+     */
+    public static long multiplier(long centimes, int quantite){
+        return Math.multiplyExact(centimes, (long) quantite);
+    }
+
+    /**
+     * Diviser un montant, arrondi au centime le plus proche (par exemple pour une moyenne)
+     * @param centimes Montant en centimes
+     * @param diviseur Diviseur strictement positif
+     * @return Montant en centimes
+     */
+    public static long diviser(long centimes, long diviseur){
+        if(diviseur <= 0){
+            throw new IllegalArgumentException("Diviseur invalide: " + diviseur);
+        }
+        long quotient = centimes / diviseur;
+        long reste = Math.abs(centimes % diviseur);
+        if(reste >= diviseur - reste){  // Reste au moins égal à la moitié du diviseur
+            quotient += centimes < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+
+    /**
+     * Valeur approchée en euros, pour l'affichage
+     * @param centimes Montant en centimes
+     * @return Montant en euros
+     */
+    public static float enEuros(long centimes){
+        return (float) (centimes / (double) CENTIMES_PAR_EURO);
+    }
+
+    /**
+     * Montant en euros sous forme de texte exact ("1234.50")
+     * @param centimes Montant en centimes
+     * @return Texte avec deux décimales
+     */
+    public static String formater(long centimes){
+        long absolu = Math.abs(centimes);
+        String decimales = Long.toString(absolu % CENTIMES_PAR_EURO);
+        return (centimes < 0 ? "-" : "") + (absolu / CENTIMES_PAR_EURO) + "." + (decimales.length() == 1 ? "0" : "") + decimales;
+    }
+}
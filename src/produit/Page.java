@@ -0,0 +1,77 @@
+package produit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Page de résultats renvoyée par les méthodes de pagination
+ * Contient au plus le nombre d'éléments demandé et un curseur opaque
+ * permettant d'obtenir la page suivante
+ * @param <T> Type des éléments de la page
+ */
+public class Page<T> {
+
+    private List<T> elements;        // Éléments de la page
+    private String curseurSuivant;   // Curseur de la page suivante (null si dernière page)
+
+    /**
+     * Constructeur d'une page
+     * @param elements Éléments de la page
+     * @param curseurSuivant Curseur de la page suivante ou null
+     */
+    Page(List<T> elements, String curseurSuivant){
+        this.elements = elements;
+        this.curseurSuivant = curseurSuivant;
+    }
+
+    // Getters
+    public List<T> getElements(){
+        return elements;
+    }
+
+    public String getCurseurSuivant(){
+        return curseurSuivant;
+    }
+
+    /**
+     * Vérifier s'il existe une page suivante
+     * @return true si d'autres éléments suivent cette page
+     */
+    public boolean hasSuivante(){
+        return curseurSuivant != null;
+    }
+
+    /**
+     * Encoder la position du dernier élément renvoyé dans un curseur opaque
+     * @param tri Ordre de tri de la pagination
+     * @param id ID du dernier produit renvoyé
+     * @param cle Clé de tri du dernier produit renvoyé
+     * @return Curseur à transmettre pour obtenir la page suivante
+     */
+    static String encoderCurseur(TriProduit tri, int id, String cle){
+        String contenu = tri.name() + "|" + id + "|" + cle;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(contenu.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Décoder un curseur produit par encoderCurseur
+     * @param curseur Curseur reçu
+     * @param tri Ordre de tri attendu
+     * @return Tableau {id, cle} du dernier produit renvoyé
+     * @throws IllegalArgumentException si le curseur est invalide ou d'un autre tri
+     */
+    static String[] decoderCurseur(String curseur, TriProduit tri){
+        try {
+            String contenu = new String(Base64.getUrlDecoder().decode(curseur), StandardCharsets.UTF_8);
+            String[] parties = contenu.split("\\|", 3);
+            if(parties.length == 3 && parties[0].equals(tri.name())){
+                Integer.parseInt(parties[1]);  // Validation de l'ID
+                return new String[]{parties[1], parties[2]};
+            }
+        } catch (IllegalArgumentException e) {
+            // Traité ci-dessous comme un curseur invalide
+        }
+        throw new IllegalArgumentException("Curseur de pagination invalide");
+    }
+}
@@ -1,7 +1,10 @@
 package produit;
 
+import stockage.TableIndexee;
+
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Classe représentant un produit dans le système e-commerce
@@ -9,17 +12,18 @@ import java.util.List;
  */
 public class Produit {
 
-    // Compteur statique pour générer des IDs uniques
-    private static int nbrProduits = 0;
+    // Compteur statique pour générer des IDs uniques (attribution atomique, sans verrou)
+    private static final AtomicInteger nbrProduits = new AtomicInteger();
 
-    // AJOUT: Base de données globale de tous les produits pour une recherche plus rapide
-    private static List<Produit> db = new ArrayList<>();
+    // Registre global indexé par ID : les IDs étant attribués séquentiellement à partir de 0,
+    // la case id contient le produit correspondant (recherche en temps constant)
+    private static TableIndexee<Produit> db = new TableIndexee<>();
 
     // Attributs du produit
     private int id;              // Identifiant unique du produit
-    private String nom;          // Nom du produit
-    private String description;  // Description détaillée
-    private float prix;          // Prix en euros
+    private volatile String nom;          // Nom du produit
+    private volatile String description;  // Description détaillée
+    private volatile long prix;           // Prix en centimes (voir Montant)
 
     /**
      * Constructeur pour créer un nouveau produit
@@ -29,15 +33,33 @@ public class Produit {
      * @param prix Prix du produit en euros
      */
     public Produit(String nom, String description, float prix){
-        this.id = nbrProduits;           // Attribution d'un ID unique
+        this(nom, description, Montant.depuisEuros(prix));  // Arrondi au centime le plus proche
+    }
+
+    // Privé : un appel public avec un entier littéral choisirait ce constructeur plutôt que celui en euros
+    private Produit(String nom, String description, long prix){
+        this.id = nbrProduits.getAndIncrement();  // Attribution d'un ID unique
         this.nom = nom;
         this.description = description;
         this.prix = prix;
 
-        nbrProduits += 1;                // Incrémentation du compteur global
-        db.add(this);          // Ajout à la base de données globale
+        db.placer(this.id, this);        // Ajout au registre global, dans la case id
+        RechercheProduit.indexer(this);  // Ajout à l'index de recherche
+    }
+
+    /**
+     * Créer un produit dont le prix est donné en centimes (sans conversion ni arrondi)
+     * @param nom Nom du produit
+     * @param description Description du produit
+     * @param prixCentimes Prix en centimes
+     * @return Le nouveau produit
+     */
+    public static Produit enCentimes(String nom, String description, long prixCentimes){
+        return new Produit(nom, description, prixCentimes);
     }
 
+
+
     // Getters - méthodes d'accès aux attributs
     public int getId(){
         return this.id;
@@ -51,35 +73,65 @@ public class Produit {
         return this.nom;
     }
 
+    /**
+     * Prix en euros, pour l'affichage
+     * @return Prix approché en euros
+     */
     public float getPrix() {
+        return Montant.enEuros(this.prix);
+    }
+
+    /**
+     * Prix exact en centimes, à utiliser pour tous les calculs
+     * @return Prix en centimes
+     */
+    public long getPrixCentimes() {
         return this.prix;
     }
 
     // Setters - méthodes de modification des attributs
-    public void setDescription(String description) {
+    // Le nom et la description étant indexés pour la recherche, l'index est mis à jour
+    // (modifications synchronisées sur le produit pour garder les index cohérents)
+    public synchronized void setDescription(String description) {
+        RechercheProduit.retirer(this);
         this.description = description;
+        RechercheProduit.indexer(this);
     }
 
-    public void setNom(String nom) {
+    public synchronized void setNom(String nom) {
+        RechercheProduit.retirer(this);
         this.nom = nom;
+        RechercheProduit.indexer(this);
+        Category.reclasser(this);  // Mise à jour du tri par nom des catégories
     }
 
     public void setPrix(float prix) {
+        setPrixCentimes(Montant.depuisEuros(prix));  // Arrondi au centime le plus proche
+    }
+
+    public synchronized void setPrixCentimes(long prix) {
         this.prix = prix;
+        Category.reclasser(this);  // Mise à jour des agrégats de prix des catégories
     }
 
     /**
-     * CORRECTION: Recherche d'un produit par ID dans la base de données
+     * Recherche d'un produit par ID dans le registre (accès direct, sans parcours)
      * @param id Identifiant du produit recherché
      * @return Le produit trouvé ou null si non trouvé
      */
     public static Produit findProduitById(int id){
-        for(Produit produit : db){
-            if(produit.getId() == id){
-                return produit;
-            }
-        }
-        return null;
+        return db.get(id);
+    }
+
+    /**
+     * Recherche plein texte sur le nom et la description des produits
+     * Insensible à la casse et aux accents, résultats classés par pertinence
+     * @param requete Mots recherchés
+     * @param limite Nombre maximum de résultats
+     * @return Produits trouvés, du plus pertinent au moins pertinent
+     */
+    public static List<Produit> rechercher(String requete, int limite){
+        return RechercheProduit.rechercher(requete, limite);
     }
 
     /**
@@ -89,21 +141,9 @@ public class Produit {
     public void saveToCategory(String categorieNom){
         Category category = Category.findByNom(categorieNom);
         if (category != null){
-            ArrayList<Produit> produits = category.getProduits();
-
-            // Vérification si le produit existe déjà dans cette catégorie
-            boolean exists = false;
-            for(Produit p : produits){
-                if(p.getId() == this.getId()){
-                    exists = true;
-                    break;
-                }
-            }
-
-            if(!exists){
-                produits.add(this);
-                category.setProduits(produits);
-                System.out.println("Produit ajouté à la catégorie " + categorieNom);
+            // Vérification si le produit existe déjà dans cette catégorie (via l'index inverse)
+            if(!category.contient(this)){
+                category.addProduit(this);  // Ajout et mise à jour de l'index inverse
             } else {
                 System.out.println("Produit déjà dans cette catégorie");
             }
@@ -114,10 +154,36 @@ public class Produit {
 
     /**
      * Obtenir tous les produits du système
-     * @return Copie de la liste de tous les produits
+     * @return Instantané non modifiable de tous les produits, obtenu sans copie
      */
     public static List<Produit> getAllProducts(){
-        return new ArrayList<>(db);
+        return db.instantane();
+    }
+
+    /**
+     * Obtenir une page de produits du catalogue, par ID croissant
+     * Seule la page demandée est lue dans le registre
+     * @param curseur Curseur renvoyé par la page précédente (null pour la première page)
+     * @param taille Nombre maximum de produits dans la page
+     * @return Page de produits avec le curseur de la page suivante
+     * @throws IllegalArgumentException si la taille n'est pas positive ou si le curseur est invalide
+     */
+    public static Page<Produit> getPage(String curseur, int taille){
+        if(taille <= 0){
+            throw new IllegalArgumentException("La taille de page doit être positive");
+        }
+        int debut = 0;
+        if(curseur != null){
+            debut = Integer.parseInt(Page.decoderCurseur(curseur, TriProduit.ID)[0]) + 1;
+        }
+        List<Produit> produits = db.instantane();
+        int fin = (int) Math.min(produits.size(), (long) Math.max(debut, 0) + taille);
+        List<Produit> elements = new ArrayList<>();
+        for(int id = Math.max(debut, 0); id < fin; id++){
+            elements.add(produits.get(id));
+        }
+        String suivant = fin < produits.size() ? Page.encoderCurseur(TriProduit.ID, fin - 1, String.valueOf(fin - 1)) : null;
+        return new Page<>(elements, suivant);
     }
 
     /**
@@ -125,11 +191,8 @@ public class Produit {
      * Utile lors de la suppression définitive d'un produit
      */
     public void removeFromAllCategories(){
-        List<Category> categories = Category.findTouteCategory();
-        for(Category category : categories){
-            // Suppression par condition sur l'ID
-            category.getProduits().removeIf(p -> p.getId() == this.getId());
-        }
+        // Seules les catégories contenant ce produit sont visitées
+        Category.retirerDeToutesCategories(this);
     }
 
     /**
@@ -138,6 +201,6 @@ public class Produit {
      */
     @Override
     public String toString(){
-        return String.format("Produit{id=%d, nom='%s', prix=%.2f€}", id, nom, prix);
+        return String.format("Produit{id=%d, nom='%s', prix=%s€}", id, nom, Montant.formater(prix));
     }
 }
\ No newline at end of file
@@ -0,0 +1,642 @@
+package produit;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Moteur de recherche plein texte sur le nom et la description des produits
+ * Index inversé (terme -> produits) avec classement BM25, mis à jour à chaque
+ * création de produit et modification du nom ou de la description
+ * Les listes d'occurrences sont des blocs de tableaux d'entiers triés par ID de produit
+ * (pas d'objet par occurrence). Chaque bloc retient sa fréquence maximale et la longueur du plus
+ * court de ses produits : la recherche en déduit un score maximal par bloc et saute les blocs
+ * qui ne peuvent pas entrer dans les résultats (block-max).
+ * Les recherches se font en parallèle sous un verrou de lecture ;
+ * seules les mises à jour de l'index prennent le verrou d'écriture.
+ */
+class RechercheProduit {
+
+    // Paramètres classiques du classement BM25
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final ReadWriteLock verrou = new ReentrantReadWriteLock(true);
+
+    // Index inversé : terme normalisé -> occurrences (ID produit et nombre d'occurrences du terme)
+    private static final Map<String, Occurrences> index = new HashMap<>();
+
+    // Nombre de termes indexés par produit (longueur du document), par ID ; -1 si non indexé
+    private static int[] longueurs = new int[0];
+    private static int nbDocuments = 0;
+    private static long longueurTotale = 0;
+
+    /**
+     * Normaliser un texte : minuscules et suppression des accents
+     * ("Électronique" devient "electronique")
+     * @param texte Texte à normaliser
+     * @return Texte normalisé
+     */
+    static String normaliser(String texte){
+        if(estAscii(texte)){
+            return texte.toLowerCase(Locale.ROOT);  // Aucun accent à retirer
+        }
+        String decompose = Normalizer.normalize(texte, Normalizer.Form.NFD);
+        StringBuilder resultat = new StringBuilder(decompose.length());
+        for(int i = 0; i < decompose.length(); i++){
+            char c = decompose.charAt(i);
+            // Les accents deviennent des marques combinantes après décomposition NFD
+            if(Character.getType(c) != Character.NON_SPACING_MARK){
+                resultat.append(Character.toLowerCase(c));
+            }
+        }
+        // Ligatures courantes en français non décomposées par NFD
+        return resultat.toString().replace("œ", "oe").replace("æ", "ae");
+    }
+
+    private static boolean estAscii(String texte){
+        for(int i = 0; i < texte.length(); i++){
+            if(texte.charAt(i) >= 128) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Découper un texte en termes normalisés (suites de lettres ou chiffres)
+     * @param texte Texte à découper (peut être null)
+     * @return Liste des termes, avec répétitions
+     */
+    static List<String> tokeniser(String texte){
+        List<String> termes = new ArrayList<>();
+        if(texte == null){
+            return termes;
+        }
+        String normalise = normaliser(texte);
+        int debut = -1;
+        for(int i = 0; i <= normalise.length(); i++){
+            boolean lettre = i < normalise.length() && Character.isLetterOrDigit(normalise.charAt(i));
+            if(lettre && debut < 0){
+                debut = i;
+            } else if(!lettre && debut >= 0){
+                termes.add(normalise.substring(debut, i));
+                debut = -1;
+            }
+        }
+        return termes;
+    }
+
+    /**
+     * Ajouter un produit à l'index
+     * @param produit Produit à indexer
+     */
+    static void indexer(Produit produit){
+        List<String> termes = termesDe(produit);  // Découpage du texte hors verrou
+        Map<String, Integer> frequences = compter(termes);
+        verrou.writeLock().lock();
+        try {
+            int id = produit.getId();
+            if(id < longueurs.length && longueurs[id] >= 0){
+                return;  // Déjà indexé
+            }
+            for(Map.Entry<String, Integer> terme : frequences.entrySet()){
+                index.computeIfAbsent(terme.getKey(), t -> new Occurrences()).ajouter(id, terme.getValue(), termes.size());
+            }
+            if(id >= longueurs.length){
+                int ancienne = longueurs.length;
+                longueurs = Arrays.copyOf(longueurs, Math.max(id + 1, ancienne + (ancienne >> 1) + 16));
+                Arrays.fill(longueurs, ancienne, longueurs.length, -1);
+            }
+            longueurs[id] = termes.size();
+            nbDocuments++;
+            longueurTotale += termes.size();
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retirer un produit de l'index
+     * Doit être appelé avant la modification du nom ou de la description
+     * @param produit Produit à retirer
+     */
+    static void retirer(Produit produit){
+        Map<String, Integer> frequences = compter(termesDe(produit));  // Découpage du texte hors verrou
+        verrou.writeLock().lock();
+        try {
+            int id = produit.getId();
+            if(id >= longueurs.length || longueurs[id] < 0){
+                return;
+            }
+            longueurTotale -= longueurs[id];
+            longueurs[id] = -1;
+            nbDocuments--;
+            for(String terme : frequences.keySet()){
+                Occurrences occurrences = index.get(terme);
+                if(occurrences != null && occurrences.retirer(id) && occurrences.taille == 0){
+                    index.remove(terme);
+                }
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rechercher les produits correspondant à une requête
+     * Les produits sont parcourus par ID croissant dans toutes les listes à la fois (stratégie
+     * MaxScore) : les listes des termes les plus fréquents ne sont parcourues en entier que tant
+     * qu'elles peuvent encore faire entrer un produit dans les résultats ; ensuite elles ne
+     * servent plus qu'à compléter, par recherche dichotomique, le score des candidats.
+     * Une fois les résultats complets, les scores maximaux des blocs courants bornent le score de
+     * tous les produits jusqu'à la fin du plus court de ces blocs : si cette borne ne dépasse pas
+     * le seuil, tout l'intervalle est sauté sans calculer de score
+     * @param requete Texte recherché
+     * @param limite Nombre maximum de résultats
+     * @return Produits classés du plus pertinent au moins pertinent
+     */
+    static List<Produit> rechercher(String requete, int limite){
+        List<Produit> resultats = new ArrayList<>();
+        if(limite <= 0){
+            return resultats;
+        }
+        Set<String> termes = new LinkedHashSet<>(tokeniser(requete));
+        Meilleurs meilleurs;
+        verrou.readLock().lock();
+        try {
+            if(nbDocuments == 0){
+                return resultats;
+            }
+            // Listes des termes connus, de la plus longue (contribution maximale la plus faible) à la plus courte
+            List<Occurrences> listes = new ArrayList<>();
+            for(String terme : termes){
+                Occurrences occurrences = index.get(terme);
+                if(occurrences != null){
+                    listes.add(occurrences);
+                }
+            }
+            listes.sort((a, b) -> Integer.compare(b.taille, a.taille));
+
+            int n = listes.size();
+            double longueurMoyenne = (double) longueurTotale / nbDocuments;
+            double[] idf = new double[n];
+            double[] cumulMax = new double[n];  // Score maximal apporté par les listes 0 à i
+            for(int i = 0; i < n; i++){
+                int df = listes.get(i).taille;
+                idf[i] = Math.log(1 + (nbDocuments - df + 0.5) / (df + 0.5));
+                cumulMax[i] = (i > 0 ? cumulMax[i - 1] : 0) + idf[i] * (K1 + 1);
+            }
+
+            meilleurs = new Meilleurs(limite);
+            double[] restes = new double[n];  // Borne des listes non essentielles 0 à i, par blocs
+            Curseur[] curseurs = new Curseur[n];
+            for(int i = 0; i < n; i++){
+                curseurs[i] = new Curseur(listes.get(i), idf[i], longueurMoyenne);
+            }
+            int premiereEssentielle = 0;  // Les listes avant celle-ci ne peuvent plus faire entrer un produit seules
+            while(true){
+                // Prochain produit : le plus petit ID restant dans les listes essentielles
+                int id = Integer.MAX_VALUE;
+                for(int i = premiereEssentielle; i < n; i++){
+                    id = Math.min(id, curseurs[i].id());
+                }
+                if(id == Integer.MAX_VALUE){
+                    break;
+                }
+                // Listes non essentielles : seul le bloc qui peut contenir id est cherché, sans lire ses IDs
+                double reste = 0;
+                int fin = Integer.MAX_VALUE;
+                for(int i = 0; i < premiereEssentielle; i++){
+                    curseurs[i].allerAuBloc(id);
+                    reste += curseurs[i].borneBloc();
+                    restes[i] = reste;
+                    fin = Math.min(fin, curseurs[i].finBloc());
+                }
+                if(meilleurs.complet()){
+                    // Borne des scores de id à fin, d'après les blocs courants de toutes les listes ;
+                    // une liste essentielle qui ne contient pas id n'a aucun produit avant son ID courant
+                    double borne = 0;
+                    for(int i = premiereEssentielle; i < n; i++){
+                        borne += curseurs[i].borneDepuis(id);
+                        fin = Math.min(fin, curseurs[i].finDepuis(id));
+                    }
+                    for(int i = premiereEssentielle - 1; i >= 0; i--){
+                        borne += curseurs[i].borneBloc();  // Même ordre d'addition que le score : majorant exact
+                    }
+                    // À borne égale au seuil, les produits suivants (ID plus grand) ne peuvent pas entrer
+                    if(borne <= meilleurs.seuil()){
+                        for(int i = premiereEssentielle; i < n; i++){
+                            curseurs[i].allerA(fin + 1);
+                        }
+                        continue;
+                    }
+                }
+                double score = 0;
+                for(int i = premiereEssentielle; i < n; i++){
+                    if(curseurs[i].id() == id){
+                        score += score(idf[i], curseurs[i].frequence(), id, longueurMoyenne);
+                        curseurs[i].avancer();
+                    }
+                }
+                // Compléter avec les listes non essentielles, tant que le produit peut encore entrer
+                for(int i = premiereEssentielle - 1; i >= 0 && score + restes[i] > meilleurs.seuil(); i--){
+                    curseurs[i].allerA(id);
+                    if(curseurs[i].id() == id){
+                        score += score(idf[i], curseurs[i].frequence(), id, longueurMoyenne);
+                    }
+                }
+                if(meilleurs.proposer(id, score)){
+                    while(premiereEssentielle < n && meilleurs.complet()
+                            && cumulMax[premiereEssentielle] <= meilleurs.seuil()){
+                        premiereEssentielle++;
+                    }
+                }
+            }
+        } finally {
+            verrou.readLock().unlock();
+        }
+        for(int id : meilleurs.parScoreDecroissant()){
+            resultats.add(Produit.findProduitById(id));
+        }
+        return resultats;
+    }
+
+    /**
+     * Contribution BM25 d'un terme au score d'un produit
+     * @param idf Poids du terme
+     * @param tf Nombre d'occurrences du terme dans le produit
+     * @param id ID du produit
+     * @param longueurMoyenne Longueur moyenne des produits indexés
+     * @return Contribution au score
+     */
+    private static double score(double idf, int tf, int id, double longueurMoyenne){
+        return contribution(idf, tf, longueurs[id], longueurMoyenne);
+    }
+
+    /**
+     * Formule BM25, croissante avec tf et décroissante avec la longueur : appliquée à la fréquence
+     * maximale et à la longueur minimale d'un bloc, elle donne (au calcul flottant près, qui est
+     * monotone) un majorant exact du score de chacun de ses produits
+     */
+    private static double contribution(double idf, int tf, int longueur, double longueurMoyenne){
+        return idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * longueur / longueurMoyenne));
+    }
+
+    /**
+     * Termes indexés pour un produit : nom et description
+     * @param produit Produit concerné
+     * @return Liste des termes du produit
+     */
+    private static List<String> termesDe(Produit produit){
+        List<String> termes = tokeniser(produit.getNom());
+        termes.addAll(tokeniser(produit.getDescription()));
+        return termes;
+    }
+
+    private static Map<String, Integer> compter(List<String> termes){
+        Map<String, Integer> frequences = new HashMap<>();
+        for(String terme : termes){
+            frequences.merge(terme, 1, Integer::sum);
+        }
+        return frequences;
+    }
+
+    /**
+     * Occurrences d'un terme : IDs de produits triés et nombre d'occurrences correspondant,
+     * répartis en blocs de taille bornée (une insertion ou un retrait ne décale qu'un bloc)
+     * Modifiée uniquement sous le verrou d'écriture
+     */
+    private static final class Occurrences {
+
+        private final List<Bloc> blocs = new ArrayList<>();
+        private int taille;
+
+        void ajouter(int id, int frequence, int longueur){
+            if(blocs.isEmpty()){
+                blocs.add(new Bloc());
+            }
+            int numero = blocDe(id);
+            Bloc bloc = blocs.get(numero);
+            bloc.inserer(id, frequence, longueur);
+            if(bloc.taille == 2 * Bloc.TAILLE){
+                blocs.add(numero + 1, bloc.couper());
+            }
+            taille++;
+        }
+
+        boolean retirer(int id){
+            if(blocs.isEmpty()){
+                return false;
+            }
+            int numero = blocDe(id);
+            Bloc bloc = blocs.get(numero);
+            if(!bloc.retirer(id)){
+                return false;
+            }
+            if(bloc.taille == 0){
+                blocs.remove(numero);
+            }
+            taille--;
+            return true;
+        }
+
+        // Dernier bloc dont le premier ID est inférieur ou égal à id (le premier bloc sinon)
+        private int blocDe(int id){
+            int bas = 0;
+            int haut = blocs.size() - 1;
+            while(bas < haut){
+                int milieu = (bas + haut + 1) >>> 1;
+                if(blocs.get(milieu).ids[0] <= id){
+                    bas = milieu;
+                } else {
+                    haut = milieu - 1;
+                }
+            }
+            return bas;
+        }
+    }
+
+    /**
+     * Bloc d'occurrences trié par ID (jamais vide une fois dans une liste)
+     * La fréquence maximale et la longueur minimale ne sont pas recalculées après un retrait :
+     * elles restent des bornes valables, seulement moins serrées
+     */
+    private static final class Bloc {
+
+        static final int TAILLE = 1024;  // Un bloc plein est coupé en deux blocs de cette taille
+
+        private int[] ids = new int[4];
+        private int[] frequences = new int[4];
+        private int taille;
+        private int frequenceMax;                       // Plus grande fréquence du bloc
+        private int longueurMin = Integer.MAX_VALUE;    // Longueur du plus court de ses produits
+
+        void inserer(int id, int frequence, int longueur){
+            frequenceMax = Math.max(frequenceMax, frequence);
+            longueurMin = Math.min(longueurMin, longueur);
+            int position = taille;
+            if(taille > 0 && ids[taille - 1] > id){
+                position = -Arrays.binarySearch(ids, 0, taille, id) - 1;  // Rare : réindexation d'un ancien produit
+            }
+            if(taille == ids.length){
+                int capacite = Math.min(2 * TAILLE, taille + (taille >> 1) + 1);
+                ids = Arrays.copyOf(ids, capacite);
+                frequences = Arrays.copyOf(frequences, capacite);
+            }
+            System.arraycopy(ids, position, ids, position + 1, taille - position);
+            System.arraycopy(frequences, position, frequences, position + 1, taille - position);
+            ids[position] = id;
+            frequences[position] = frequence;
+            taille++;
+        }
+
+        boolean retirer(int id){
+            int position = Arrays.binarySearch(ids, 0, taille, id);
+            if(position < 0){
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, taille - position - 1);
+            System.arraycopy(frequences, position + 1, frequences, position, taille - position - 1);
+            taille--;
+            return true;
+        }
+
+        /**
+         * Couper le bloc en deux
+         * @return Nouveau bloc contenant la seconde moitié
+         */
+        Bloc couper(){
+            Bloc suite = new Bloc();
+            suite.frequenceMax = frequenceMax;  // Bornes héritées, valables pour chaque moitié
+            suite.longueurMin = longueurMin;
+            suite.taille = taille - TAILLE;
+            suite.ids = Arrays.copyOfRange(ids, TAILLE, 2 * TAILLE);
+            suite.frequences = Arrays.copyOfRange(frequences, TAILLE, 2 * TAILLE);
+            taille = TAILLE;
+            return suite;
+        }
+    }
+
+    /**
+     * Position de lecture dans une liste d'occurrences, qui ne fait qu'avancer
+     */
+    private static final class Curseur {
+
+        private final List<Bloc> blocs;
+        private final double idf;
+        private final double longueurMoyenne;
+        private int bloc;
+        private int position;
+        private int blocBorne = -1;   // Bloc dont la borne est en cache
+        private double borne;
+
+        Curseur(Occurrences occurrences, double idf, double longueurMoyenne){
+            this.blocs = occurrences.blocs;
+            this.idf = idf;
+            this.longueurMoyenne = longueurMoyenne;
+        }
+
+        /**
+         * ID du produit courant, Integer.MAX_VALUE en fin de liste
+         */
+        int id(){
+            return bloc < blocs.size() ? blocs.get(bloc).ids[position] : Integer.MAX_VALUE;
+        }
+
+        int frequence(){
+            return blocs.get(bloc).frequences[position];
+        }
+
+        /**
+         * Score maximal que ce terme peut apporter à un produit du bloc courant
+         * (calculé une fois par bloc, 0 en fin de liste)
+         */
+        double borneBloc(){
+            if(bloc == blocs.size()){
+                return 0;
+            }
+            if(blocBorne != bloc){
+                Bloc courant = blocs.get(bloc);
+                borne = contribution(idf, courant.frequenceMax, courant.longueurMin, longueurMoyenne);
+                blocBorne = bloc;
+            }
+            return borne;
+        }
+
+        /**
+         * Dernier ID du bloc courant, Integer.MAX_VALUE en fin de liste
+         */
+        int finBloc(){
+            if(bloc == blocs.size()){
+                return Integer.MAX_VALUE;
+            }
+            Bloc courant = blocs.get(bloc);
+            return courant.ids[courant.taille - 1];
+        }
+
+        /**
+         * Score maximal que ce terme peut apporter à un produit d'ID compris entre id et finDepuis(id)
+         * Le curseur doit être placé sur id ou au-delà
+         */
+        double borneDepuis(int id){
+            return id() == id ? borneBloc() : 0;  // Aucun produit de la liste avant l'ID courant
+        }
+
+        /**
+         * Dernier ID couvert par borneDepuis(id) : fin du bloc courant, ou veille de l'ID courant
+         */
+        int finDepuis(int id){
+            int courant = id();
+            return courant == id ? finBloc() : courant - 1;
+        }
+
+        void avancer(){
+            if(++position == blocs.get(bloc).taille){
+                bloc++;
+                position = 0;
+            }
+        }
+
+        /**
+         * Avancer jusqu'au premier bloc dont le dernier ID est supérieur ou égal à id,
+         * en ne lisant que la fin des blocs sautés
+         */
+        void allerAuBloc(int id){
+            while(bloc < blocs.size() && blocs.get(bloc).ids[blocs.get(bloc).taille - 1] < id){
+                bloc++;
+                position = 0;
+            }
+        }
+
+        /**
+         * Avancer jusqu'au premier produit d'ID supérieur ou égal à id
+         * Les blocs entièrement inférieurs sont sautés sans être lus
+         */
+        void allerA(int id){
+            allerAuBloc(id);
+            if(bloc < blocs.size()){
+                Bloc courant = blocs.get(bloc);
+                if(courant.ids[position] >= id){
+                    return;  // Déjà placé, cas courant après le saut d'un bloc entier
+                }
+                int trouve = Arrays.binarySearch(courant.ids, position, courant.taille, id);
+                position = trouve >= 0 ? trouve : -trouve - 1;
+            }
+        }
+    }
+
+    /**
+     * Les k meilleurs produits, dans un tas dont la tête est le moins bon des produits gardés
+     * (à score égal, le plus petit ID est préféré)
+     */
+    private static final class Meilleurs {
+
+        private final int limite;
+        private int[] ids;
+        private double[] scores;
+        private int taille;
+
+        Meilleurs(int limite){
+            this.limite = limite;
+            this.ids = new int[Math.min(limite, 16)];
+            this.scores = new double[ids.length];
+        }
+
+        boolean complet(){
+            return taille == limite;
+        }
+
+        /**
+         * Score minimal pour entrer dans les résultats (0 tant qu'il reste de la place)
+         */
+        double seuil(){
+            return complet() ? scores[0] : 0;
+        }
+
+        /**
+         * Proposer un produit
+         * @return true si le seuil a pu changer
+         */
+        boolean proposer(int id, double score){
+            if(taille < limite){
+                if(taille == ids.length){
+                    int capacite = (int) Math.min(limite, 2L * taille);
+                    ids = Arrays.copyOf(ids, capacite);
+                    scores = Arrays.copyOf(scores, capacite);
+                }
+                ids[taille] = id;
+                scores[taille] = score;
+                monter(taille++);
+                return complet();
+            }
+            if(!pire(ids[0], scores[0], id, score)){
+                return false;
+            }
+            ids[0] = id;
+            scores[0] = score;
+            descendre(0);
+            return true;
+        }
+
+        List<Integer> parScoreDecroissant(){
+            Integer[] ordre = new Integer[taille];
+            for(int i = 0; i < taille; i++){
+                ordre[i] = i;
+            }
+            Arrays.sort(ordre, (a, b) -> pire(ids[a], scores[a], ids[b], scores[b]) ? 1 : pire(ids[b], scores[b], ids[a], scores[a]) ? -1 : 0);
+            List<Integer> resultat = new ArrayList<>(taille);
+            for(int i : ordre){
+                resultat.add(ids[i]);
+            }
+            return resultat;
+        }
+
+        // true si (idA, scoreA) est moins pertinent que (idB, scoreB)
+        private static boolean pire(int idA, double scoreA, int idB, double scoreB){
+            return scoreA < scoreB || (scoreA == scoreB && idA > idB);
+        }
+
+        private void monter(int i){
+            while(i > 0){
+                int parent = (i - 1) / 2;
+                if(!pire(ids[i], scores[i], ids[parent], scores[parent])){
+                    return;
+                }
+                echanger(i, parent);
+                i = parent;
+            }
+        }
+
+        private void descendre(int i){
+            while(true){
+                int plusPetit = i;
+                for(int enfant = 2 * i + 1; enfant <= 2 * i + 2 && enfant < taille; enfant++){
+                    if(pire(ids[enfant], scores[enfant], ids[plusPetit], scores[plusPetit])){
+                        plusPetit = enfant;
+                    }
+                }
+                if(plusPetit == i){
+                    return;
+                }
+                echanger(i, plusPetit);
+                i = plusPetit;
+            }
+        }
+
+        private void echanger(int i, int j){
+            int id = ids[i];
+            ids[i] = ids[j];
+            ids[j] = id;
+            double score = scores[i];
+            scores[i] = scores[j];
+            scores[j] = score;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package produit;
+
+/**
+ * Ordres de tri disponibles pour la pagination des produits
+ * Les produits de même clé sont départagés par leur ID
+ */
+public enum TriProduit {
+    ID,    // Par identifiant croissant
+    NOM,   // Par nom (ordre alphabétique, sans tenir compte des accents ni de la casse)
+    PRIX   // Par prix croissant
+}
@@ -0,0 +1,613 @@
+package sauvegarde;
+
+import account.Account;
+import account.Admin;
+import account.DictionnaireZones;
+import account.Localisation;
+import account.User;
+import commande.Panier;
+import commande.QteProduit;
+import produit.Category;
+import produit.Produit;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Instantané binaire de l'état du système : produits, catégories, comptes et commandes
+ * Les références entre objets sont écrites sous forme d'identifiants : ID des produits
+ * d'une catégorie ou d'une ligne de commande, rang du compte propriétaire d'une commande,
+ * identifiants de ville et de secteur (la table des noms est écrite en tête de fichier).
+ *
+ * L'écriture passe par un fichier temporaire, forcé sur disque puis renommé : un arrêt
+ * pendant la sauvegarde laisse l'instantané précédent intact. Le fichier se termine par
+ * le CRC32 de son contenu, vérifié avant toute restauration.
+ *
+ * La lecture projette le fichier en mémoire par fenêtres d'au plus 1 Go (un fichier de
+ * plusieurs Go est donc lu sans copie intermédiaire) et recrée les objets directement,
+ * sans message ni nouveau calcul des empreintes de mot de passe.
+ *
+ * Format (entiers big-endian, chaînes : longueur en octets puis UTF-8, -1 pour null) :
+ * en-tête (MAGIQUE, VERSION), noms de villes et secteurs, produits, catégories, comptes,
+ * commandes ; chaque section commence par son nombre d'éléments.
+ */
+public final class Instantane {
+
+    private static final int MAGIQUE = 0x45534850;  // "ESHP"
+    private static final int VERSION = 1;
+
+    private static final byte UTILISATEUR = 0;
+    private static final byte ADMINISTRATEUR = 1;
+    private static final byte UTILISATEUR_NON_ENREGISTRE = 2;  // Propriétaire d'une commande absent de la base
+
+    private static final long TAILLE_FENETRE = 1L << 30;  // Fenêtre de projection (1 Go)
+
+    private Instantane(){
+        // Classe utilitaire, pas d'instance
+    }
+
+    /**
+     * Écrire l'état courant dans un fichier (remplacé de façon atomique)
+     * Tout ce qui est écrit est d'abord relevé une seule fois, des commandes vers les noms de zones :
+     * commandes (statut et zone), catégories (liste de produits), comptes (adresse), puis produits
+     * et noms de villes et secteurs jusqu'au plus grand identifiant référencé. Un objet référencé
+     * (produit d'une ligne ou d'une catégorie, propriétaire d'une commande, nom d'une zone) est donc
+     * toujours présent dans l'instantané, même si le système continue d'être modifié pendant la sauvegarde
+     * @param fichier Fichier de destination
+     * @return Bilan de la sauvegarde
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    public static Bilan ecrire(Path fichier) throws IOException {
+        long debut = System.nanoTime();
+        int maxProduit = -1;
+        int maxNom = -1;
+
+        // Les lignes d'une commande validée ne changent plus : seuls le statut et la zone sont relevés
+        List<Panier> listeCommandes = Panier.getAllOrders();
+        List<CommandeRelevee> commandes = new ArrayList<>(listeCommandes.size());
+        for(Panier commande : listeCommandes){
+            CommandeRelevee relevee = new CommandeRelevee(commande);
+            for(QteProduit ligne : relevee.lignes){
+                maxProduit = Math.max(maxProduit, ligne.getProduit().getId());
+            }
+            maxNom = Math.max(maxNom, Math.max((int) (relevee.zone >> 32), (int) relevee.zone));
+            commandes.add(relevee);
+        }
+
+        List<Category> listeCategories = Category.findTouteCategory();
+        List<CategorieRelevee> categories = new ArrayList<>(listeCategories.size());
+        for(Category category : listeCategories){
+            CategorieRelevee relevee = new CategorieRelevee(category);
+            for(Produit produit : relevee.produits){
+                maxProduit = Math.max(maxProduit, produit.getId());
+            }
+            categories.add(relevee);
+        }
+
+        // Rang de chaque compte ; les propriétaires de commandes non enregistrés sont ajoutés à la suite
+        List<Account> enregistres = Account.getAllAccounts();
+        Map<Account, Integer> rangs = new IdentityHashMap<>(enregistres.size() * 2);
+        List<CompteReleve> comptes = new ArrayList<>(enregistres.size());
+        for(Account compte : enregistres){
+            rangs.put(compte, rangs.size());
+            comptes.add(new CompteReleve(compte, compte instanceof Admin ? ADMINISTRATEUR : UTILISATEUR));
+        }
+        for(CommandeRelevee commande : commandes){
+            if(!rangs.containsKey(commande.user)){
+                rangs.put(commande.user, rangs.size());
+                comptes.add(new CompteReleve(commande.user, UTILISATEUR_NON_ENREGISTRE));
+            }
+        }
+        for(CompteReleve compte : comptes){
+            maxNom = Math.max(maxNom, Math.max(compte.ville, compte.secteur));
+        }
+
+        // Produits et noms sont attribués avant d'être référencés : il suffit d'attendre que
+        // ceux en cours de création par d'autres threads soient publiés
+        List<Produit> produits = Produit.getAllProducts();
+        while(produits.size() <= maxProduit){
+            Thread.yield();
+            produits = Produit.getAllProducts();
+        }
+        List<String> noms = new ArrayList<>();
+        while(true){
+            String nom = DictionnaireZones.decoder(noms.size());
+            if(nom != null){
+                noms.add(nom);
+            } else if(noms.size() <= maxNom){
+                Thread.yield();
+            } else {
+                break;
+            }
+        }
+
+        Path temporaire = fichier.resolveSibling(fichier.getFileName() + ".tmp");
+        FileOutputStream fluxFichier = new FileOutputStream(temporaire.toFile());
+        CheckedOutputStream controle = new CheckedOutputStream(fluxFichier, new CRC32());
+        try(DataOutputStream sortie = new DataOutputStream(new BufferedOutputStream(controle, 1 << 16))){
+            sortie.writeInt(MAGIQUE);
+            sortie.writeInt(VERSION);
+
+            sortie.writeInt(noms.size());
+            for(String nom : noms){
+                ecrireChaine(sortie, nom);
+            }
+
+            sortie.writeInt(produits.size());
+            for(Produit produit : produits){
+                ecrireChaine(sortie, produit.getNom());
+                ecrireChaine(sortie, produit.getDescription());
+                sortie.writeLong(produit.getPrixCentimes());
+            }
+
+            sortie.writeInt(categories.size());
+            for(CategorieRelevee category : categories){
+                ecrireChaine(sortie, category.nom);
+                ecrireChaine(sortie, category.description);
+                sortie.writeInt(category.produits.size());
+                for(Produit produit : category.produits){
+                    sortie.writeInt(produit.getId());
+                }
+            }
+
+            sortie.writeInt(comptes.size());
+            for(CompteReleve compte : comptes){
+                sortie.writeByte(compte.type);
+                ecrireChaine(sortie, compte.nom);
+                ecrireChaine(sortie, compte.prenom);
+                ecrireChaine(sortie, compte.email);
+                ecrireChaine(sortie, compte.empreinte);
+                if(compte.type != ADMINISTRATEUR){
+                    sortie.writeBoolean(compte.adresse);
+                    if(compte.adresse){
+                        sortie.writeInt(compte.ville);
+                        sortie.writeInt(compte.secteur);
+                        ecrireChaine(sortie, compte.description);
+                    }
+                }
+            }
+
+            sortie.writeInt(commandes.size());
+            for(CommandeRelevee commande : commandes){
+                sortie.writeInt(commande.id);
+                sortie.writeInt(rangs.get(commande.user));
+                sortie.writeBoolean(commande.livree);
+                sortie.writeLong(commande.zone);
+                sortie.writeInt(commande.lignes.size());
+                for(QteProduit ligne : commande.lignes){
+                    sortie.writeInt(ligne.getProduit().getId());
+                    sortie.writeInt(ligne.getQuantite());
+                    sortie.writeLong(ligne.getPrixUnitaireCentimes());
+                }
+            }
+
+            sortie.flush();
+            sortie.writeInt((int) controle.getChecksum().getValue());  // Hors du contrôle : écrit en dernier
+            sortie.flush();
+            fluxFichier.getFD().sync();
+        }
+        Files.move(temporaire, fichier, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new Bilan(produits.size(), categories.size(), comptes.size(), commandes.size(),
+                Files.size(fichier), System.nanoTime() - debut);
+    }
+
+    /**
+     * Restaurer l'état enregistré dans un fichier
+     * Doit être appelé au démarrage, avant toute création de produit, catégorie, compte ou commande
+     * (les identifiants des produits et des commandes sont repris tels quels)
+     * Le fichier est entièrement lu et vérifié (CRC32, puis chaque référence) avant la première
+     * restauration : un fichier refusé ne laisse aucun état partiel
+     * @param fichier Instantané à lire
+     * @return Bilan de la restauration
+     * @throws IOException en cas d'erreur de lecture ou si le fichier est corrompu
+     * @throws IllegalStateException si le système contient déjà des données
+     */
+    public static Bilan charger(Path fichier) throws IOException {
+        if(!Produit.getAllProducts().isEmpty() || !Category.findTouteCategory().isEmpty()
+                || !Account.getAllAccounts().isEmpty() || !Panier.getAllOrders().isEmpty()){
+            throw new IllegalStateException("Un instantané ne peut être chargé que dans un système vide");
+        }
+        long debut = System.nanoTime();
+        try(FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)){
+            long taille = canal.size();
+            if(taille < 12){
+                throw new IOException("Instantané tronqué: " + fichier);
+            }
+            verifierControle(canal, taille);
+            lire(new Lecteur(canal, taille - 4), false);  // Vérification seule
+            Bilan bilan = lire(new Lecteur(canal, taille - 4), true);
+            return new Bilan(bilan.produits, bilan.categories, bilan.comptes, bilan.commandes,
+                    taille, System.nanoTime() - debut);
+        }
+    }
+
+    /**
+     * Parcourir un instantané, pour le vérifier ou pour le restaurer
+     * La vérification contrôle chaque nombre d'éléments et chaque référence (noms de zones,
+     * produits, rang et type du propriétaire, identifiants de commande uniques) sans rien créer
+     * @param entree Lecteur placé au début du fichier
+     * @param restaurer false pour vérifier seulement, true pour recréer les objets
+     * @return Bilan (sans taille ni durée)
+     * @throws IOException si le fichier est tronqué ou incohérent
+     */
+    private static Bilan lire(Lecteur entree, boolean restaurer) throws IOException {
+        if(entree.lireInt() != MAGIQUE || entree.lireInt() != VERSION){
+            throw new IOException("Format d'instantané inconnu");
+        }
+
+        // Les noms de villes et de secteurs reçoivent de nouveaux identifiants
+        int[] nouveauxIds = new int[lireNombre(entree)];
+        for(int i = 0; i < nouveauxIds.length; i++){
+            String nom = entree.lireChaine();
+            if(nom == null){
+                throw new IOException("Nom de zone absent dans l'instantané: " + i);
+            }
+            if(restaurer){
+                nouveauxIds[i] = DictionnaireZones.encoder(nom);
+            }
+        }
+
+        int nombreProduits = lireNombre(entree);
+        for(int id = 0; id < nombreProduits; id++){
+            String nom = restaurer ? entree.lireChaine() : entree.sauterChaine();
+            String description = restaurer ? entree.lireChaine() : entree.sauterChaine();
+            long prix = entree.lireLong();
+            if(restaurer){
+                Produit produit = Produit.enCentimes(nom, description, prix);
+                if(produit.getId() != id){
+                    throw new IllegalStateException("Identifiant de produit inattendu: " + produit.getId() + " au lieu de " + id);
+                }
+            }
+        }
+
+        int nombreCategories = lireNombre(entree);
+        Set<String> nomsCategories = new HashSet<>();   // Clés normalisées, comme l'index de Category
+        for(int i = 0; i < nombreCategories; i++){
+            String nom = entree.lireChaine();
+            String description = entree.lireChaine();
+            if(nom == null || !nomsCategories.add(Category.cleCategorie(nom))){
+                throw new IOException("Nom de catégorie absent ou en double dans l'instantané: " + nom);
+            }
+            int nombre = lireNombre(entree);
+            List<Produit> contenu = restaurer ? new ArrayList<>(nombre) : null;
+            for(int j = 0; j < nombre; j++){
+                int id = verifierProduit(entree.lireInt(), nombreProduits);
+                if(restaurer){
+                    contenu.add(Produit.findProduitById(id));
+                }
+            }
+            if(restaurer){
+                Category.restaurer(nom, description, contenu);
+            }
+        }
+
+        int nombreComptes = lireNombre(entree);
+        byte[] types = new byte[nombreComptes];
+        User[] utilisateurs = restaurer ? new User[nombreComptes] : null;
+        for(int rang = 0; rang < nombreComptes; rang++){
+            byte type = entree.lireOctet();
+            if(type != UTILISATEUR && type != ADMINISTRATEUR && type != UTILISATEUR_NON_ENREGISTRE){
+                throw new IOException("Type de compte inconnu dans l'instantané: " + type);
+            }
+            types[rang] = type;
+            String nom = restaurer ? entree.lireChaine() : entree.sauterChaine();
+            String prenom = restaurer ? entree.lireChaine() : entree.sauterChaine();
+            String email = restaurer ? entree.lireChaine() : entree.sauterChaine();
+            String empreinte = restaurer ? entree.lireChaine() : entree.sauterChaine();
+            if(type == ADMINISTRATEUR){
+                if(restaurer){
+                    Admin.restaurer(nom, prenom, email, empreinte);
+                }
+                continue;
+            }
+            Localisation adresse = null;
+            if(entree.lireOctet() != 0){
+                int ville = verifierNom(entree.lireInt(), nouveauxIds.length);
+                int secteur = verifierNom(entree.lireInt(), nouveauxIds.length);
+                String description = restaurer ? entree.lireChaine() : entree.sauterChaine();
+                if(restaurer){
+                    adresse = new Localisation(nom(nouveauxIds, ville), nom(nouveauxIds, secteur), description);
+                }
+            }
+            if(restaurer){
+                utilisateurs[rang] = User.restaurer(nom, prenom, email, empreinte, adresse, type == UTILISATEUR);
+            }
+        }
+
+        int nombreCommandes = lireNombre(entree);
+        BitSet idsCommandes = new BitSet();
+        for(int i = 0; i < nombreCommandes; i++){
+            int id = entree.lireInt();
+            if(id < 0 || idsCommandes.get(id)){
+                throw new IOException("Identifiant de commande invalide ou en double dans l'instantané: " + id);
+            }
+            idsCommandes.set(id);
+            int rang = entree.lireInt();
+            if(rang < 0 || rang >= nombreComptes || types[rang] == ADMINISTRATEUR){
+                throw new IOException("Propriétaire invalide pour la commande " + id + ": " + rang);
+            }
+            boolean livree = entree.lireOctet() != 0;
+            long zone = entree.lireLong();
+            int ville = verifierNom((int) (zone >> 32), nouveauxIds.length);
+            int secteur = verifierNom((int) zone, nouveauxIds.length);
+            int nombreLignes = lireNombre(entree);
+            List<QteProduit> lignes = restaurer ? new ArrayList<>(nombreLignes) : null;
+            for(int j = 0; j < nombreLignes; j++){
+                int produit = verifierProduit(entree.lireInt(), nombreProduits);
+                int quantite = entree.lireInt();
+                long prixUnitaire = entree.lireLong();
+                if(restaurer){
+                    lignes.add(new QteProduit(Produit.findProduitById(produit), quantite, prixUnitaire));
+                }
+            }
+            if(restaurer){
+                Panier.restaurer(id, utilisateurs[rang], lignes, DictionnaireZones.zone(
+                        idZone(nouveauxIds, ville), idZone(nouveauxIds, secteur)), livree);
+            }
+        }
+        return new Bilan(nombreProduits, nombreCategories, nombreComptes, nombreCommandes, 0, 0);
+    }
+
+    private static int lireNombre(Lecteur entree) throws IOException {
+        int nombre = entree.lireInt();
+        if(nombre < 0){
+            throw new IOException("Nombre d'éléments négatif dans l'instantané: " + nombre);
+        }
+        return nombre;
+    }
+
+    private static int verifierProduit(int id, int nombreProduits) throws IOException {
+        if(id < 0 || id >= nombreProduits){
+            throw new IOException("Produit inconnu dans l'instantané: " + id);
+        }
+        return id;
+    }
+
+    private static int verifierNom(int id, int nombreNoms) throws IOException {
+        if(id != DictionnaireZones.AUCUN && (id < 0 || id >= nombreNoms)){
+            throw new IOException("Nom de zone inconnu dans l'instantané: " + id);
+        }
+        return id;
+    }
+
+    private static String nom(int[] nouveauxIds, int ancienId){
+        return DictionnaireZones.decoder(idZone(nouveauxIds, ancienId));
+    }
+
+    private static int idZone(int[] nouveauxIds, int ancienId){
+        return ancienId == DictionnaireZones.AUCUN ? DictionnaireZones.AUCUN : nouveauxIds[ancienId];
+    }
+
+    /**
+     * Vérifier le CRC32 final avant de restaurer quoi que ce soit
+     */
+    private static void verifierControle(FileChannel canal, long taille) throws IOException {
+        CRC32 crc = new CRC32();
+        for(long position = 0; position < taille - 4; position += TAILLE_FENETRE){
+            crc.update(canal.map(FileChannel.MapMode.READ_ONLY, position, Math.min(TAILLE_FENETRE, taille - 4 - position)));
+        }
+        int attendu = canal.map(FileChannel.MapMode.READ_ONLY, taille - 4, 4).getInt();
+        if((int) crc.getValue() != attendu){
+            throw new IOException("Instantané corrompu (CRC32 invalide)");
+        }
+    }
+
+    private static void ecrireChaine(DataOutputStream sortie, String valeur) throws IOException {
+        if(valeur == null){
+            sortie.writeInt(-1);
+            return;
+        }
+        byte[] octets = valeur.getBytes(StandardCharsets.UTF_8);
+        sortie.writeInt(octets.length);
+        sortie.write(octets);
+    }
+
+    /**
+     * Commande relevée au début de la sauvegarde
+     */
+    private static final class CommandeRelevee {
+        final int id;
+        final User user;
+        final boolean livree;
+        final long zone;
+        final Collection<QteProduit> lignes;  // Figées depuis la validation
+
+        CommandeRelevee(Panier commande){
+            this.id = commande.getId();
+            this.user = commande.getUser();
+            this.livree = commande.getStatus() == 2;
+            this.zone = commande.getZoneLivraison();
+            this.lignes = commande.getProduits();
+        }
+    }
+
+    /**
+     * Catégorie relevée au début de la sauvegarde
+     */
+    private static final class CategorieRelevee {
+        final String nom;
+        final String description;
+        final List<Produit> produits;  // Instantané de la liste
+
+        CategorieRelevee(Category category){
+            this.nom = category.getNom();
+            this.description = category.getDescription();
+            this.produits = category.getProduits();
+        }
+    }
+
+    /**
+     * Compte relevé au début de la sauvegarde, avec son adresse à cet instant
+     */
+    private static final class CompteReleve {
+        final byte type;
+        final String nom;
+        final String prenom;
+        final String email;
+        final String empreinte;
+        final boolean adresse;
+        final int ville;
+        final int secteur;
+        final String description;
+
+        CompteReleve(Account compte, byte type){
+            this.type = type;
+            this.nom = compte.getNom();
+            this.prenom = compte.getPrenom();
+            this.email = compte.getEmail();
+            this.empreinte = compte.getEmpreinteMotDePasse();
+            Localisation localisation = compte instanceof User ? ((User) compte).getAddress() : null;
+            this.adresse = localisation != null;
+            this.ville = adresse ? localisation.getIdVille() : DictionnaireZones.AUCUN;
+            this.secteur = adresse ? localisation.getIdSecteur() : DictionnaireZones.AUCUN;
+            this.description = adresse ? localisation.getDescription() : null;
+        }
+    }
+
+    /**
+     * Lecture séquentielle d'un fichier projeté en mémoire par fenêtres successives
+     * Une fenêtre est projetée à nouveau à partir de la position courante lorsque
+     * la valeur suivante risque de la dépasser
+     */
+    private static class Lecteur {
+
+        private final FileChannel canal;
+        private final long fin;
+        private long debutFenetre;
+        private MappedByteBuffer fenetre;
+        private byte[] tampon = new byte[256];
+
+        Lecteur(FileChannel canal, long fin) throws IOException {
+            this.canal = canal;
+            this.fin = fin;
+            projeter(0);
+        }
+
+        private void projeter(long position) throws IOException {
+            debutFenetre = position;
+            fenetre = canal.map(FileChannel.MapMode.READ_ONLY, position, Math.min(TAILLE_FENETRE, fin - position));
+        }
+
+        private void exiger(int octets) throws IOException {
+            if(fenetre.remaining() < octets){
+                long position = debutFenetre + fenetre.position();
+                if(fin - position < octets){
+                    throw new IOException("Instantané tronqué");
+                }
+                projeter(position);
+            }
+        }
+
+        byte lireOctet() throws IOException {
+            exiger(1);
+            return fenetre.get();
+        }
+
+        int lireInt() throws IOException {
+            exiger(4);
+            return fenetre.getInt();
+        }
+
+        long lireLong() throws IOException {
+            exiger(8);
+            return fenetre.getLong();
+        }
+
+        String lireChaine() throws IOException {
+            int longueur = lireInt();
+            if(longueur < 0){
+                return null;
+            }
+            exiger(longueur);
+            if(tampon.length < longueur){
+                tampon = new byte[Math.max(longueur, tampon.length * 2)];
+            }
+            fenetre.get(tampon, 0, longueur);
+            return new String(tampon, 0, longueur, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Passer une chaîne sans la décoder (vérification)
+         * @return null
+         */
+        String sauterChaine() throws IOException {
+            int longueur = lireInt();
+            if(longueur > 0){
+                exiger(longueur);
+                fenetre.position(fenetre.position() + longueur);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Bilan d'une sauvegarde ou d'une restauration
+     */
+    public static class Bilan {
+
+        private final long produits;
+        private final long categories;
+        private final long comptes;
+        private final long commandes;
+        private final long octets;      // Taille du fichier
+        private final long dureeNanos;
+
+        Bilan(long produits, long categories, long comptes, long commandes, long octets, long dureeNanos){
+            this.produits = produits;
+            this.categories = categories;
+            this.comptes = comptes;
+            this.commandes = commandes;
+            this.octets = octets;
+            this.dureeNanos = dureeNanos;
+        }
+
+        public long getProduits(){
+            return produits;
+        }
+
+        public long getCategories(){
+            return categories;
+        }
+
+        public long getComptes(){
+            return comptes;
+        }
+
+        public long getCommandes(){
+            return commandes;
+        }
+
+        public long getOctets(){
+            return octets;
+        }
+
+        public long getDureeNanos(){
+            return dureeNanos;
+        }
+
+        @Override
+        public String toString(){
+            return String.format("%d produits, %d catégories, %d comptes, %d commandes (%d Mo) en %.2f s",
+                    produits, categories, comptes, commandes, octets >> 20, dureeNanos / 1e9);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package session;
+
+import account.Account;
+import commande.Panier;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Registre concurrent des sessions ouvertes
+ * Les sessions sont retrouvées par leur jeton dans une table de hachage (temps constant).
+ * L'expiration des sessions inactives utilise une roue temporelle hachée : chaque session
+ * est rangée dans la case de son échéance, et seules les cases dont le tick est écoulé sont
+ * parcourues. Un accès repousse l'échéance sans déplacer la session ; c'est au passage de
+ * sa case que la session est soit expirée, soit rangée dans la case de sa nouvelle échéance.
+ * Une déconnexion retire la session de la table et laisse son entrée dans la roue,
+ * qui sera simplement ignorée.
+ */
+public class GestionnaireSessions {
+
+    private static final int TAILLE_ROUE = 512;      // Nombre de cases de la roue
+    private static final int TICKS_PAR_DUREE = 64;   // Précision de l'expiration
+    private static final int TAILLE_JETON = 32;      // Octets aléatoires par jeton
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final List<Queue<Session>> roue = new ArrayList<>(TAILLE_ROUE);
+    private final SecureRandom alea = new SecureRandom();
+
+    private final long dureeTick;         // Nanosecondes
+    private final long ticksInactivite;   // Durée d'inactivité exprimée en ticks
+    private final long origine = System.nanoTime();
+
+    // Un seul thread à la fois fait avancer la roue ; les autres ne l'attendent pas
+    private final ReentrantLock avance = new ReentrantLock();
+    private long dernierTick = 0;  // Dernier tick traité (protégé par avance)
+
+    /**
+     * Créer un registre de sessions
+     * @param dureeInactivite Durée d'inactivité après laquelle une session expire
+     * @param unite Unité de la durée
+     */
+    public GestionnaireSessions(long dureeInactivite, TimeUnit unite){
+        long duree = unite.toNanos(dureeInactivite);
+        if(duree <= 0){
+            throw new IllegalArgumentException("Durée d'inactivité invalide: " + dureeInactivite);
+        }
+        this.dureeTick = Math.max(1, duree / TICKS_PAR_DUREE);
+        this.ticksInactivite = (duree + dureeTick - 1) / dureeTick;
+        for(int i = 0; i < TAILLE_ROUE; i++){
+            roue.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    /**
+     * Ouvrir une session pour un compte authentifié
+     * @param compte Compte connecté
+     * @param panier Panier en cours (null pour un administrateur)
+     * @return La nouvelle session, identifiée par un jeton aléatoire
+     */
+    public Session ouvrir(Account compte, Panier panier){
+        avancer();
+        Session session = new Session(nouveauJeton(), compte, panier, tickCourant() + ticksInactivite);
+        sessions.put(session.getJeton(), session);
+        planifier(session);
+        return session;
+    }
+
+    /**
+     * Retrouver une session active et repousser son expiration
+     * @param jeton Jeton de la session
+     * @return La session, ou null si le jeton est inconnu ou la session expirée
+     */
+    public Session trouver(String jeton){
+        avancer();
+        Session session = jeton == null ? null : sessions.get(jeton);
+        if(session == null){
+            return null;
+        }
+        long maintenant = tickCourant();
+        if(session.echeance <= maintenant){
+            expirer(session);  // Échéance dépassée, même si sa case n'a pas encore été traitée
+            return null;
+        }
+        session.echeance = maintenant + ticksInactivite;
+        return session.fermee ? null : session;
+    }
+
+    /**
+     * Fermer une session (déconnexion) en temps constant
+     * @param jeton Jeton de la session
+     * @return true si la session était ouverte
+     */
+    public boolean fermer(String jeton){
+        Session session = jeton == null ? null : sessions.remove(jeton);
+        if(session == null){
+            return false;
+        }
+        session.fermee = true;
+        return true;
+    }
+
+    /**
+     * Nombre de sessions ouvertes (les sessions expirées pas encore traitées sont comptées)
+     * @return Nombre de sessions
+     */
+    public int getNombreSessions(){
+        return sessions.size();
+    }
+
+    /**
+     * Traiter les cases de la roue dont le tick est écoulé
+     * Si la roue a pris plus d'un tour de retard, chaque case n'est parcourue qu'une fois
+     */
+    private void avancer(){
+        if(!avance.tryLock()){
+            return;  // Un autre thread est déjà en train d'avancer la roue
+        }
+        try {
+            long maintenant = tickCourant();
+            if(maintenant <= dernierTick){
+                return;
+            }
+            List<Session> aReplanifier = new ArrayList<>();
+            for(long tick = Math.max(dernierTick + 1, maintenant - TAILLE_ROUE + 1); tick <= maintenant; tick++){
+                Queue<Session> case_ = roue.get((int) (tick % TAILLE_ROUE));
+                Session session;
+                while((session = case_.poll()) != null){
+                    if(session.fermee){
+                        continue;  // Entrée périmée d'une session déjà fermée
+                    }
+                    if(session.echeance <= maintenant){
+                        expirer(session);
+                    } else {
+                        aReplanifier.add(session);  // Accédée depuis : nouvelle échéance
+                    }
+                }
+            }
+            // Replanifier après le parcours, une session pouvant revenir dans une case déjà vidée
+            for(Session session : aReplanifier){
+                planifier(session);
+            }
+            dernierTick = maintenant;
+        } finally {
+            avance.unlock();
+        }
+    }
+
+    private void planifier(Session session){
+        roue.get((int) (session.echeance % TAILLE_ROUE)).add(session);
+    }
+
+    private void expirer(Session session){
+        session.fermee = true;
+        sessions.remove(session.getJeton(), session);
+    }
+
+    private long tickCourant(){
+        return (System.nanoTime() - origine) / dureeTick;
+    }
+
+    private String nouveauJeton(){
+        byte[] octets = new byte[TAILLE_JETON];
+        alea.nextBytes(octets);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(octets);
+    }
+}
@@ -0,0 +1,67 @@
+package session;
+
+import account.Account;
+import account.Admin;
+import account.User;
+import commande.Panier;
+
+/**
+ * Session d'un compte connecté
+ * Associe un jeton opaque au compte authentifié et à son panier en cours
+ */
+public class Session {
+
+    private final String jeton;
+    private final Account compte;
+    private volatile Panier panier;  // Panier en cours (null pour un administrateur)
+
+    // Tick de la roue temporelle à partir duquel la session expire,
+    // repoussé à chaque accès sans déplacer la session dans la roue
+    volatile long echeance;
+
+    // Session fermée (déconnexion ou expiration) : son entrée dans la roue est ignorée
+    volatile boolean fermee = false;
+
+    Session(String jeton, Account compte, Panier panier, long echeance){
+        this.jeton = jeton;
+        this.compte = compte;
+        this.panier = panier;
+        this.echeance = echeance;
+    }
+
+    public String getJeton(){
+        return this.jeton;
+    }
+
+    public Account getCompte(){
+        return this.compte;
+    }
+
+    /**
+     * Obtenir l'utilisateur connecté
+     * @return L'utilisateur, ou null si la session est celle d'un administrateur
+     */
+    public User getUser(){
+        return compte instanceof User ? (User) compte : null;
+    }
+
+    /**
+     * Obtenir l'administrateur connecté
+     * @return L'administrateur, ou null si la session est celle d'un utilisateur
+     */
+    public Admin getAdmin(){
+        return compte instanceof Admin ? (Admin) compte : null;
+    }
+
+    public Panier getPanier(){
+        return this.panier;
+    }
+
+    public void setPanier(Panier panier){
+        this.panier = panier;
+    }
+
+    public boolean isFermee(){
+        return this.fermee;
+    }
+}
@@ -0,0 +1,128 @@
+package statistiques;
+
+/**
+ * Fenêtre glissante de montants, découpée en cases de durée fixe rangées en anneau
+ * Une case est réutilisée (remise à zéro) dès que le temps a fait un tour complet :
+ * la mémoire est fixe et une requête ne parcourt que les cases de la fenêtre,
+ * jamais les commandes elles-mêmes.
+ */
+public class FenetreGlissante {
+
+    private final Case[] cases;
+    private final long dureeCase;  // Millisecondes
+
+    /**
+     * Créer une fenêtre glissante
+     * @param nombreCases Nombre de cases de l'anneau
+     * @param dureeCase Durée couverte par chaque case, en millisecondes
+     * @param avecHistogramme true pour conserver aussi la distribution des montants de chaque case
+     */
+    public FenetreGlissante(int nombreCases, long dureeCase, boolean avecHistogramme){
+        this.cases = new Case[nombreCases];
+        this.dureeCase = dureeCase;
+        for(int i = 0; i < nombreCases; i++){
+            cases[i] = new Case(avecHistogramme ? new Histogramme() : null);
+        }
+    }
+
+    /**
+     * Enregistrer un montant
+     * @param instant Instant de l'événement (millisecondes depuis l'époque Unix)
+     * @param montant Montant en centimes
+     */
+    public void ajouter(long instant, long montant){
+        long periode = instant / dureeCase;
+        Case c = cases[(int) (periode % cases.length)];
+        synchronized(c){
+            if(c.periode != periode){
+                c.vider(periode);  // La case contenait une période trop ancienne
+            }
+            c.somme += montant;
+            c.nombre++;
+            if(c.histogramme != null){
+                c.histogramme.enregistrer(montant);
+            }
+        }
+    }
+
+    /**
+     * Somme des montants de la fenêtre
+     * @param maintenant Instant de la requête (millisecondes depuis l'époque Unix)
+     * @return Somme en centimes
+     */
+    public long getSomme(long maintenant){
+        long periode = maintenant / dureeCase;
+        long somme = 0;
+        for(Case c : cases){
+            synchronized(c){
+                if(c.estDansFenetre(periode, cases.length)){
+                    somme += c.somme;
+                }
+            }
+        }
+        return somme;
+    }
+
+    /**
+     * Nombre d'événements de la fenêtre
+     * @param maintenant Instant de la requête (millisecondes depuis l'époque Unix)
+     * @return Nombre d'événements
+     */
+    public long getNombre(long maintenant){
+        long periode = maintenant / dureeCase;
+        long nombre = 0;
+        for(Case c : cases){
+            synchronized(c){
+                if(c.estDansFenetre(periode, cases.length)){
+                    nombre += c.nombre;
+                }
+            }
+        }
+        return nombre;
+    }
+
+    /**
+     * Distribution des montants de la fenêtre, par fusion des histogrammes des cases
+     * @param maintenant Instant de la requête (millisecondes depuis l'époque Unix)
+     * @return Nouvel histogramme (vide si la fenêtre a été créée sans histogramme)
+     */
+    public Histogramme getHistogramme(long maintenant){
+        long periode = maintenant / dureeCase;
+        Histogramme fusion = new Histogramme();
+        for(Case c : cases){
+            synchronized(c){
+                if(c.histogramme != null && c.estDansFenetre(periode, cases.length)){
+                    fusion.fusionner(c.histogramme);
+                }
+            }
+        }
+        return fusion;
+    }
+
+    /**
+     * Case de l'anneau : totaux d'une période
+     */
+    private static class Case {
+        long periode = -1;  // Numéro de la période couverte (instant / durée de case)
+        long somme;
+        long nombre;
+        final Histogramme histogramme;
+
+        Case(Histogramme histogramme){
+            this.histogramme = histogramme;
+        }
+
+        void vider(long periode){
+            this.periode = periode;
+            this.somme = 0;
+            this.nombre = 0;
+            if(histogramme != null){
+                histogramme.vider();
+            }
+        }
+
+        boolean estDansFenetre(long periodeCourante, int nombreCases){
+            return periode > periodeCourante - nombreCases && periode <= periodeCourante;
+        }
+    }
+}
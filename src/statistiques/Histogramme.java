@@ -0,0 +1,112 @@
+package statistiques;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogramme log-linéaire de valeurs entières positives, à mémoire fixe
+ * Chaque puissance de deux est découpée en 32 intervalles de même largeur : une valeur
+ * est retrouvée à environ 3 % près quel que soit son ordre de grandeur, avec un nombre
+ * d'intervalles fixé une fois pour toutes (aucune valeur n'est conservée).
+ * Deux histogrammes s'additionnent intervalle par intervalle, ce qui permet de calculer
+ * des percentiles sur plusieurs périodes fusionnées.
+ */
+public class Histogramme {
+
+    private static final int BITS_SOUS_INTERVALLES = 5;
+    private static final int SOUS_INTERVALLES = 1 << BITS_SOUS_INTERVALLES;  // Par puissance de deux
+    private static final int EXPOSANT_MAX = 47;  // Valeurs jusqu'à 2^48 (au-delà : dernier intervalle)
+    private static final int NOMBRE_INTERVALLES = (EXPOSANT_MAX - BITS_SOUS_INTERVALLES + 2) * SOUS_INTERVALLES;
+
+    private final AtomicLongArray comptes = new AtomicLongArray(NOMBRE_INTERVALLES);
+    private final LongAdder nombre = new LongAdder();
+
+    /**
+     * Enregistrer une valeur
+     * @param valeur Valeur à enregistrer (les valeurs négatives comptent comme 0)
+     */
+    public void enregistrer(long valeur){
+        comptes.incrementAndGet(intervalle(valeur));
+        nombre.increment();
+    }
+
+    /**
+     * Ajouter à cet histogramme les valeurs d'un autre
+     * @param autre Histogramme à fusionner (inchangé)
+     */
+    public void fusionner(Histogramme autre){
+        for(int i = 0; i < NOMBRE_INTERVALLES; i++){
+            long compte = autre.comptes.get(i);
+            if(compte != 0){
+                comptes.addAndGet(i, compte);
+                nombre.add(compte);
+            }
+        }
+    }
+
+    /**
+     * Remettre l'histogramme à zéro
+     */
+    public void vider(){
+        for(int i = 0; i < NOMBRE_INTERVALLES; i++){
+            long compte = comptes.getAndSet(i, 0);
+            nombre.add(-compte);
+        }
+    }
+
+    public long getNombre(){
+        return nombre.sum();
+    }
+
+    /**
+     * Calculer un percentile
+     * @param percentile Percentile voulu, entre 0 et 100 (par exemple 99 pour le p99)
+     * @return Valeur approchée (milieu de l'intervalle concerné), ou 0 si l'histogramme est vide
+     */
+    public long percentile(double percentile){
+        if(percentile < 0 || percentile > 100){
+            throw new IllegalArgumentException("Percentile invalide: " + percentile);
+        }
+        long total = 0;
+        for(int i = 0; i < NOMBRE_INTERVALLES; i++){
+            total += comptes.get(i);
+        }
+        if(total == 0){
+            return 0;
+        }
+        long rang = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long cumul = 0;
+        for(int i = 0; i < NOMBRE_INTERVALLES; i++){
+            cumul += comptes.get(i);
+            if(cumul >= rang){
+                return milieu(i);
+            }
+        }
+        return milieu(NOMBRE_INTERVALLES - 1);  // Écritures concurrentes pendant le parcours
+    }
+
+    /**
+     * Intervalle d'une valeur : les 32 premières valeurs ont chacune le leur,
+     * puis chaque puissance de deux [2^e, 2^(e+1)) est découpée en 32 intervalles
+     */
+    private static int intervalle(long valeur){
+        if(valeur < SOUS_INTERVALLES){
+            return (int) Math.max(0, valeur);
+        }
+        int exposant = 63 - Long.numberOfLeadingZeros(valeur);
+        if(exposant > EXPOSANT_MAX){
+            return NOMBRE_INTERVALLES - 1;
+        }
+        int decalage = exposant - BITS_SOUS_INTERVALLES;
+        return (decalage + 1) * SOUS_INTERVALLES + (int) ((valeur >>> decalage) & (SOUS_INTERVALLES - 1));
+    }
+
+    private static long milieu(int intervalle){
+        int bloc = intervalle >> BITS_SOUS_INTERVALLES;
+        if(bloc == 0){
+            return intervalle;  // Intervalles de largeur 1
+        }
+        long debut = (long) (SOUS_INTERVALLES + (intervalle & (SOUS_INTERVALLES - 1))) << (bloc - 1);
+        return debut + ((1L << (bloc - 1)) >> 1);
+    }
+}
@@ -0,0 +1,161 @@
+package statistiques;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compteurs du tableau de bord, tenus à jour au fil des événements
+ * (création de compte, ajout ou retrait d'adresse, validation et livraison de commande).
+ * Les compteurs sont des LongAdder : les écritures concurrentes se répartissent sur
+ * plusieurs cellules au lieu de se disputer une seule variable, et la lecture du
+ * tableau de bord ne parcourt ni les comptes ni les commandes.
+ */
+public final class Statistiques {
+
+    private static final LongAdder comptes = new LongAdder();
+    private static final LongAdder utilisateursAvecAdresse = new LongAdder();
+    private static final LongAdder commandesValidees = new LongAdder();   // Validées, pas encore livrées
+    private static final LongAdder commandesLivrees = new LongAdder();
+    private static final LongAdder chiffreAffairesCentimes = new LongAdder();
+
+    // Chiffre d'affaires glissant : dernière minute (cases d'une seconde), dernière heure
+    // (cases d'une minute, avec distribution des montants) et dernières 24 h (cases de 15 minutes)
+    private static final FenetreGlissante parMinute = new FenetreGlissante(60, 1000L, false);
+    private static final FenetreGlissante parHeure = new FenetreGlissante(60, 60_000L, true);
+    private static final FenetreGlissante parJour = new FenetreGlissante(96, 900_000L, false);
+
+    // Distribution des montants de toutes les commandes validées, en centimes
+    private static final Histogramme montants = new Histogramme();
+
+    private Statistiques(){
+        // Classe utilitaire, pas d'instance
+    }
+
+    // Événements
+
+    public static void compteCree(){
+        comptes.increment();
+    }
+
+    public static void adresseAjoutee(){
+        utilisateursAvecAdresse.increment();
+    }
+
+    public static void adresseRetiree(){
+        utilisateursAvecAdresse.decrement();
+    }
+
+    /**
+     * Enregistrer la validation d'une commande
+     * @param centimes Montant exact de la commande en centimes
+     */
+    public static void commandeValidee(long centimes){
+        long maintenant = System.currentTimeMillis();
+        commandesValidees.increment();
+        chiffreAffairesCentimes.add(centimes);
+        parMinute.ajouter(maintenant, centimes);
+        parHeure.ajouter(maintenant, centimes);
+        parJour.ajouter(maintenant, centimes);
+        montants.enregistrer(centimes);
+    }
+
+    /**
+     * Enregistrer une commande restaurée (journal ou instantané)
+     * Elle compte dans les totaux et la distribution des montants, mais pas dans le
+     * chiffre d'affaires glissant : elle n'a pas été validée à l'instant
+     * @param centimes Montant exact de la commande en centimes
+     */
+    public static void commandeRestauree(long centimes){
+        commandesValidees.increment();
+        chiffreAffairesCentimes.add(centimes);
+        montants.enregistrer(centimes);
+    }
+
+    public static void commandeLivree(){
+        commandesValidees.decrement();
+        commandesLivrees.increment();
+    }
+
+    /**
+     * Annuler une livraison dont l'écriture dans le journal a échoué
+     */
+    public static void livraisonAnnulee(){
+        commandesLivrees.decrement();
+        commandesValidees.increment();
+    }
+
+    // Lectures (chaque somme est exacte lorsque aucune écriture n'est en cours)
+
+    public static long getComptes(){
+        return comptes.sum();
+    }
+
+    public static long getUtilisateursAvecAdresse(){
+        return utilisateursAvecAdresse.sum();
+    }
+
+    public static long getCommandesValidees(){
+        return commandesValidees.sum();
+    }
+
+    public static long getCommandesLivrees(){
+        return commandesLivrees.sum();
+    }
+
+    /**
+     * Chiffre d'affaires des commandes validées ou livrées
+     * @return Chiffre d'affaires en euros
+     */
+    public static double getChiffreAffaires(){
+        return chiffreAffairesCentimes.sum() / 100.0;
+    }
+
+    /**
+     * Chiffre d'affaires exact des commandes validées ou livrées
+     * @return Chiffre d'affaires en centimes
+     */
+    public static long getChiffreAffairesCentimes(){
+        return chiffreAffairesCentimes.sum();
+    }
+
+    /**
+     * Chiffre d'affaires des commandes validées pendant la dernière minute
+     * @return Chiffre d'affaires en euros
+     */
+    public static double getChiffreAffairesDerniereMinute(){
+        return parMinute.getSomme(System.currentTimeMillis()) / 100.0;
+    }
+
+    /**
+     * Chiffre d'affaires des commandes validées pendant la dernière heure
+     * @return Chiffre d'affaires en euros
+     */
+    public static double getChiffreAffairesDerniereHeure(){
+        return parHeure.getSomme(System.currentTimeMillis()) / 100.0;
+    }
+
+    /**
+     * Chiffre d'affaires des commandes validées pendant les dernières 24 heures
+     * @return Chiffre d'affaires en euros
+     */
+    public static double getChiffreAffairesDernierJour(){
+        return parJour.getSomme(System.currentTimeMillis()) / 100.0;
+    }
+
+    /**
+     * Percentile du montant des commandes validées depuis le démarrage
+     * @param percentile Percentile voulu (50, 95, 99...)
+     * @return Montant approché à environ 3 % près, en euros
+     */
+    public static double getPercentileMontant(double percentile){
+        return montants.percentile(percentile) / 100.0;
+    }
+
+    /**
+     * Percentile du montant des commandes validées pendant la dernière heure
+     * @param percentile Percentile voulu (50, 95, 99...)
+     * @return Montant approché à environ 3 % près, en euros
+     */
+    public static double getPercentileMontantDerniereHeure(double percentile){
+        return parHeure.getHistogramme(System.currentTimeMillis()).percentile(percentile) / 100.0;
+    }
+}
@@ -0,0 +1,120 @@
+package stockage;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Liste de stockage publiant des instantanés immuables et versionnés
+ * Les lecteurs obtiennent en temps constant, sans copie, une vue cohérente de la liste ;
+ * ce sont les écritures qui paient le coût de la copie lorsqu'elle est nécessaire.
+ * Les ajouts se font en fin de tableau (les instantanés déjà publiés ne voient pas
+ * les cases suivantes), les retraits recopient le tableau.
+ * @param <E> Type des éléments stockés
+ */
+public class ListeInstantanee<E> {
+
+    // Instantané courant, remplacé à chaque écriture
+    private volatile Instantane<E> courant = new Instantane<>(new Object[16], 0, 0);
+
+    /**
+     * Ajouter un élément en fin de liste
+     * @param element Élément à ajouter
+     */
+    public synchronized void ajouter(E element){
+        Instantane<E> actuel = courant;
+        Object[] elements = actuel.elements;
+        if(actuel.taille == elements.length){
+            elements = Arrays.copyOf(elements, elements.length * 2);
+        }
+        elements[actuel.taille] = element;
+        courant = new Instantane<>(elements, actuel.taille + 1, actuel.version + 1);
+    }
+
+    /**
+     * Retirer un élément (comparaison par référence)
+     * Le tableau est recopié : les instantanés déjà publiés restent inchangés
+     * @param element Élément à retirer
+     * @return true si l'élément était présent
+     */
+    public synchronized boolean retirer(E element){
+        Instantane<E> actuel = courant;
+        for(int i = 0; i < actuel.taille; i++){
+            if(actuel.elements[i] == element){
+                Object[] elements = new Object[Math.max(16, actuel.elements.length)];
+                System.arraycopy(actuel.elements, 0, elements, 0, i);
+                System.arraycopy(actuel.elements, i + 1, elements, i, actuel.taille - i - 1);
+                courant = new Instantane<>(elements, actuel.taille - 1, actuel.version + 1);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Obtenir l'instantané courant de la liste
+     * Aucune copie : la vue renvoyée ne changera plus, même si la liste est modifiée ensuite
+     * @return Vue non modifiable et cohérente de la liste
+     */
+    public List<E> instantane(){
+        return courant;
+    }
+
+    /**
+     * Obtenir un élément par sa position dans l'instantané courant
+     * @param index Position de l'élément
+     * @return L'élément
+     */
+    public E get(int index){
+        return courant.get(index);
+    }
+
+    /**
+     * Nombre d'éléments dans l'instantané courant
+     * @return Taille de la liste
+     */
+    public int taille(){
+        return courant.taille;
+    }
+
+    /**
+     * Numéro de version, incrémenté à chaque écriture
+     * @return Version de l'instantané courant
+     */
+    public long version(){
+        return courant.version;
+    }
+
+    /**
+     * Vue immuable sur les premières cases d'un tableau
+     * Le tableau peut être partagé avec les instantanés suivants, qui n'écrivent
+     * jamais dans les cases visibles par celui-ci
+     */
+    private static class Instantane<E> extends AbstractList<E> implements RandomAccess {
+
+        private final Object[] elements;
+        private final int taille;
+        private final long version;
+
+        Instantane(Object[] elements, int taille, long version){
+            this.elements = elements;
+            this.taille = taille;
+            this.version = version;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E get(int index){
+            if(index < 0 || index >= taille){
+                throw new IndexOutOfBoundsException("Index: " + index + ", taille: " + taille);
+            }
+            return (E) elements[index];
+        }
+
+        @Override
+        public int size(){
+            return taille;
+        }
+    }
+}
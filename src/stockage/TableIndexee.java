@@ -0,0 +1,143 @@
+package stockage;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Table concurrente indexée par des entiers denses (0, 1, 2, ...)
+ * Chaque case n'est écrite qu'une seule fois. Plusieurs threads peuvent remplir des
+ * cases différentes en parallèle sans verrou ; la lecture d'une case est en temps constant.
+ * Les cases sont réparties dans des segments de taille fixe alloués à la demande,
+ * si bien que l'agrandissement ne recopie jamais les éléments.
+ * @param <E> Type des éléments stockés
+ */
+public class TableIndexee<E> {
+
+    private static final int BITS_SEGMENT = 12;
+    private static final int TAILLE_SEGMENT = 1 << BITS_SEGMENT;
+    private static final int MASQUE = TAILLE_SEGMENT - 1;
+
+    // Répertoire des segments, remplacé (jamais modifié sur place) lorsqu'il s'agrandit
+    private volatile AtomicReferenceArray<E>[] segments = nouveauRepertoire(8);
+
+    // Nombre de cases consécutives remplies depuis l'index 0 : toutes les cases
+    // en dessous de cette limite sont visibles dans les instantanés
+    private final AtomicInteger publies = new AtomicInteger();
+
+    /**
+     * Remplir une case de la table
+     * @param index Index de la case (chaque index ne doit être rempli qu'une fois)
+     * @param element Élément à stocker (non null)
+     */
+    public void placer(int index, E element){
+        if(element == null){
+            throw new IllegalArgumentException("Élément null interdit");
+        }
+        segment(index >>> BITS_SEGMENT).set(index & MASQUE, element);
+
+        // Avancer la limite de publication tant que les cases suivantes sont remplies ;
+        // le thread qui remplit un trou fait avancer la limite pour les autres
+        int limite = publies.get();
+        while(get(limite) != null){
+            if(publies.compareAndSet(limite, limite + 1)){
+                limite++;
+            } else {
+                limite = publies.get();
+            }
+        }
+    }
+
+    /**
+     * Lire une case de la table
+     * @param index Index de la case
+     * @return L'élément stocké ou null si la case est vide
+     */
+    public E get(int index){
+        if(index < 0){
+            return null;
+        }
+        AtomicReferenceArray<E>[] repertoire = segments;
+        int numero = index >>> BITS_SEGMENT;
+        if(numero >= repertoire.length || repertoire[numero] == null){
+            return null;
+        }
+        return repertoire[numero].get(index & MASQUE);
+    }
+
+    /**
+     * Nombre de cases publiées (remplies de façon contiguë depuis 0)
+     * @return Taille visible de la table
+     */
+    public int taille(){
+        return publies.get();
+    }
+
+    /**
+     * Obtenir un instantané des cases publiées
+     * Aucune copie : les cases publiées ne changent plus, la vue reste donc cohérente
+     * @return Vue non modifiable des éléments d'index 0 à taille() - 1
+     */
+    public List<E> instantane(){
+        return new Instantane(publies.get());
+    }
+
+    /**
+     * Obtenir le segment demandé, en l'allouant si nécessaire
+     * Le verrou n'est pris que lors de l'allocation d'un nouveau segment
+     * @param numero Numéro du segment
+     * @return Le segment
+     */
+    private AtomicReferenceArray<E> segment(int numero){
+        AtomicReferenceArray<E>[] repertoire = segments;
+        if(numero < repertoire.length && repertoire[numero] != null){
+            return repertoire[numero];
+        }
+        synchronized(this){
+            repertoire = segments;
+            if(numero >= repertoire.length){
+                repertoire = Arrays.copyOf(repertoire, Math.max(repertoire.length * 2, numero + 1));
+            } else if(repertoire[numero] != null){
+                return repertoire[numero];
+            } else {
+                repertoire = repertoire.clone();
+            }
+            repertoire[numero] = new AtomicReferenceArray<>(TAILLE_SEGMENT);
+            segments = repertoire;
+            return repertoire[numero];
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <E> AtomicReferenceArray<E>[] nouveauRepertoire(int taille){
+        return (AtomicReferenceArray<E>[]) new AtomicReferenceArray[taille];
+    }
+
+    /**
+     * Vue immuable sur les cases publiées au moment de sa création
+     */
+    private class Instantane extends AbstractList<E> implements RandomAccess {
+
+        private final int taille;
+
+        Instantane(int taille){
+            this.taille = taille;
+        }
+
+        @Override
+        public E get(int index){
+            if(index < 0 || index >= taille){
+                throw new IndexOutOfBoundsException("Index: " + index + ", taille: " + taille);
+            }
+            return TableIndexee.this.get(index);
+        }
+
+        @Override
+        public int size(){
+            return taille;
+        }
+    }
+}
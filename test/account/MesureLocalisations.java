@@ -0,0 +1,138 @@
+package account;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mesure mémoire des adresses encodées par DictionnaireZones, sans framework de test
+ * Les mêmes adresses (quelques centaines de villes et une poignée de secteurs, saisis comme des
+ * chaînes distinctes pour chaque utilisateur) sont construites avec l'ancienne disposition (trois
+ * String par adresse) puis avec Localisation ; l'occupation du tas est mesurée dans chaque cas.
+ * Sont vérifiés : un gain mémoire, un dictionnaire limité aux noms distincts, le regroupement par
+ * zone (mêmes effectifs que par les noms), le décodage des zones, et la cohérence d'equals et
+ * hashCode (utilisation comme clé de table de hachage).
+ * Usage : java -Xmx2g -cp bin:bin-test account.MesureLocalisations [adresses] [villes] [secteurs]
+ * Code de sortie 1 en cas d'échec
+ */
+public class MesureLocalisations {
+
+    /** Ancienne disposition : une adresse avec ses propres chaînes */
+    private static final class AdresseChaines {
+        final String ville;
+        final String secteur;
+        final String description;
+
+        AdresseChaines(String ville, String secteur, String description){
+            this.ville = ville;
+            this.secteur = secteur;
+            this.description = description;
+        }
+    }
+
+    public static void main(String[] args) {
+        int nbAdresses = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int nbVilles = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        int nbSecteurs = args.length > 2 ? Integer.parseInt(args[2]) : 7;
+
+        List<String> erreurs = new ArrayList<>();
+
+        // Avant : chaque saisie produit de nouvelles chaînes, même pour une ville déjà vue
+        long base = tasUtilise();
+        AdresseChaines[] avant = new AdresseChaines[nbAdresses];
+        for(int i = 0; i < nbAdresses; i++){
+            avant[i] = new AdresseChaines(ville(i, nbVilles), secteur(i, nbSecteurs), "Rue " + i);
+        }
+        long octetsAvant = tasUtilise() - base;
+        long debut = System.nanoTime();
+        Map<String, Integer> parNoms = new HashMap<>();
+        for(AdresseChaines adresse : avant){
+            parNoms.merge(adresse.ville + "|" + adresse.secteur, 1, Integer::sum);
+        }
+        long msNoms = (System.nanoTime() - debut) / 1_000_000;
+        avant = null;
+
+        // Après : ville et secteur encodés par le dictionnaire partagé
+        base = tasUtilise();
+        Localisation[] apres = new Localisation[nbAdresses];
+        for(int i = 0; i < nbAdresses; i++){
+            apres[i] = new Localisation(ville(i, nbVilles), secteur(i, nbSecteurs), "Rue " + i);
+        }
+        long octetsApres = tasUtilise() - base;
+        debut = System.nanoTime();
+        Map<Long, Integer> parZone = new HashMap<>();
+        for(Localisation adresse : apres){
+            parZone.merge(adresse.getZone(), 1, Integer::sum);
+        }
+        long msZones = (System.nanoTime() - debut) / 1_000_000;
+
+        System.out.println(String.format("%d adresses : avant %d Mo (%d octets/adresse), après %d Mo (%d octets/adresse)",
+                nbAdresses, octetsAvant >> 20, octetsAvant / nbAdresses, octetsApres >> 20, octetsApres / nbAdresses));
+        System.out.println("Regroupement par zone : " + parZone.size() + " zones en " + msZones + " ms (par les noms : " + msNoms + " ms)");
+        if(octetsApres >= octetsAvant){
+            erreurs.add("Aucun gain mémoire : " + octetsApres + " octets contre " + octetsAvant);
+        }
+        if(DictionnaireZones.getTaille() != nbVilles + nbSecteurs){
+            erreurs.add("Dictionnaire de " + DictionnaireZones.getTaille() + " noms au lieu de " + (nbVilles + nbSecteurs));
+        }
+
+        // Mêmes effectifs par zone que par les noms, et zones décodables
+        if(parZone.size() != parNoms.size()){
+            erreurs.add(parZone.size() + " zones contre " + parNoms.size() + " couples de noms");
+        }
+        for(Map.Entry<Long, Integer> zone : parZone.entrySet()){
+            String cle = DictionnaireZones.villeDeZone(zone.getKey()) + "|" + DictionnaireZones.secteurDeZone(zone.getKey());
+            if(!zone.getValue().equals(parNoms.get(cle))){
+                erreurs.add("Zone " + cle + " : " + zone.getValue() + " adresses contre " + parNoms.get(cle));
+                break;
+            }
+        }
+
+        // equals et hashCode cohérents : une adresse saisie à nouveau retrouve la même entrée
+        Map<Localisation, Integer> index = new HashMap<>();
+        for(int i = 0; i < Math.min(nbAdresses, 100_000); i++){
+            index.put(apres[i], i);
+        }
+        for(int i = 0; i < Math.min(nbAdresses, 100_000); i++){
+            Localisation copie = new Localisation(ville(i, nbVilles), secteur(i, nbSecteurs), "Rue " + i);
+            if(!copie.equals(apres[i]) || copie.hashCode() != apres[i].hashCode() || !Integer.valueOf(i).equals(index.get(copie))){
+                erreurs.add("Adresse " + i + " : equals ou hashCode incohérent");
+                break;
+            }
+        }
+        if(nbAdresses > 1 && apres[0].equals(apres[1])){
+            erreurs.add("Deux adresses différentes sont égales");
+        }
+
+        if(!erreurs.isEmpty()){
+            for(String erreur : erreurs.subList(0, Math.min(10, erreurs.size()))){
+                System.out.println("ÉCHEC : " + erreur);
+            }
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    // Chaque appel construit une nouvelle chaîne, comme une saisie
+    private static String ville(int i, int nbVilles){
+        return "Ville " + (i % nbVilles);
+    }
+
+    private static String secteur(int i, int nbSecteurs){
+        return "Secteur " + ((i / 7) % nbSecteurs);
+    }
+
+    /**
+     * Mémoire du tas occupée après plusieurs ramasse-miettes
+     */
+    private static long tasUtilise(){
+        Runtime runtime = Runtime.getRuntime();
+        long utilise = Long.MAX_VALUE;
+        for(int i = 0; i < 5; i++){
+            System.gc();
+            utilise = Math.min(utilise, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return utilise;
+    }
+}
@@ -0,0 +1,197 @@
+package account;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mesure des connexions avec PBKDF2, sans framework de test
+ * Pour chaque nombre d'itérations, des clients se connectent en boucle pendant une durée fixe :
+ * le débit, la latence médiane et le p99 sont affichés pour dimensionner le réglage. Sont vérifiés :
+ * le refus d'un mauvais mot de passe, un sel différent à chaque empreinte, le recalcul d'une
+ * empreinte ancienne après connexion, le refus immédiat (et non l'attente) des connexions en
+ * trop lors d'un afflux, et le coût quasi nul d'une inscription avec un email déjà utilisé.
+ * Usage : java -cp bin:bin-test account.MesureMotDePasse [clients] [durée par réglage en ms] [itérations,...]
+ * Code de sortie 1 en cas d'échec
+ */
+public class MesureMotDePasse {
+
+    public static void main(String[] args) throws InterruptedException {
+        int nbClients = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        long duree = args.length > 1 ? Long.parseLong(args[1]) : 2_000;
+        String[] reglages = (args.length > 2 ? args[2] : "10000,50000,100000,200000").split(",");
+
+        List<String> erreurs = Collections.synchronizedList(new ArrayList<>());
+
+        // Chauffe du JIT, pour que le premier réglage mesuré ne paie pas la compilation
+        MotDePasse.setIterations(10_000);
+        String chauffe = MotDePasse.hacher("secret");
+        for(int i = 0; i < 50; i++){
+            MotDePasse.verifier("secret", chauffe);
+        }
+
+        System.out.println("itérations  connexions/s  médiane (ms)  p99 (ms)");
+        for(String reglage : reglages){
+            int iterations = Integer.parseInt(reglage.trim());
+            MotDePasse.setIterations(iterations);
+            String email = "client." + iterations + "@exemple.com";
+            User.restaurer("Client", "Test", email, MotDePasse.hacher("secret"), null, true);
+            if(Authentification.connecter(email, "mauvais") != null){
+                erreurs.add(iterations + " itérations : mauvais mot de passe accepté");
+            }
+            mesurer(email, iterations, nbClients, duree, erreurs);
+        }
+
+        // Deux empreintes du même mot de passe diffèrent (sel aléatoire) et ne le contiennent pas
+        String premiere = MotDePasse.hacher("secret");
+        String seconde = MotDePasse.hacher("secret");
+        if(premiere.equals(seconde) || premiere.contains("secret")){
+            erreurs.add("Empreintes identiques ou contenant le mot de passe : " + premiere);
+        }
+
+        // Recalcul : une empreinte à 1 000 itérations passe au réglage courant après connexion
+        MotDePasse.setIterations(1_000);
+        Account ancien = User.restaurer("Ancien", "Test", "ancien@exemple.com", MotDePasse.hacher("secret"), null, true);
+        MotDePasse.setIterations(20_000);
+        if(Authentification.connecter("ancien@exemple.com", "secret") != ancien){
+            erreurs.add("Connexion refusée avant recalcul");
+        }
+        long limite = System.currentTimeMillis() + 10_000;
+        while(!ancien.getEmpreinteMotDePasse().startsWith("20000:") && System.currentTimeMillis() < limite){
+            Thread.sleep(10);
+        }
+        if(!ancien.getEmpreinteMotDePasse().startsWith("20000:")){
+            erreurs.add("Empreinte non recalculée : " + ancien.getEmpreinteMotDePasse().split(":")[0] + " itérations");
+        } else if(Authentification.connecter("ancien@exemple.com", "secret") != ancien){
+            erreurs.add("Connexion refusée après recalcul");
+        }
+
+        // Afflux : bien plus de connexions simultanées que de threads et de places en file
+        afflux("ancien@exemple.com", 400, erreurs);
+
+        // Inscription avec un email déjà utilisé : refusée avant le calcul de l'empreinte
+        long debut = System.nanoTime();
+        for(int i = 0; i < 100; i++){
+            new User("Double", "Test", "ANCIEN@exemple.com", "secret", null);
+        }
+        double msDouble = (System.nanoTime() - debut) / 1e6 / 100;
+        debut = System.nanoTime();
+        MotDePasse.hacher("secret");
+        double msHachage = (System.nanoTime() - debut) / 1e6;
+        System.out.println(String.format("Inscription en double : %.3f ms (une empreinte à 20 000 itérations : %.1f ms)", msDouble, msHachage));
+        if(msDouble * 10 > msHachage){
+            erreurs.add("Inscription en double trop coûteuse : " + msDouble + " ms");
+        }
+
+        if(!erreurs.isEmpty()){
+            for(String erreur : erreurs.subList(0, Math.min(10, erreurs.size()))){
+                System.out.println("ÉCHEC : " + erreur);
+            }
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    /**
+     * Connexions en boucle pendant la durée donnée, par autant de clients
+     */
+    private static void mesurer(String email, int iterations, int nbClients, long duree, List<String> erreurs)
+            throws InterruptedException {
+        AtomicBoolean fini = new AtomicBoolean();
+        CountDownLatch depart = new CountDownLatch(1);
+        List<long[]> latences = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger refusees = new AtomicInteger();
+        List<Thread> clients = new ArrayList<>();
+        for(int c = 0; c < nbClients; c++){
+            Thread client = new Thread(() -> {
+                attendre(depart);
+                long[] mesures = new long[1024];
+                int n = 0;
+                while(!fini.get()){
+                    long debut = System.nanoTime();
+                    try {
+                        if(Authentification.connecter(email, "secret") == null){
+                            erreurs.add(iterations + " itérations : bon mot de passe refusé");
+                        }
+                    } catch(IllegalStateException e){
+                        refusees.incrementAndGet();  // Pool saturé
+                        continue;
+                    }
+                    if(n == mesures.length){
+                        mesures = Arrays.copyOf(mesures, 2 * n);
+                    }
+                    mesures[n++] = System.nanoTime() - debut;
+                }
+                latences.add(Arrays.copyOf(mesures, n));
+            });
+            clients.add(client);
+            client.start();
+        }
+        depart.countDown();
+        Thread.sleep(duree);
+        fini.set(true);
+        for(Thread client : clients){
+            client.join();
+        }
+
+        long[] toutes = latences.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        if(toutes.length == 0){
+            erreurs.add(iterations + " itérations : aucune connexion terminée");
+            return;
+        }
+        System.out.println(String.format("%10d %13.1f %13.1f %9.1f%s", iterations, toutes.length * 1000.0 / duree,
+                toutes[toutes.length / 2] / 1e6, toutes[(int) (toutes.length * 0.99)] / 1e6,
+                refusees.get() > 0 ? "  (" + refusees.get() + " refusées)" : ""));
+    }
+
+    /**
+     * Lancer simultanément un grand nombre de connexions : les demandes en trop doivent être
+     * refusées aussitôt, toutes les autres aboutir
+     */
+    private static void afflux(String email, int nbConnexions, List<String> erreurs) throws InterruptedException {
+        CountDownLatch depart = new CountDownLatch(1);
+        AtomicInteger reussies = new AtomicInteger();
+        AtomicInteger refusees = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for(int i = 0; i < nbConnexions; i++){
+            Thread thread = new Thread(() -> {
+                attendre(depart);
+                try {
+                    if(Authentification.connecter(email, "secret") != null){
+                        reussies.incrementAndGet();
+                    }
+                } catch(IllegalStateException e){
+                    refusees.incrementAndGet();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        long debut = System.nanoTime();
+        depart.countDown();
+        for(Thread thread : threads){
+            thread.join(60_000);
+            if(thread.isAlive()){
+                erreurs.add("Afflux : connexion toujours bloquée après 60 s");
+                return;
+            }
+        }
+        System.out.println("Afflux de " + nbConnexions + " connexions : " + reussies.get() + " réussies, "
+                + refusees.get() + " refusées en " + (System.nanoTime() - debut) / 1_000_000 + " ms");
+        if(refusees.get() == 0 || reussies.get() == 0 || reussies.get() + refusees.get() != nbConnexions){
+            erreurs.add("Afflux : " + reussies.get() + " réussies et " + refusees.get() + " refusées sur " + nbConnexions);
+        }
+    }
+
+    private static void attendre(CountDownLatch depart){
+        try {
+            depart.await();
+        } catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+}
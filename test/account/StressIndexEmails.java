@@ -0,0 +1,189 @@
+package account;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test de charge de l'index des comptes par email, sans framework de test
+ * Plusieurs threads inscrivent le même million d'emails sous des écritures différentes
+ * (majuscules, espaces autour) : chaque email doit être enregistré une seule fois. Des changements
+ * d'email concurrents visant deux à deux la même adresse ne doivent en accepter qu'un, et l'index
+ * doit rester cohérent avec la liste des comptes. La recherche par email est comparée au parcours
+ * de la liste et quelques connexions sont vérifiées.
+ * Les comptes sont inscrits par User.restaurer, avec une empreinte calculée une fois, pour mesurer
+ * l'index et non PBKDF2.
+ * Usage : java -cp bin:bin-test account.StressIndexEmails [threads] [comptes]
+ * Code de sortie 1 en cas d'échec
+ */
+public class StressIndexEmails {
+
+    public static void main(String[] args) throws InterruptedException {
+        int nbThreads = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+        int nbComptes = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        List<String> erreurs = Collections.synchronizedList(new ArrayList<>());
+        MotDePasse.setIterations(1_000);
+        String empreinte = MotDePasse.hacher("secret");
+
+        // Inscriptions : chaque thread tente tous les emails, chacun sous sa propre écriture
+        AtomicInteger acceptees = new AtomicInteger();
+        CountDownLatch depart = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for(int t = 0; t < nbThreads; t++){
+            final int numero = t;
+            Thread thread = new Thread(() -> {
+                attendre(depart);
+                int n = 0;
+                for(int i = 0; i < nbComptes; i++){
+                    int j = (i + numero * (nbComptes / nbThreads)) % nbComptes;
+                    User user = User.restaurer("Nom" + j, "Prenom" + j, ecriture(email(j), numero), empreinte, null, true);
+                    if(user.estEnregistre()){
+                        n++;
+                    }
+                }
+                acceptees.addAndGet(n);
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        long debut = System.nanoTime();
+        depart.countDown();
+        for(Thread thread : threads){
+            thread.join();
+        }
+        long dureeInscriptions = (System.nanoTime() - debut) / 1_000_000;
+        if(acceptees.get() != nbComptes || Account.getAllAccounts().size() != nbComptes){
+            erreurs.add(acceptees.get() + " inscriptions acceptées et " + Account.getAllAccounts().size()
+                    + " comptes enregistrés au lieu de " + nbComptes);
+        }
+
+        // Recherche : index contre parcours de la liste
+        int[] tirages = new int[1_000_000];
+        for(int i = 0; i < tirages.length; i++){
+            tirages[i] = ThreadLocalRandom.current().nextInt(nbComptes);
+        }
+        int trouves = 0;
+        debut = System.nanoTime();
+        for(int j : tirages){
+            Account account = Account.findByEmail(ecriture(email(j), j));
+            if(account != null && account.getNom().equals("Nom" + j)){
+                trouves++;
+            }
+        }
+        double nsIndex = (System.nanoTime() - debut) / (double) tirages.length;
+        if(trouves != tirages.length){
+            erreurs.add((tirages.length - trouves) + " recherches par email sans le bon compte");
+        }
+        int parcours = 20;
+        debut = System.nanoTime();
+        for(int i = 0; i < parcours; i++){
+            String email = email(tirages[i]);
+            for(Account account : Account.getAllAccounts()){
+                if(account.getEmail().trim().equalsIgnoreCase(email)){
+                    break;
+                }
+            }
+        }
+        double nsParcours = (System.nanoTime() - debut) / (double) parcours;
+        if(nsIndex >= nsParcours){
+            erreurs.add("Index plus lent que le parcours : " + Math.round(nsIndex) + " ns contre " + Math.round(nsParcours) + " ns");
+        }
+
+        // Changements d'email : les comptes 2k et 2k+1 visent la même nouvelle adresse
+        int nbRenommes = Math.min(nbComptes, 100_000) & ~1;
+        AtomicInteger renommes = new AtomicInteger();
+        CountDownLatch departRenommage = new CountDownLatch(1);
+        threads.clear();
+        for(int t = 0; t < 2; t++){
+            final int parite = t;
+            Thread thread = new Thread(() -> {
+                attendre(departRenommage);
+                for(int k = 0; k < nbRenommes / 2; k++){
+                    Account account = Account.findByEmail(email(2 * k + parite));
+                    account.setEmail(ecriture("nouveau." + k + "@exemple.com", k + parite));
+                    if(Account.findByEmail("nouveau." + k + "@exemple.com") == account){
+                        renommes.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        PrintStream sortie = System.out;
+        System.setOut(new PrintStream(new OutputStream(){  // Un message par changement refusé
+            @Override
+            public void write(int octet){
+                // Ignoré
+            }
+        }));
+        departRenommage.countDown();
+        for(Thread thread : threads){
+            thread.join();
+        }
+        System.setOut(sortie);
+        if(renommes.get() != nbRenommes / 2){
+            erreurs.add(renommes.get() + " changements d'email acceptés au lieu de " + nbRenommes / 2);
+        }
+        for(int k = 0; k < nbRenommes / 2; k++){
+            Account nouveau = Account.findByEmail("nouveau." + k + "@exemple.com");
+            Account reste = Account.findByEmail(email(nouveau == null || nouveau.getNom().equals("Nom" + (2 * k)) ? 2 * k + 1 : 2 * k));
+            if(nouveau == null || reste == null || nouveau == reste){
+                erreurs.add("Adresse nouveau." + k + " : index incohérent après les changements d'email");
+            }
+        }
+        for(Account account : Account.getAllAccounts()){
+            if(Account.findByEmail(account.getEmail()) != account){
+                erreurs.add("Compte " + account.getEmail() + " absent de l'index sous son email");
+                break;
+            }
+        }
+
+        // Connexions : bon et mauvais mot de passe, email saisi avec une autre écriture
+        if(Authentification.connecterUtilisateur(" " + email(nbComptes - 1).toUpperCase() + " ", "secret") == null){
+            erreurs.add("Connexion refusée avec le bon mot de passe");
+        }
+        if(Authentification.connecter(email(nbComptes - 1), "mauvais") != null){
+            erreurs.add("Connexion acceptée avec un mauvais mot de passe");
+        }
+
+        System.out.println(nbThreads + " threads, " + nbComptes + " comptes inscrits en " + dureeInscriptions + " ms ("
+                + (long) nbThreads * nbComptes + " tentatives), recherche par index " + Math.round(nsIndex)
+                + " ns, par parcours " + Math.round(nsParcours / 1000) + " µs");
+        if(!erreurs.isEmpty()){
+            for(String erreur : erreurs.subList(0, Math.min(10, erreurs.size()))){
+                System.out.println("ÉCHEC : " + erreur);
+            }
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    private static String email(int numero){
+        return "client." + numero + "@exemple.com";
+    }
+
+    /**
+     * Écriture différente du même email selon la variante : majuscules, espaces autour
+     */
+    private static String ecriture(String email, int variante){
+        switch(variante % 3){
+            case 0: return email;
+            case 1: return email.toUpperCase();
+            default: return "  " + email + " ";
+        }
+    }
+
+    private static void attendre(CountDownLatch depart){
+        try {
+            depart.await();
+        } catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+}
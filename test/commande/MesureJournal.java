@@ -0,0 +1,304 @@
+package commande;
+
+import account.Localisation;
+import account.User;
+import produit.Produit;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Mesure du journal des commandes, sans framework de test
+ * Plusieurs threads valident des paniers sans journal, avec journal sans fsync, puis avec fsync :
+ * le débit de chaque mode est affiché. La relecture se fait dans un autre processus (les commandes
+ * en mémoire sont statiques) : elle doit restaurer toutes les commandes confirmées avec leurs
+ * lignes, y compris après un arrêt brutal sans fermeture du journal, et seulement celles qui
+ * suivent un point de reprise une fois les anciens segments supprimés.
+ * Usage : java -cp bin:bin-test commande.MesureJournal [threads] [commandes par thread]
+ * Code de sortie 1 en cas d'échec
+ */
+public class MesureJournal {
+
+    public static void main(String[] args) throws Exception {
+        if(args.length > 0 && !Character.isDigit(args[0].charAt(0))){
+            processusEnfant(args);
+            return;
+        }
+        int nbThreads = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+        int parThread = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+        int nbCommandes = nbThreads * parThread;
+
+        List<String> erreurs = Collections.synchronizedList(new ArrayList<>());
+        Path racine = Files.createTempDirectory("journal-commandes");
+        try {
+            Produit[] produits = creerProduits();
+            User client = creerClient();
+            long totalPanier = nouveauPanier(client, produits).getTotalCentimes();
+
+            PrintStream sortie = System.out;
+            System.setOut(new PrintStream(new OutputStream(){
+                @Override
+                public void write(int b){
+                    // Messages de validation ignorés pendant la mesure
+                }
+            }));
+            double sansJournal;
+            double sansFsync;
+            double avecFsync;
+            try {
+                valider(nbThreads, Math.min(parThread, 1_000), client, produits, erreurs);  // Chauffe du JIT
+                sansJournal = valider(nbThreads, parThread, client, produits, erreurs);
+                JournalCommandes.ouvrir(racine.resolve("sans-fsync"), false);
+                sansFsync = valider(nbThreads, parThread, client, produits, erreurs);
+                JournalCommandes.fermer();
+                JournalCommandes.ouvrir(racine.resolve("fsync"), true);
+                avecFsync = valider(nbThreads, parThread, client, produits, erreurs);
+                JournalCommandes.fermer();
+            } finally {
+                System.setOut(sortie);
+            }
+            System.out.println(String.format("%d threads, %d commandes : sans journal %.0f/s, journal sans fsync %.0f/s, avec fsync %.0f/s",
+                    nbThreads, nbCommandes, sansJournal, sansFsync, avecFsync));
+
+            // Relecture complète : commandes, lignes (produits recréés) et propriétaire sans compte
+            for(String mode : new String[]{"sans-fsync", "fsync"}){
+                long[] bilan = relire(racine.resolve(mode), erreurs);
+                if(bilan == null){
+                    continue;
+                }
+                System.out.println(String.format("Relecture du journal %s : %d commandes en %d ms", mode, bilan[0], bilan[6]));
+                verifierBilan(mode, bilan, nbCommandes, nbCommandes * totalPanier, erreurs);
+            }
+
+            // Arrêt brutal juste après les confirmations : aucune commande confirmée perdue
+            int avantArret = 2_000;
+            executerEnfant(erreurs, "arret", racine.resolve("arret").toString(), String.valueOf(avantArret));
+            long[] bilan = relire(racine.resolve("arret"), erreurs);
+            if(bilan != null){
+                verifierBilan("après arrêt brutal", bilan, avantArret, avantArret * totalPanier, erreurs);
+            }
+
+            // Point de reprise : seules les commandes validées ensuite restent dans le journal
+            int apresReprise = 10;
+            String[] supprimes = executerEnfant(erreurs, "reprise", racine.resolve("fsync").toString(), String.valueOf(apresReprise));
+            if(supprimes != null && Long.parseLong(supprimes[0]) < 1){
+                erreurs.add("Point de reprise : aucun segment supprimé");
+            }
+            bilan = relire(racine.resolve("fsync"), erreurs);
+            if(bilan != null){
+                verifierBilan("après point de reprise", bilan, apresReprise, apresReprise * totalPanier, erreurs);
+            }
+        } finally {
+            supprimer(racine);
+        }
+
+        if(!erreurs.isEmpty()){
+            for(String erreur : erreurs.subList(0, Math.min(10, erreurs.size()))){
+                System.out.println("ÉCHEC : " + erreur);
+            }
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    private static Produit[] creerProduits(){
+        return new Produit[]{
+                Produit.enCentimes("Café moulu", "Paquet de 250 g", 1_999),
+                Produit.enCentimes("Sucre", "Boîte de 1 kg", 501),
+                Produit.enCentimes("Filtres", "Lot de 100", 150)
+        };
+    }
+
+    private static User creerClient(){
+        return User.restaurer("Client", "Journal", "journal@exemple.com", "1:AA==:AA==",
+                new Localisation("Ouagadougou", "Secteur 1", "Rue 1"), true);
+    }
+
+    private static Panier nouveauPanier(User client, Produit[] produits){
+        Panier panier = new Panier(client);
+        for(Produit produit : produits){
+            panier.addProduct(new QteProduit(produit, 2));
+        }
+        return panier;
+    }
+
+    /**
+     * Valider des paniers depuis plusieurs threads partant ensemble
+     * @return Commandes validées par seconde
+     */
+    private static double valider(int nbThreads, int parThread, User client, Produit[] produits, List<String> erreurs) throws InterruptedException {
+        CountDownLatch depart = new CountDownLatch(1);
+        AtomicInteger refusees = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for(int t = 0; t < nbThreads; t++){
+            Thread thread = new Thread(() -> {
+                attendre(depart);
+                for(int i = 0; i < parThread; i++){
+                    if(!nouveauPanier(client, produits).validerPanier()){
+                        refusees.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        long debut = System.nanoTime();
+        depart.countDown();
+        for(Thread thread : threads){
+            thread.join();
+        }
+        long duree = System.nanoTime() - debut;
+        if(refusees.get() > 0){
+            erreurs.add(refusees.get() + " validations refusées");
+        }
+        return nbThreads * parThread / (duree / 1e9);
+    }
+
+    /**
+     * @param bilan Commandes, total en centimes, IDs distincts, produits recréés,
+     *              propriétaires non enregistrés, enregistrements tronqués, durée en ms
+     */
+    private static void verifierBilan(String cas, long[] bilan, long commandes, long total, List<String> erreurs){
+        if(bilan[0] != commandes || bilan[2] != commandes){
+            erreurs.add("Relecture " + cas + " : " + bilan[0] + " commandes (" + bilan[2] + " IDs distincts) au lieu de " + commandes);
+        }
+        if(bilan[1] != total){
+            erreurs.add("Relecture " + cas + " : total " + bilan[1] + " centimes au lieu de " + total);
+        }
+        if(commandes > 0 && (bilan[3] != 3 || bilan[4] != 1)){
+            erreurs.add("Relecture " + cas + " : " + bilan[3] + " produits recréés et " + bilan[4]
+                    + " propriétaires non enregistrés au lieu de 3 et 1");
+        }
+    }
+
+    private static long[] relire(Path dossier, List<String> erreurs) throws IOException, InterruptedException {
+        String[] champs = executerEnfant(erreurs, "relire", dossier.toString());
+        if(champs == null){
+            return null;
+        }
+        long[] bilan = new long[champs.length];
+        for(int i = 0; i < champs.length; i++){
+            bilan[i] = Long.parseLong(champs[i]);
+        }
+        return bilan;
+    }
+
+    /**
+     * Lancer ce programme dans une nouvelle JVM, sans produits ni comptes ni commandes en mémoire
+     * @return Champs de la dernière ligne écrite par le processus, null en cas d'échec
+     */
+    private static String[] executerEnfant(List<String> erreurs, String... arguments) throws IOException, InterruptedException {
+        List<String> commande = new ArrayList<>();
+        commande.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        commande.add("-cp");
+        commande.add(System.getProperty("java.class.path"));
+        commande.add(MesureJournal.class.getName());
+        Collections.addAll(commande, arguments);
+        Process processus = new ProcessBuilder(commande).redirectErrorStream(true).start();
+        String derniere = null;
+        try(BufferedReader lecteur = new BufferedReader(new InputStreamReader(processus.getInputStream(), StandardCharsets.UTF_8))){
+            for(String ligne = lecteur.readLine(); ligne != null; ligne = lecteur.readLine()){
+                derniere = ligne;
+            }
+        }
+        if(processus.waitFor() != 0 || derniere == null){
+            erreurs.add("Processus " + arguments[0] + " en échec : " + derniere);
+            return null;
+        }
+        return derniere.split(" ");
+    }
+
+    /**
+     * Partie exécutée dans la JVM enfant ; le résultat est écrit sur la dernière ligne
+     */
+    private static void processusEnfant(String[] args) throws IOException {
+        PrintStream sortie = System.out;
+        System.setOut(new PrintStream(new OutputStream(){
+            @Override
+            public void write(int b){
+                // Messages de validation ignorés
+            }
+        }));
+        Path dossier = Paths.get(args[1]);
+        switch(args[0]){
+            case "relire": {
+                long debut = System.nanoTime();
+                JournalCommandes.Relecture relecture = JournalCommandes.ouvrir(dossier, false);
+                long ms = (System.nanoTime() - debut) / 1_000_000;
+                JournalCommandes.fermer();
+                List<Panier> commandes = Panier.getAllOrders();
+                long total = 0;
+                for(Panier commande : commandes){
+                    total += commande.getTotalCentimes();
+                }
+                long ids = commandes.stream().mapToInt(Panier::getId).distinct().count();
+                sortie.println(relecture.getCommandes() + " " + total + " " + ids + " " + relecture.getProduitsRecrees() + " "
+                        + relecture.getProprietairesNonEnregistres() + " " + relecture.getEnregistrementsTronques() + " " + ms);
+                break;
+            }
+            case "arret": {
+                Produit[] produits = creerProduits();
+                User client = creerClient();
+                JournalCommandes.ouvrir(dossier, true);
+                for(int i = 0; i < Integer.parseInt(args[2]); i++){
+                    nouveauPanier(client, produits).validerPanier();
+                }
+                sortie.println("arret");
+                sortie.flush();
+                Runtime.getRuntime().halt(0);  // Ni fermeture du journal, ni hooks d'arrêt
+                break;
+            }
+            case "reprise": {
+                JournalCommandes.ouvrir(dossier, true);
+                int premierConserve = JournalCommandes.commencerPointDeReprise();
+                int supprimes = JournalCommandes.terminerPointDeReprise(premierConserve);
+                // Les produits et le propriétaire restaurés par la relecture servent aux nouvelles commandes
+                Panier modele = Panier.getAllOrders().get(0);
+                for(int i = 0; i < Integer.parseInt(args[2]); i++){
+                    Panier panier = new Panier(modele.getUser());
+                    for(QteProduit ligne : modele.getProduits()){
+                        panier.addProduct(new QteProduit(ligne.getProduit(), ligne.getQuantite()));
+                    }
+                    panier.validerPanier();
+                }
+                JournalCommandes.fermer();
+                sortie.println(supprimes);
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Processus inconnu : " + args[0]);
+        }
+    }
+
+    private static void supprimer(Path dossier) throws IOException {
+        try(Stream<Path> chemins = Files.walk(dossier)){
+            List<Path> aSupprimer = new ArrayList<>();
+            chemins.sorted(Comparator.reverseOrder()).forEach(aSupprimer::add);
+            for(Path chemin : aSupprimer){
+                Files.delete(chemin);
+            }
+        }
+    }
+
+    private static void attendre(CountDownLatch depart){
+        try {
+            depart.await();
+        } catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+}
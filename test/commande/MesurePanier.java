@@ -0,0 +1,148 @@
+package commande;
+
+import account.User;
+import produit.Produit;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Mesure des paniers de grande taille, sans framework de test
+ * Pour des paniers de 1 000 à 100 000 lignes (bon de commande B2B), chaque produit est ajouté,
+ * ajouté une seconde fois (fusion des quantités), puis une ligne sur deux est retirée. Le coût
+ * par ligne ne doit pas croître avec la taille du panier ; il est comparé à l'ancienne liste
+ * parcourue à chaque ajout. Sont vérifiés : les totaux exacts, le nombre d'articles, une seule
+ * ligne par produit, l'ordre d'ajout conservé après les retraits, et le refus d'une ligne
+ * appartenant déjà à un autre panier.
+ * Usage : java -cp bin:bin-test commande.MesurePanier [lignes]
+ * Code de sortie 1 en cas d'échec
+ */
+public class MesurePanier {
+
+    public static void main(String[] args) {
+        int nbLignes = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+
+        List<String> erreurs = new ArrayList<>();
+        User client = User.restaurer("Client", "B2B", "achats@exemple.com", "1:AA==:AA==", null, false);
+        List<Produit> produits = new ArrayList<>();
+        for(int i = 0; i < nbLignes; i++){
+            produits.add(Produit.enCentimes("Article " + i, "Référence " + i, 100 + i % 9_900));
+        }
+
+        // Chauffe du JIT sur un panier jetable
+        Panier chauffe = new Panier(client);
+        for(int i = 0; i < Math.min(nbLignes, 10_000); i++){
+            chauffe.addProduct(new QteProduit(produits.get(i), 1));
+            chauffe.addProduct(new QteProduit(produits.get(i), 1));
+            chauffe.removeProduct(produits.get(i).getId());
+        }
+
+        System.out.println("   lignes  ajout (ns)  fusion (ns)  retrait (ns)  ancienne liste (ns)");
+        double nsPetit = 0;
+        for(int taille = Math.min(1_000, nbLignes); taille <= nbLignes; taille = taille == nbLignes ? nbLignes + 1 : Math.min(nbLignes, taille * 10)){
+            Panier panier = new Panier(client);
+            long attendu = 0;
+            long debut = System.nanoTime();
+            for(int i = 0; i < taille; i++){
+                panier.addProduct(new QteProduit(produits.get(i), 1));
+                attendu += produits.get(i).getPrixCentimes();
+            }
+            double nsAjout = (System.nanoTime() - debut) / (double) taille;
+            debut = System.nanoTime();
+            for(int i = 0; i < taille; i++){
+                panier.addProduct(new QteProduit(produits.get(i), 2));
+                attendu += 2 * produits.get(i).getPrixCentimes();
+            }
+            double nsFusion = (System.nanoTime() - debut) / (double) taille;
+            debut = System.nanoTime();
+            for(int i = 0; i < taille; i += 2){
+                if(!panier.removeProduct(produits.get(i).getId())){
+                    erreurs.add("Ligne " + i + " absente au retrait");
+                }
+                attendu -= 3 * produits.get(i).getPrixCentimes();
+            }
+            double nsRetrait = (System.nanoTime() - debut) / (double) ((taille + 1) / 2);
+            double nsListe = taille <= 10_000 ? ancienneListe(produits, taille) : Double.NaN;
+            System.out.println(String.format("%9d %11.0f %12.0f %13.0f %20s", taille, nsAjout, nsFusion, nsRetrait,
+                    Double.isNaN(nsListe) ? "-" : String.format("%.0f", nsListe)));
+
+            verifier(panier, produits, taille, attendu, erreurs);
+            double nsTotal = nsAjout + nsFusion + nsRetrait;
+            if(nsPetit == 0){
+                nsPetit = nsTotal;
+            } else if(taille >= 100_000 && nsTotal > 10 * nsPetit){
+                erreurs.add("Coût par ligne multiplié par " + Math.round(nsTotal / nsPetit) + " à " + taille + " lignes");
+            }
+        }
+
+        // Une ligne déjà dans un panier ne peut pas être ajoutée à un autre
+        Panier premier = new Panier(client);
+        QteProduit ligne = new QteProduit(produits.get(0), 1);
+        premier.addProduct(ligne);
+        try {
+            new Panier(client).addProduct(ligne);
+            erreurs.add("Ligne d'un autre panier acceptée");
+        } catch(IllegalArgumentException e){
+            // Refus attendu
+        }
+
+        if(!erreurs.isEmpty()){
+            for(String erreur : erreurs.subList(0, Math.min(10, erreurs.size()))){
+                System.out.println("ÉCHEC : " + erreur);
+            }
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    /**
+     * Après les retraits : les lignes impaires restent, dans l'ordre d'ajout, avec la quantité 3
+     */
+    private static void verifier(Panier panier, List<Produit> produits, int taille, long attendu, List<String> erreurs){
+        int restantes = taille / 2;
+        if(panier.getProduits().size() != restantes || panier.getItemCount() != 3 * restantes){
+            erreurs.add(taille + " lignes : " + panier.getProduits().size() + " lignes et " + panier.getItemCount()
+                    + " articles au lieu de " + restantes + " et " + 3 * restantes);
+        }
+        if(panier.getTotalCentimes() != attendu){
+            erreurs.add(taille + " lignes : total " + panier.getTotalCentimes() + " au lieu de " + attendu);
+        }
+        Iterator<QteProduit> lignes = panier.getProduits().iterator();
+        for(int i = 1; i < taille && lignes.hasNext(); i += 2){
+            QteProduit ligne = lignes.next();
+            if(ligne.getProduit() != produits.get(i) || ligne.getQuantite() != 3){
+                erreurs.add(taille + " lignes : position " + (i / 2) + " occupée par " + ligne);
+                break;
+            }
+        }
+        if(panier.removeProduct(produits.get(0).getId())){
+            erreurs.add(taille + " lignes : ligne retirée deux fois");
+        }
+    }
+
+    /**
+     * Ancienne implémentation : liste parcourue à chaque ajout pour trouver la ligne du produit
+     * @return Nanosecondes par ajout (seule la recherche de la ligne est reproduite)
+     */
+    private static double ancienneListe(List<Produit> produits, int taille){
+        List<QteProduit> lignes = new ArrayList<>();
+        long debut = System.nanoTime();
+        for(int passe = 1; passe <= 2; passe++){
+            for(int i = 0; i < taille; i++){
+                Produit produit = produits.get(i);
+                boolean trouve = false;
+                for(QteProduit ligne : lignes){
+                    if(ligne.getProduit().getId() == produit.getId()){
+                        trouve = true;
+                        break;
+                    }
+                }
+                if(!trouve){
+                    lignes.add(new QteProduit(produit, passe));
+                }
+            }
+        }
+        return (System.nanoTime() - debut) / (2.0 * taille);
+    }
+}
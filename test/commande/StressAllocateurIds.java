@@ -0,0 +1,118 @@
+package commande;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Test de charge d'AllocateurIds, sans framework de test
+ * Plusieurs threads mélangent allouerUn, allouerDansBloc (tailles variables), reserver et
+ * avancerApres : aucun identifiant ne doit être attribué deux fois, et chaque façon d'allouer
+ * doit rendre des identifiants strictement croissants dans un même thread.
+ * Usage : java -cp bin:bin-test commande.StressAllocateurIds [threads] [allocations par thread]
+ * Code de sortie 1 en cas d'échec
+ */
+public class StressAllocateurIds {
+
+    public static void main(String[] args) throws InterruptedException {
+        int nbThreads = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+        int parThread = args.length > 1 ? Integer.parseInt(args[1]) : 500_000;
+
+        List<String> erreurs = Collections.synchronizedList(new ArrayList<>());
+        List<int[]> attribues = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch depart = new CountDownLatch(1);
+
+        List<Thread> threads = new ArrayList<>();
+        for(int t = 0; t < nbThreads; t++){
+            Thread thread = new Thread(() -> {
+                attendre(depart);
+                ThreadLocalRandom aleatoire = ThreadLocalRandom.current();
+                int[] ids = new int[parThread];
+                int n = 0;
+                int dernierUn = 0;
+                int dernierBloc = 0;
+                int derniereReserve = 0;
+                while(n < parThread){
+                    int choix = aleatoire.nextInt(100);
+                    if(choix < 40){
+                        int id = AllocateurIds.allouerUn();
+                        if(id <= dernierUn){
+                            erreurs.add("allouerUn non croissant : " + id + " après " + dernierUn);
+                        }
+                        dernierUn = id;
+                        ids[n++] = id;
+                    } else if(choix < 85){
+                        int id = AllocateurIds.allouerDansBloc(1 + aleatoire.nextInt(64));
+                        if(id <= dernierBloc){
+                            erreurs.add("allouerDansBloc non croissant : " + id + " après " + dernierBloc);
+                        }
+                        dernierBloc = id;
+                        ids[n++] = id;
+                    } else if(choix < 99){
+                        int taille = Math.min(1 + aleatoire.nextInt(32), parThread - n);
+                        int premier = AllocateurIds.reserver(taille);
+                        if(premier <= derniereReserve){
+                            erreurs.add("reserver non croissant : " + premier + " après " + derniereReserve);
+                        }
+                        derniereReserve = premier + taille - 1;
+                        for(int i = 0; i < taille; i++){
+                            ids[n++] = premier + i;
+                        }
+                    } else if(n > 0){
+                        // Comme une commande restaurée : ne doit jamais faire réattribuer un identifiant
+                        AllocateurIds.avancerApres(ids[aleatoire.nextInt(n)]);
+                    }
+                }
+                attribues.add(ids);
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        long debut = System.nanoTime();
+        depart.countDown();
+        for(Thread thread : threads){
+            thread.join();
+        }
+        long duree = (System.nanoTime() - debut) / 1_000_000;
+
+        // Vérification : chaque identifiant attribué une seule fois, tous positifs
+        BitSet vus = new BitSet();
+        long total = 0;
+        for(int[] ids : attribues){
+            for(int id : ids){
+                if(id < 1){
+                    erreurs.add("Identifiant invalide : " + id);
+                } else if(vus.get(id)){
+                    erreurs.add("Identifiant attribué deux fois : " + id);
+                } else {
+                    vus.set(id);
+                }
+                total++;
+            }
+        }
+        if(attribues.size() != nbThreads){
+            erreurs.add("Threads terminés : " + attribues.size() + " sur " + nbThreads);
+        }
+
+        System.out.println(nbThreads + " threads, " + total + " identifiants vérifiés en " + duree + " ms");
+        if(!erreurs.isEmpty()){
+            for(String erreur : erreurs.subList(0, Math.min(10, erreurs.size()))){
+                System.out.println("ÉCHEC : " + erreur);
+            }
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    private static void attendre(CountDownLatch depart){
+        try {
+            depart.await();
+        } catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package produit;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mesure d'ImportCatalogue sur des fichiers générés, sans framework de test
+ * Un fichier CSV (marque d'ordre des octets, fins de ligne CRLF, champs entre guillemets) et un
+ * fichier JSON lines (échappements) sont importés ; une ligne sur cent est invalide (prix négatif
+ * ou mal écrit, nom ou catégorie manquant, JSON mal formé). Les comptes du rapport, le nombre de
+ * produits et la somme exacte des prix de chaque catégorie, ainsi que le texte des champs
+ * échappés sont vérifiés ; le débit et le pic mémoire de chaque import sont affichés.
+ * Usage : java -cp bin:bin-test produit.MesureImportCatalogue [lignes par fichier] [catégories]
+ * Code de sortie 1 en cas d'échec
+ */
+public class MesureImportCatalogue {
+
+    public static void main(String[] args) throws IOException {
+        int nbLignes = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int nbCategories = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+        List<String> erreurs = new ArrayList<>();
+        Path dossier = Files.createTempDirectory("import-catalogue");
+        try {
+            Path csv = dossier.resolve("catalogue.csv");
+            Path jsonl = dossier.resolve("catalogue.jsonl");
+            long[][] attenduCsv = ecrireCsv(csv, nbLignes, nbCategories);
+            long[][] attenduJson = ecrireJsonLignes(jsonl, nbLignes, nbCategories);
+
+            verifier("CSV", ImportCatalogue.importer(csv), attenduCsv, "Rayon CSV ", erreurs);
+            verifier("JSON lines", ImportCatalogue.importer(jsonl), attenduJson, "Rayon JSON ", erreurs);
+
+            // Champs entre guillemets et échappés : le texte doit arriver intact
+            verifierProduit("Article CSV 7", "Lot de 7, couleur \"bleu\"", erreurs);
+            verifierProduit("Article JSON 7", "Lot \"7\"\tété", erreurs);
+        } finally {
+            Files.deleteIfExists(dossier.resolve("catalogue.csv"));
+            Files.deleteIfExists(dossier.resolve("catalogue.jsonl"));
+            Files.deleteIfExists(dossier);
+        }
+
+        if(!erreurs.isEmpty()){
+            for(String erreur : erreurs.subList(0, Math.min(10, erreurs.size()))){
+                System.out.println("ÉCHEC : " + erreur);
+            }
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    /**
+     * Écrire le fichier CSV
+     * @return {produits attendus, somme des prix en centimes} par catégorie, puis {lignes rejetées}
+     */
+    private static long[][] ecrireCsv(Path fichier, int nbLignes, int nbCategories) throws IOException {
+        long[][] attendu = new long[nbCategories + 1][2];
+        try(BufferedWriter ecriture = Files.newBufferedWriter(fichier, StandardCharsets.UTF_8)){
+            ecriture.write("\uFEFFnom,description,prix,categorie\r\n");
+            for(int i = 0; i < nbLignes; i++){
+                int categorie = i % nbCategories;
+                long centimes = 100 + (i * 37L) % 100_000;
+                String prix = (centimes / 100) + (i % 2 == 0 ? "." : ",") + String.format("%02d", centimes % 100);
+                if(i % 100 == 99){
+                    attendu[nbCategories][0]++;
+                    switch((i / 100) % 5){
+                        case 0: ecriture.write("Article CSV " + i + ",Prix négatif,-" + prix.replace(',', '.') + ",Rayon CSV 0\r\n"); break;
+                        case 1: ecriture.write(",Sans nom,1.00,Rayon CSV 0\n"); break;
+                        case 2: ecriture.write("Article CSV " + i + ",Sans catégorie,1.00,\n"); break;
+                        case 3: ecriture.write("Article CSV " + i + ",Chiffres arabes,\u0661\u0662,Rayon CSV 0\n"); break;
+                        default: ecriture.write("Article CSV " + i + ",\"Guillemet non fermé,1.00,Rayon CSV 0\n"); break;
+                    }
+                    continue;
+                }
+                String description = i % 7 == 0 ? "\"Lot de " + i + ", couleur \"\"bleu\"\"\"" : "Description " + i;
+                ecriture.write("Article CSV " + i + "," + description + ",\"" + prix + "\",Rayon CSV " + categorie
+                        + (i % 3 == 0 ? "\r\n" : "\n"));
+                attendu[categorie][0]++;
+                attendu[categorie][1] += centimes;
+            }
+        }
+        return attendu;
+    }
+
+    /**
+     * Écrire le fichier JSON lines
+     * @return {produits attendus, somme des prix en centimes} par catégorie, puis {lignes rejetées}
+     */
+    private static long[][] ecrireJsonLignes(Path fichier, int nbLignes, int nbCategories) throws IOException {
+        long[][] attendu = new long[nbCategories + 1][2];
+        try(BufferedWriter ecriture = Files.newBufferedWriter(fichier, StandardCharsets.UTF_8)){
+            for(int i = 0; i < nbLignes; i++){
+                int categorie = i % nbCategories;
+                long centimes = 100 + (i * 53L) % 100_000;
+                String prix = (centimes / 100) + "." + String.format("%02d", centimes % 100);
+                if(i % 100 == 99){
+                    attendu[nbCategories][0]++;
+                    switch((i / 100) % 4){
+                        case 0: ecriture.write("{\"nom\": \"Article JSON " + i + "\", \"prix\": -" + prix + ", \"categorie\": \"Rayon JSON 0\"}\n"); break;
+                        case 1: ecriture.write("{\"nom\": \"Article JSON " + i + "\", \"categorie\": \"Rayon JSON 0\"}\n"); break;
+                        case 2: ecriture.write("{\"nom\": \"Article JSON " + i + "\", \"prix\": 1.00, \"categorie\": null}\n"); break;
+                        default: ecriture.write("{\"nom\": \"Article JSON " + i + "\", \"prix\": 1.00\n"); break;
+                    }
+                    continue;
+                }
+                String description = i % 7 == 0 ? "Lot \\\"" + i + "\\\"\\t\\u00e9t\\u00e9" : "Description " + i;
+                ecriture.write("{\"nom\": \"Article JSON " + i + "\", \"description\": \"" + description
+                        + "\", \"prix\": " + prix + ", \"categorie\": \"Rayon JSON " + categorie + "\"}\n");
+                attendu[categorie][0]++;
+                attendu[categorie][1] += centimes;
+            }
+        }
+        return attendu;
+    }
+
+    private static void verifier(String format, ImportCatalogue.Rapport rapport, long[][] attendu,
+                                 String prefixeCategorie, List<String> erreurs){
+        System.out.println(format + " : " + rapport);
+        int nbCategories = attendu.length - 1;
+        long lignes = 0;
+        for(int c = 0; c < nbCategories; c++){
+            lignes += attendu[c][0];
+            Category category = Category.findByNom(prefixeCategorie + c);
+            if(category == null){
+                erreurs.add(format + " : catégorie " + prefixeCategorie + c + " absente");
+                continue;
+            }
+            long somme = 0;
+            for(Produit produit : category.getProduits()){
+                somme += produit.getPrixCentimes();
+            }
+            if(category.getProductCount() != attendu[c][0] || somme != attendu[c][1]){
+                erreurs.add(format + " : catégorie " + prefixeCategorie + c + " avec " + category.getProductCount()
+                        + " produits pour " + somme + " centimes au lieu de " + attendu[c][0] + " pour " + attendu[c][1]);
+            }
+        }
+        if(rapport.getLignes() != lignes || rapport.getErreurs() != attendu[nbCategories][0]){
+            erreurs.add(format + " : rapport " + rapport.getLignes() + " produits / " + rapport.getErreurs()
+                    + " rejets au lieu de " + lignes + " / " + attendu[nbCategories][0]);
+        }
+        if(rapport.getLignesParSeconde() <= 0 || rapport.getPiqueMemoire() <= 0){
+            erreurs.add(format + " : débit ou pic mémoire absent du rapport");
+        }
+    }
+
+    private static void verifierProduit(String nom, String description, List<String> erreurs){
+        for(Produit produit : Produit.rechercher(nom, 5)){
+            if(produit.getNom().equals(nom)){
+                if(!produit.getDescription().equals(description)){
+                    erreurs.add(nom + " : description [" + produit.getDescription() + "] au lieu de [" + description + "]");
+                }
+                return;
+            }
+        }
+        erreurs.add(nom + " introuvable");
+    }
+}
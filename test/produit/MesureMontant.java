@@ -0,0 +1,162 @@
+package produit;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mesure de Montant, sans framework de test
+ * 100 millions de totaux de commande sont additionnés en centimes (Montant.ajouter) et en
+ * euros dans un float, comme avant : la somme en float doit dériver, celle en centimes être
+ * exacte, aussi rapide que celle en float (à 25 % près, meilleur de trois passes) et ne rien
+ * allouer. Les règles d'arrondi, de lecture et de dépassement de capacité sont vérifiées sur
+ * des cas limites.
+ * Usage : java -cp bin:bin-test produit.MesureMontant [totaux]
+ * Code de sortie 1 en cas d'échec
+ */
+public class MesureMontant {
+
+    public static void main(String[] args) {
+        long nbTotaux = args.length > 0 ? Long.parseLong(args[0]) : 100_000_000L;
+
+        List<String> erreurs = new ArrayList<>();
+        verifierRegles(erreurs);
+
+        long msFloat = Long.MAX_VALUE;
+        long msCentimes = Long.MAX_VALUE;
+        float sommeFloat = 0;
+        long sommeCentimes = 0;
+        for(int passe = 0; passe < 3; passe++){
+            long debut = System.nanoTime();
+            sommeFloat = sommerFloat(nbTotaux);
+            msFloat = Math.min(msFloat, (System.nanoTime() - debut) / 1_000_000);
+            debut = System.nanoTime();
+            sommeCentimes = sommerCentimes(nbTotaux);
+            msCentimes = Math.min(msCentimes, (System.nanoTime() - debut) / 1_000_000);
+        }
+        // Référence indépendante : un double additionne exactement des entiers jusqu'à 2^53
+        double reference = sommerReference(nbTotaux);
+
+        System.out.println(nbTotaux + " totaux : float " + msFloat + " ms (" + String.format("%.2f", sommeFloat)
+                + " €), centimes " + msCentimes + " ms (" + Montant.formater(sommeCentimes) + " €)");
+        if(reference >= 0x1p53 || sommeCentimes != (long) reference){
+            erreurs.add("Somme en centimes " + sommeCentimes + " au lieu de " + (long) reference);
+        }
+        if(nbTotaux >= 1_000_000 && Math.abs(sommeFloat * 100.0 - reference) < 100){
+            erreurs.add("La somme en float ne dérive pas : la mesure ne reproduit pas l'ancien calcul");
+        }
+        if(msCentimes > msFloat * 5 / 4 + 5){
+            erreurs.add("Somme en centimes plus lente que la somme en float : " + msCentimes + " ms contre " + msFloat + " ms");
+        }
+        long alloue = octetsAlloues(1_000_000);
+        if(alloue > 1024){
+            erreurs.add("Un million d'additions allouent " + alloue + " octets");
+        }
+
+        if(!erreurs.isEmpty()){
+            for(String erreur : erreurs.subList(0, Math.min(10, erreurs.size()))){
+                System.out.println("ÉCHEC : " + erreur);
+            }
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    /**
+     * Total de la commande numéro i, en centimes (de 1 € à 500 €, pseudo-aléatoire)
+     */
+    private static long total(long i){
+        long x = i * 0x9E3779B97F4A7C15L;
+        x ^= x >>> 29;
+        return 100 + Math.floorMod(x, 49_900L);
+    }
+
+    private static float sommerFloat(long nombre){
+        float somme = 0;
+        for(long i = 0; i < nombre; i++){
+            somme += total(i) / 100f;
+        }
+        return somme;
+    }
+
+    private static long sommerCentimes(long nombre){
+        long somme = Montant.ZERO;
+        for(long i = 0; i < nombre; i++){
+            somme = Montant.ajouter(somme, total(i));
+        }
+        return somme;
+    }
+
+    private static double sommerReference(long nombre){
+        double somme = 0;
+        for(long i = 0; i < nombre; i++){
+            somme += total(i);
+        }
+        return somme;
+    }
+
+    private static long octetsAlloues(long nombre){
+        if(!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)){
+            return 0;  // Mesure indisponible sur cette JVM
+        }
+        com.sun.management.ThreadMXBean mesure = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+        long avant = mesure.getThreadAllocatedBytes(id);
+        long somme = sommerCentimes(nombre);
+        long apres = mesure.getThreadAllocatedBytes(id);
+        return somme > 0 ? apres - avant : Long.MAX_VALUE;
+    }
+
+    private static void verifierRegles(List<String> erreurs){
+        attendre("depuisEuros(19.99f)", Montant.depuisEuros(19.99f), 1999, erreurs);
+        attendre("depuisEuros(1.005f)", Montant.depuisEuros(1.005f), 101, erreurs);
+        attendre("depuisEuros(-1.005)", Montant.depuisEuros(-1.005), -101, erreurs);
+        attendre("parser(\"12,345\")", Montant.parser("12,345"), 1235, erreurs);
+        attendre("parser(\" -3.005 \")", Montant.parser(" -3.005 "), -301, erreurs);
+        attendre("parser(\".5\")", Montant.parser(".5"), 50, erreurs);
+        attendre("diviser(5, 2)", Montant.diviser(5, 2), 3, erreurs);
+        attendre("diviser(-5, 2)", Montant.diviser(-5, 2), -3, erreurs);
+        attendre("diviser(7, 3)", Montant.diviser(7, 3), 2, erreurs);
+        if(!Montant.formater(-5).equals("-0.05") || !Montant.formater(123_450).equals("1234.50")){
+            erreurs.add("formater : " + Montant.formater(-5) + " et " + Montant.formater(123_450));
+        }
+        for(String invalide : new String[]{"", " ", "-", "1.2.3", "12a", "0x10", "١٢", "１２", "1e3"}){
+            try {
+                long lu = Montant.parser(invalide);
+                erreurs.add("parser(\"" + invalide + "\") accepté : " + lu);
+            } catch(NumberFormatException e){
+                // Refus attendu
+            }
+        }
+        try {
+            Montant.parser("92233720368547758.08");
+            erreurs.add("parser : dépassement de capacité accepté");
+        } catch(ArithmeticException e){
+            // Refus attendu
+        }
+        try {
+            Montant.ajouter(Long.MAX_VALUE, 1);
+            erreurs.add("ajouter : dépassement de capacité accepté");
+        } catch(ArithmeticException e){
+            // Refus attendu
+        }
+        try {
+            Montant.multiplier(Long.MAX_VALUE / 2, 3);
+            erreurs.add("multiplier : dépassement de capacité accepté");
+        } catch(ArithmeticException e){
+            // Refus attendu
+        }
+        try {
+            Montant.depuisEuros(Float.NaN);
+            erreurs.add("depuisEuros(NaN) accepté");
+        } catch(IllegalArgumentException e){
+            // Refus attendu
+        }
+    }
+
+    private static void attendre(String calcul, long obtenu, long attendu, List<String> erreurs){
+        if(obtenu != attendu){
+            erreurs.add(calcul + " = " + obtenu + " au lieu de " + attendu);
+        }
+    }
+}
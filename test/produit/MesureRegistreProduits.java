@@ -0,0 +1,115 @@
+package produit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Mesure de Produit.findProduitById, sans framework de test
+ * Le catalogue grandit par paliers (1 000, 10 000, 100 000... produits) ; à chaque palier, la
+ * recherche par le registre indexé est comparée à l'ancien parcours linéaire de la liste des
+ * produits, pour situer le point de croisement. Chaque produit doit être retrouvé par son ID,
+ * un ID inconnu doit donner null, et le registre doit battre le parcours dès 100 000 produits.
+ * Usage : java -cp bin:bin-test produit.MesureRegistreProduits [produits] [recherches par palier]
+ * Code de sortie 1 en cas d'échec
+ */
+public class MesureRegistreProduits {
+
+    public static void main(String[] args) {
+        int nbProduits = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int nbRecherches = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        List<String> erreurs = new ArrayList<>();
+        List<Produit> crees = new ArrayList<>();
+        long puits = 0;  // Empêche le JIT d'éliminer les recherches
+        int croisement = -1;
+
+        System.out.println("produits    parcours (ns)   registre (ns)");
+        for(int palier = 1_000; palier <= nbProduits; palier = palier >= nbProduits / 10 && palier < nbProduits ? nbProduits : palier * 10){
+            while(crees.size() < palier){
+                crees.add(new Produit("Produit " + crees.size(), "Description " + crees.size(), 1 + crees.size() % 500));
+            }
+
+            // Le parcours coûte O(n) : moins de recherches aux grands paliers pour garder un temps raisonnable
+            int recherchesParcours = Math.max(50, (int) Math.min(nbRecherches, 20_000_000L / palier));
+            int[] ids = idsAleatoires(crees, Math.max(nbRecherches, recherchesParcours));
+            for(int tour = 0; tour < 2; tour++){  // Premier tour : chauffe du JIT
+                puits += parcourir(ids, recherchesParcours);
+                puits += chercher(ids, nbRecherches);
+            }
+            long debut = System.nanoTime();
+            puits += parcourir(ids, recherchesParcours);
+            double nsParcours = (System.nanoTime() - debut) / (double) recherchesParcours;
+            debut = System.nanoTime();
+            puits += chercher(ids, nbRecherches);
+            double nsRegistre = (System.nanoTime() - debut) / (double) nbRecherches;
+            System.out.println(String.format("%8d %15.0f %15.1f", palier, nsParcours, nsRegistre));
+
+            if(croisement < 0 && nsRegistre < nsParcours){
+                croisement = palier;
+            }
+            if(palier >= 100_000 && nsRegistre >= nsParcours){
+                erreurs.add("Registre plus lent que le parcours à " + palier + " produits : "
+                        + Math.round(nsRegistre) + " ns contre " + Math.round(nsParcours) + " ns");
+            }
+        }
+
+        // Vérification : chaque produit retrouvé dans sa case, rien au-delà
+        for(Produit produit : crees){
+            if(Produit.findProduitById(produit.getId()) != produit){
+                erreurs.add("Produit " + produit.getId() + " introuvable ou remplacé");
+            }
+        }
+        if(Produit.findProduitById(-1) != null){
+            erreurs.add("Un ID négatif donne un produit");
+        }
+        if(Produit.findProduitById(crees.size()) != null){
+            erreurs.add("L'ID " + crees.size() + " (jamais attribué) donne un produit");
+        }
+
+        if(puits <= 0){
+            erreurs.add("Aucun prix lu pendant les recherches");
+        }
+
+        System.out.println(crees.size() + " produits vérifiés, registre plus rapide dès "
+                + (croisement < 0 ? "aucun palier" : croisement + " produits"));
+        if(!erreurs.isEmpty()){
+            for(String erreur : erreurs.subList(0, Math.min(10, erreurs.size()))){
+                System.out.println("ÉCHEC : " + erreur);
+            }
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    private static int[] idsAleatoires(List<Produit> produits, int nombre){
+        int[] ids = new int[nombre];
+        for(int i = 0; i < nombre; i++){
+            ids[i] = produits.get(ThreadLocalRandom.current().nextInt(produits.size())).getId();
+        }
+        return ids;
+    }
+
+    /** Ancienne implémentation : parcours de la liste de tous les produits */
+    private static long parcourir(int[] ids, int nombre){
+        long somme = 0;
+        List<Produit> produits = Produit.getAllProducts();
+        for(int i = 0; i < nombre; i++){
+            for(Produit produit : produits){
+                if(produit.getId() == ids[i]){
+                    somme += produit.getPrixCentimes();
+                    break;
+                }
+            }
+        }
+        return somme;
+    }
+
+    private static long chercher(int[] ids, int nombre){
+        long somme = 0;
+        for(int i = 0; i < nombre; i++){
+            somme += Produit.findProduitById(ids[i]).getPrixCentimes();
+        }
+        return somme;
+    }
+}
@@ -0,0 +1,281 @@
+package sauvegarde;
+
+import account.Account;
+import account.Localisation;
+import account.MotDePasse;
+import account.User;
+import commande.Panier;
+import commande.QteProduit;
+import produit.Category;
+import produit.Produit;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Mesure des instantanés (sauvegarde.Instantane), sans framework de test
+ * Un système de produits, catégories, comptes et commandes (dont la moitié livrées) est écrit
+ * dans un instantané, puis rechargé dans une autre JVM (les données sont statiques) : le temps
+ * de démarrage est comparé au recalcul des empreintes de mot de passe qu'un chargement évite.
+ * Sont vérifiés : le même état après chargement (effectifs, prix, contenu des catégories,
+ * adresses, totaux et statuts des commandes), la connexion d'un compte restauré, un second
+ * instantané écrit après chargement identique au premier une fois rechargé, aucun fichier
+ * temporaire laissé, et le refus d'un fichier corrompu ou tronqué sans aucun état partiel.
+ * Usage : java -cp bin:bin-test sauvegarde.MesureInstantane [produits] [comptes] [commandes]
+ * Code de sortie 1 en cas d'échec
+ */
+public class MesureInstantane {
+
+    private static final String MOT_DE_PASSE = "secret-instantane";
+
+    public static void main(String[] args) throws Exception {
+        if(args.length > 0 && !Character.isDigit(args[0].charAt(0))){
+            processusEnfant(args);
+            return;
+        }
+        int nbProduits = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int nbComptes = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+        int nbCommandes = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+
+        List<String> erreurs = new ArrayList<>();
+        Path dossier = Files.createTempDirectory("instantane");
+        PrintStream sortie = System.out;
+        try {
+            // Coût d'une empreinte au nombre d'itérations courant, JIT chauffé (meilleur de cinq)
+            String empreinte = null;
+            double msHachage = Double.MAX_VALUE;
+            for(int i = 0; i < 5; i++){
+                long debut = System.nanoTime();
+                empreinte = MotDePasse.hacher(MOT_DE_PASSE);
+                msHachage = Math.min(msHachage, (System.nanoTime() - debut) / 1e6);
+            }
+
+            System.setOut(silencieux());
+            long debut = System.nanoTime();
+            try {
+                construire(nbProduits, nbComptes, nbCommandes, empreinte);
+            } finally {
+                System.setOut(sortie);
+            }
+            double sConstruction = (System.nanoTime() - debut) / 1e9;
+            long[] attendu = empreinteEtat();
+
+            Path fichier = dossier.resolve("etat.bin");
+            Instantane.Bilan ecrit = Instantane.ecrire(fichier);
+            System.out.println("Construction sans hachage : " + String.format("%.2f s", sConstruction) + ", écriture : " + ecrit);
+            try(Stream<Path> fichiers = Files.list(dossier)){
+                long autres = fichiers.filter(f -> !f.equals(fichier)).count();
+                if(autres > 0){
+                    erreurs.add(autres + " fichiers temporaires laissés après l'écriture");
+                }
+            }
+            try {
+                Instantane.charger(fichier);
+                erreurs.add("Chargement accepté dans un système non vide");
+            } catch(IllegalStateException e){
+                // Refus attendu
+            }
+
+            // Chargement dans une JVM neuve, puis nouvel instantané écrit depuis l'état chargé
+            Path copie = dossier.resolve("copie.bin");
+            String[] charge = executerEnfant(erreurs, "charger", fichier.toString(), copie.toString());
+            if(charge != null){
+                double sRehachage = nbComptes * msHachage / 1000;
+                System.out.println(String.format("Chargement : %s ms (%d comptes à rehacher sinon : %.0f s à %d itérations)",
+                        charge[0], nbComptes, sRehachage, MotDePasse.getIterations()));
+                comparer("Chargement", attendu, charge, erreurs);
+                if(Long.parseLong(charge[0]) / 1000.0 >= sRehachage){
+                    erreurs.add("Chargement plus long que le recalcul des empreintes : " + charge[0] + " ms");
+                }
+            }
+            String[] recharge = executerEnfant(erreurs, "charger", copie.toString());
+            if(recharge != null){
+                comparer("Rechargement de l'instantané réécrit", attendu, recharge, erreurs);
+            }
+
+            // Fichier corrompu au milieu, puis tronqué : refusés, système laissé vide
+            byte[] octets = Files.readAllBytes(fichier);
+            octets[octets.length / 2] ^= 0x5A;
+            Path corrompu = dossier.resolve("corrompu.bin");
+            Files.write(corrompu, octets);
+            Path tronque = dossier.resolve("tronque.bin");
+            Files.write(tronque, Arrays.copyOf(octets, octets.length / 3));
+            for(Path invalide : new Path[]{corrompu, tronque}){
+                String[] refus = executerEnfant(erreurs, "charger", invalide.toString());
+                if(refus != null && !(refus[0].equals("refus") && refus[1].equals("0 0 0 0"))){
+                    erreurs.add(invalide.getFileName() + " : " + String.join(" ", refus));
+                }
+            }
+        } finally {
+            supprimer(dossier);
+        }
+
+        if(!erreurs.isEmpty()){
+            for(String erreur : erreurs.subList(0, Math.min(10, erreurs.size()))){
+                System.out.println("ÉCHEC : " + erreur);
+            }
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    private static void construire(int nbProduits, int nbComptes, int nbCommandes, String empreinte){
+        Random alea = new Random(25);
+        Produit[] produits = new Produit[nbProduits];
+        for(int i = 0; i < nbProduits; i++){
+            produits[i] = Produit.enCentimes("Produit " + i, "Description du produit " + i, 100 + alea.nextInt(100_000));
+        }
+        for(int c = 0; c < 200; c++){
+            List<Produit> contenu = new ArrayList<>();
+            for(int i = c; i < nbProduits; i += 200){
+                contenu.add(produits[i]);
+            }
+            Category.restaurer("Catégorie " + c, "Rayon " + c, contenu);
+        }
+        User[] comptes = new User[nbComptes];
+        for(int i = 0; i < nbComptes; i++){
+            Localisation adresse = i % 3 == 0 ? null : new Localisation("Ville " + i % 50, "Secteur " + i % 20, "Rue " + i);
+            comptes[i] = User.restaurer("Nom " + i, "Prénom " + i, "client" + i + "@exemple.com", empreinte, adresse, true);
+        }
+        for(int i = 0; i < nbCommandes; i++){
+            Panier panier = new Panier(comptes[alea.nextInt(nbComptes)]);
+            for(int j = 0; j < 3; j++){
+                panier.addProduct(new QteProduit(produits[alea.nextInt(nbProduits)], 1 + alea.nextInt(3)));
+            }
+            panier.validerPanier();
+            if(i % 2 == 0){
+                panier.livrerPanier();
+            }
+        }
+    }
+
+    /**
+     * Résumé de l'état en mémoire, comparé entre l'écriture et le chargement
+     * @return Produits, somme des prix, catégories, produits rangés dans les catégories, comptes,
+     * comptes avec adresse, commandes, commandes livrées, somme des totaux, somme des IDs de commande
+     */
+    private static long[] empreinteEtat(){
+        long[] resume = new long[10];
+        for(Produit produit : Produit.getAllProducts()){
+            resume[0]++;
+            resume[1] += produit.getPrixCentimes();
+        }
+        for(Category category : Category.findTouteCategory()){
+            resume[2]++;
+            resume[3] += category.getProductCount();
+        }
+        for(Account compte : Account.getAllAccounts()){
+            resume[4]++;
+            if(compte instanceof User && ((User) compte).hasAddress()){
+                resume[5]++;
+            }
+        }
+        for(Panier commande : Panier.getAllOrders()){
+            resume[6]++;
+            resume[7] += commande.getStatus() == 2 ? 1 : 0;
+            resume[8] += commande.getTotalCentimes();
+            resume[9] += commande.getId();
+        }
+        return resume;
+    }
+
+    private static void comparer(String cas, long[] attendu, String[] obtenu, List<String> erreurs){
+        long[] resume = new long[attendu.length];
+        for(int i = 0; i < resume.length; i++){
+            resume[i] = Long.parseLong(obtenu[i + 1]);
+        }
+        if(!Arrays.equals(resume, attendu)){
+            erreurs.add(cas + " : état " + Arrays.toString(resume) + " au lieu de " + Arrays.toString(attendu));
+        }
+        if(!Boolean.parseBoolean(obtenu[obtenu.length - 1])){
+            erreurs.add(cas + " : connexion refusée pour un compte restauré");
+        }
+    }
+
+    /**
+     * Lancer ce programme dans une nouvelle JVM, sans données en mémoire
+     * @return Champs de la dernière ligne écrite par le processus, null en cas d'échec
+     */
+    private static String[] executerEnfant(List<String> erreurs, String... arguments) throws IOException, InterruptedException {
+        List<String> commande = new ArrayList<>();
+        commande.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        commande.add("-cp");
+        commande.add(System.getProperty("java.class.path"));
+        commande.add(MesureInstantane.class.getName());
+        Collections.addAll(commande, arguments);
+        Process processus = new ProcessBuilder(commande).redirectErrorStream(true).start();
+        String derniere = null;
+        try(BufferedReader lecteur = new BufferedReader(new InputStreamReader(processus.getInputStream(), StandardCharsets.UTF_8))){
+            for(String ligne = lecteur.readLine(); ligne != null; ligne = lecteur.readLine()){
+                derniere = ligne;
+            }
+        }
+        if(processus.waitFor() != 0 || derniere == null){
+            erreurs.add("Chargement de " + arguments[1] + " en échec : " + derniere);
+            return null;
+        }
+        return derniere.split(derniere.startsWith("refus") ? "\\|" : " ");
+    }
+
+    /**
+     * Partie exécutée dans la JVM enfant : charger un instantané et, si demandé, en écrire un nouveau
+     * Dernière ligne : durée en ms, résumé de l'état et connexion d'un compte restauré,
+     * ou "refus|" suivi des effectifs restés en mémoire
+     */
+    private static void processusEnfant(String[] args) throws IOException {
+        PrintStream sortie = System.out;
+        System.setOut(silencieux());
+        long debut = System.nanoTime();
+        try {
+            Instantane.charger(Paths.get(args[1]));
+        } catch(IOException | RuntimeException e){
+            sortie.println("refus|" + Produit.getAllProducts().size() + " " + Category.findTouteCategory().size()
+                    + " " + Account.getAllAccounts().size() + " " + Panier.getAllOrders().size() + "|" + e);
+            return;
+        }
+        long ms = (System.nanoTime() - debut) / 1_000_000;
+        if(args.length > 2){
+            Instantane.ecrire(Paths.get(args[2]));
+        }
+        Account compte = Account.findByEmail("client1@exemple.com");
+        boolean connexion = compte != null && compte.connecter("client1@exemple.com", MOT_DE_PASSE);
+        StringBuilder ligne = new StringBuilder().append(ms);
+        for(long valeur : empreinteEtat()){
+            ligne.append(' ').append(valeur);
+        }
+        sortie.println(ligne.append(' ').append(connexion));
+    }
+
+    private static PrintStream silencieux(){
+        return new PrintStream(new OutputStream(){
+            @Override
+            public void write(int b){
+                // Messages de création et de validation ignorés
+            }
+        });
+    }
+
+    private static void supprimer(Path dossier) throws IOException {
+        try(Stream<Path> chemins = Files.walk(dossier)){
+            List<Path> aSupprimer = new ArrayList<>();
+            chemins.sorted(Comparator.reverseOrder()).forEach(aSupprimer::add);
+            for(Path chemin : aSupprimer){
+                Files.delete(chemin);
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package session;
+
+import account.User;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test de charge de GestionnaireSessions, sans framework de test
+ * Plusieurs threads ouvrent 200 000 sessions, les retrouvent toutes puis en ferment la moitié :
+ * les jetons doivent être uniques, chaque session retrouvée par son jeton, une session fermée
+ * introuvable et fermée une seule fois. Ensuite, quelques sessions restent actives pendant que
+ * les autres dépassent la durée d'inactivité : seules les inactives doivent expirer.
+ * Usage : java -cp bin:bin-test session.StressGestionnaireSessions [threads] [sessions] [inactivité en ms]
+ * Code de sortie 1 en cas d'échec
+ */
+public class StressGestionnaireSessions {
+
+    public static void main(String[] args) throws InterruptedException {
+        int nbThreads = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+        int nbSessions = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        long inactivite = args.length > 2 ? Long.parseLong(args[2]) : 5_000;
+        int parThread = nbSessions / nbThreads;
+        nbSessions = parThread * nbThreads;
+
+        List<String> erreurs = Collections.synchronizedList(new ArrayList<>());
+        GestionnaireSessions gestionnaire = new GestionnaireSessions(inactivite, TimeUnit.MILLISECONDS);
+        User client = User.restaurer("Client", "Test", "client@exemple.com", "1:AA==:AA==", null, false);
+        String[][] jetons = new String[nbThreads][parThread];
+
+        // Ouverture
+        long duree = executer(nbThreads, t -> {
+            for(int i = 0; i < parThread; i++){
+                jetons[t][i] = gestionnaire.ouvrir(client, null).getJeton();
+            }
+        });
+        double usOuverture = duree / 1000.0 / nbSessions;
+        Set<String> uniques = new HashSet<>();
+        for(String[] jetonsThread : jetons){
+            Collections.addAll(uniques, jetonsThread);
+        }
+        if(uniques.size() != nbSessions || gestionnaire.getNombreSessions() != nbSessions){
+            erreurs.add(uniques.size() + " jetons distincts et " + gestionnaire.getNombreSessions()
+                    + " sessions ouvertes au lieu de " + nbSessions);
+        }
+
+        // Recherche de toutes les sessions, par un autre thread que celui qui l'a ouverte
+        duree = executer(nbThreads, t -> {
+            for(String jeton : jetons[(t + 1) % nbThreads]){
+                Session session = gestionnaire.trouver(jeton);
+                if(session == null || !session.getJeton().equals(jeton) || session.getUser() != client){
+                    erreurs.add("Session " + jeton + " introuvable ou incorrecte");
+                }
+            }
+        });
+        double nsRecherche = duree / (double) nbSessions;
+        if(gestionnaire.trouver("jeton-inconnu") != null){
+            erreurs.add("Un jeton inconnu donne une session");
+        }
+
+        // Déconnexion de la moitié des sessions, chacune tentée par deux threads
+        AtomicInteger fermetures = new AtomicInteger();
+        duree = executer(nbThreads, t -> {
+            for(int s = 0; s < 2; s++){
+                String[] aFermer = jetons[(t + s) % nbThreads];
+                for(int i = 0; i < parThread; i += 2){
+                    if(gestionnaire.fermer(aFermer[i])){
+                        fermetures.incrementAndGet();
+                    }
+                }
+            }
+        });
+        double nsFermeture = duree / (2.0 * nbThreads * ((parThread + 1) / 2));
+        int ouvertes = nbSessions - fermetures.get();
+        if(fermetures.get() != nbThreads * ((parThread + 1) / 2) || gestionnaire.getNombreSessions() != ouvertes){
+            erreurs.add(fermetures.get() + " fermetures réussies, " + gestionnaire.getNombreSessions() + " sessions restantes");
+        }
+        for(String[] jetonsThread : jetons){
+            if(gestionnaire.trouver(jetonsThread[0]) != null){
+                erreurs.add("Session fermée encore trouvée : " + jetonsThread[0]);
+            }
+        }
+
+        // Expiration : les sessions d'indice 1, 101, 201... restent actives, les autres expirent
+        long fin = System.currentTimeMillis() + inactivite * 5 / 2;
+        while(System.currentTimeMillis() < fin){
+            for(String[] jetonsThread : jetons){
+                for(int i = 1; i < parThread; i += 100){
+                    if(gestionnaire.trouver(jetonsThread[i]) == null){
+                        erreurs.add("Session active expirée : " + jetonsThread[i]);
+                        fin = 0;
+                        break;
+                    }
+                }
+            }
+            Thread.sleep(inactivite / 10);
+        }
+        // La roue a déjà retiré les sessions inactives, sans qu'on les recherche
+        int actives = nbThreads * ((parThread + 98) / 100);
+        if(gestionnaire.getNombreSessions() != actives){
+            erreurs.add(gestionnaire.getNombreSessions() + " sessions dans le registre au lieu de " + actives + " actives");
+        }
+        for(String[] jetonsThread : jetons){
+            for(int i = 1; i < parThread; i += 2){
+                boolean trouvee = gestionnaire.trouver(jetonsThread[i]) != null;
+                if(i % 100 == 1){
+                    if(!trouvee){
+                        erreurs.add("Session active expirée : " + jetonsThread[i]);
+                    }
+                } else if(trouvee){
+                    erreurs.add("Session inactive toujours ouverte : " + jetonsThread[i]);
+                }
+            }
+        }
+
+        System.out.println(String.format("%d threads, %d sessions : ouverture %.1f µs, recherche %.0f ns, "
+                + "fermeture %.0f ns, %d sessions actives après expiration des autres",
+                nbThreads, nbSessions, usOuverture, nsRecherche, nsFermeture, actives));
+        if(!erreurs.isEmpty()){
+            for(String erreur : erreurs.subList(0, Math.min(10, erreurs.size()))){
+                System.out.println("ÉCHEC : " + erreur);
+            }
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    private interface Tache {
+        void executer(int numero);
+    }
+
+    /**
+     * Exécuter la même tâche dans plusieurs threads partant ensemble
+     * @return Durée en nanosecondes
+     */
+    private static long executer(int nbThreads, Tache tache) throws InterruptedException {
+        CountDownLatch depart = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for(int t = 0; t < nbThreads; t++){
+            final int numero = t;
+            Thread thread = new Thread(() -> {
+                attendre(depart);
+                tache.executer(numero);
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        long debut = System.nanoTime();
+        depart.countDown();
+        for(Thread thread : threads){
+            thread.join();
+        }
+        return System.nanoTime() - debut;
+    }
+
+    private static void attendre(CountDownLatch depart){
+        try {
+            depart.await();
+        } catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+}
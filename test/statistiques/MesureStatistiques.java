@@ -0,0 +1,231 @@
+package statistiques;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Test des fenêtres glissantes et de l'histogramme des montants, sans framework de test
+ * - Percentiles de l'histogramme comparés aux percentiles exacts de montants log-normaux (écart < 3 %),
+ *   et fusion de 60 histogrammes identique à un histogramme unique.
+ * - Fenêtres d'une minute, d'une heure et d'un jour alimentées sur trois jours simulés : à chaque
+ *   requête, la somme et le nombre doivent être exactement ceux des cases de la fenêtre.
+ * - Écritures concurrentes dans la même case : aucun montant perdu.
+ * - Débit de Statistiques.commandeValidee, et coût d'une requête indépendant du nombre de commandes.
+ * Usage : java -cp bin:bin-test statistiques.MesureStatistiques [threads] [commandes]
+ * Code de sortie 1 en cas d'échec
+ */
+public class MesureStatistiques {
+
+    // Reçoit le résultat des requêtes mesurées, pour que le JIT ne les élimine pas
+    private static volatile double puits;
+
+    public static void main(String[] args) throws InterruptedException {
+        int nbThreads = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+        int nbCommandes = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        List<String> erreurs = Collections.synchronizedList(new ArrayList<>());
+        verifierPercentiles(nbCommandes, erreurs);
+        verifierFenetres(erreurs);
+        verifierConcurrence(nbThreads, nbCommandes, erreurs);
+
+        if(!erreurs.isEmpty()){
+            for(String erreur : erreurs.subList(0, Math.min(10, erreurs.size()))){
+                System.out.println("ÉCHEC : " + erreur);
+            }
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    private static void verifierPercentiles(int nombre, List<String> erreurs){
+        Random alea = new Random(18);
+        long[] montants = new long[nombre];
+        Histogramme unique = new Histogramme();
+        Histogramme[] parMinute = new Histogramme[60];
+        for(int m = 0; m < parMinute.length; m++){
+            parMinute[m] = new Histogramme();
+        }
+        for(int i = 0; i < nombre; i++){
+            montants[i] = Math.round(Math.exp(8 + 1.2 * alea.nextGaussian()));  // Médiane vers 30 €
+            unique.enregistrer(montants[i]);
+            parMinute[i % parMinute.length].enregistrer(montants[i]);
+        }
+        Histogramme fusion = new Histogramme();
+        for(Histogramme histogramme : parMinute){
+            fusion.fusionner(histogramme);
+        }
+        Arrays.sort(montants);
+
+        StringBuilder ligne = new StringBuilder("Percentiles de " + nombre + " montants (exact / histogramme) :");
+        for(double p : new double[]{50, 95, 99, 99.9}){
+            long exact = montants[(int) Math.max(0, Math.ceil(p / 100 * nombre) - 1)];
+            long approche = unique.percentile(p);
+            ligne.append(String.format(" p%s %d / %d", p == 99.9 ? "99.9" : String.valueOf((int) p), exact, approche));
+            if(Math.abs(approche - exact) > 0.03 * exact){
+                erreurs.add("p" + p + " : " + approche + " au lieu de " + exact);
+            }
+            if(fusion.percentile(p) != approche){
+                erreurs.add("p" + p + " de la fusion : " + fusion.percentile(p) + " au lieu de " + approche);
+            }
+        }
+        System.out.println(ligne);
+        if(fusion.getNombre() != nombre || unique.getNombre() != nombre){
+            erreurs.add("Histogrammes de " + unique.getNombre() + " et " + fusion.getNombre() + " valeurs au lieu de " + nombre);
+        }
+    }
+
+    /**
+     * Trois jours simulés, une commande toutes les 7 secondes : chaque requête est comparée
+     * au total exact des commandes dont la période tombe dans la fenêtre
+     */
+    private static void verifierFenetres(List<String> erreurs){
+        long[][] reglages = {{60, 1000L}, {60, 60_000L}, {96, 900_000L}};  // Minute, heure, jour
+        FenetreGlissante[] fenetres = new FenetreGlissante[reglages.length];
+        for(int f = 0; f < reglages.length; f++){
+            fenetres[f] = new FenetreGlissante((int) reglages[f][0], reglages[f][1], f == 1);
+        }
+        long origine = 1_700_000_000_000L;
+        int nbCommandes = 3 * 24 * 3600 / 7;
+        long[] instants = new long[nbCommandes];
+        long[] montants = new long[nbCommandes];
+        Random alea = new Random(7);
+        int requetes = 0;
+        for(int i = 0; i < nbCommandes; i++){
+            instants[i] = origine + i * 7_000L + alea.nextInt(7_000);
+            montants[i] = 100 + alea.nextInt(100_000);
+            for(FenetreGlissante fenetre : fenetres){
+                fenetre.ajouter(instants[i], montants[i]);
+            }
+            if(i % 97 == 0){
+                long maintenant = instants[i] + alea.nextInt(3_000);
+                for(int f = 0; f < fenetres.length; f++){
+                    comparer(fenetres[f], reglages[f], instants, montants, i, maintenant, erreurs);
+                }
+                requetes++;
+            }
+        }
+        // Après une longue interruption, toutes les cases sont périmées
+        long apresPause = instants[nbCommandes - 1] + 2 * 24 * 3600_000L;
+        for(int f = 0; f < fenetres.length; f++){
+            comparer(fenetres[f], reglages[f], instants, montants, nbCommandes - 1, apresPause, erreurs);
+        }
+        System.out.println(nbCommandes + " commandes sur trois jours simulés, " + requetes * fenetres.length + " requêtes de fenêtre vérifiées");
+    }
+
+    private static void comparer(FenetreGlissante fenetre, long[] reglage, long[] instants, long[] montants,
+                                 int dernier, long maintenant, List<String> erreurs){
+        long periode = maintenant / reglage[1];
+        long somme = 0;
+        long nombre = 0;
+        for(int i = dernier; i >= 0 && instants[i] / reglage[1] > periode - reglage[0]; i--){
+            if(instants[i] / reglage[1] <= periode){
+                somme += montants[i];
+                nombre++;
+            }
+        }
+        if(fenetre.getSomme(maintenant) != somme || fenetre.getNombre(maintenant) != nombre){
+            erreurs.add("Fenêtre de " + reglage[0] + " x " + reglage[1] + " ms à " + maintenant + " : "
+                    + fenetre.getSomme(maintenant) + " / " + fenetre.getNombre(maintenant)
+                    + " au lieu de " + somme + " / " + nombre);
+        }
+    }
+
+    /**
+     * Plusieurs threads valident des commandes en même temps ; le coût d'une requête du tableau
+     * de bord est mesuré à deux tailles pour vérifier qu'il ne dépend pas du nombre de commandes
+     */
+    private static void verifierConcurrence(int nbThreads, int nbCommandes, List<String> erreurs) throws InterruptedException {
+        int parThread = nbCommandes / nbThreads;
+        FenetreGlissante fenetre = new FenetreGlissante(60, 60_000L, true);
+        long instant = System.currentTimeMillis();
+        CountDownLatch depart = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for(int t = 0; t < nbThreads; t++){
+            Thread thread = new Thread(() -> {
+                attendre(depart);
+                for(int i = 0; i < parThread; i++){
+                    fenetre.ajouter(instant, 100);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        depart.countDown();
+        for(Thread thread : threads){
+            thread.join();
+        }
+        long attendu = (long) nbThreads * parThread;
+        if(fenetre.getNombre(instant) != attendu || fenetre.getSomme(instant) != 100 * attendu
+                || fenetre.getHistogramme(instant).getNombre() != attendu){
+            erreurs.add("Écritures concurrentes : " + fenetre.getNombre(instant) + " commandes, "
+                    + fenetre.getSomme(instant) + " centimes au lieu de " + attendu + ", " + 100 * attendu);
+        }
+
+        // Débit du point d'entrée utilisé par validerPanier, et coût des requêtes
+        double usPetit = 0;
+        long enregistrees = 0;
+        for(int palier = 0; palier < 2; palier++){
+            int parThreadPalier = palier == 0 ? parThread / 10 : parThread - parThread / 10;
+            CountDownLatch departPalier = new CountDownLatch(1);
+            threads.clear();
+            for(int t = 0; t < nbThreads; t++){
+                Thread thread = new Thread(() -> {
+                    attendre(departPalier);
+                    for(int i = 0; i < parThreadPalier; i++){
+                        Statistiques.commandeValidee(100 + i % 50_000);
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            long debut = System.nanoTime();
+            departPalier.countDown();
+            for(Thread thread : threads){
+                thread.join();
+            }
+            long duree = System.nanoTime() - debut;
+            enregistrees += (long) nbThreads * parThreadPalier;
+            System.out.println(String.format("%d commandes validées par %d threads : %.0f ns par commande",
+                    (long) nbThreads * parThreadPalier, nbThreads, duree / (double) (nbThreads * parThreadPalier)));
+            double us = coutRequete();
+            System.out.println(String.format("Requête du tableau de bord après %d commandes : %.1f µs", enregistrees, us));
+            if(palier == 0){
+                usPetit = us;
+            } else if(us > 5 * usPetit + 50){
+                erreurs.add("Requête plus lente avec plus de commandes : " + us + " µs contre " + usPetit);
+            }
+        }
+        if(Statistiques.getCommandesValidees() != enregistrees){
+            erreurs.add(Statistiques.getCommandesValidees() + " commandes comptées au lieu de " + enregistrees);
+        }
+    }
+
+    /**
+     * Coût moyen des lectures faites par Admin.displayStatistics
+     * @return Microsecondes par requête
+     */
+    private static double coutRequete(){
+        double somme = 0;
+        int nombre = 2_000;
+        long debut = System.nanoTime();
+        for(int i = 0; i < nombre; i++){
+            somme += Statistiques.getChiffreAffairesDerniereMinute() + Statistiques.getChiffreAffairesDerniereHeure()
+                    + Statistiques.getChiffreAffairesDernierJour() + Statistiques.getPercentileMontant(99)
+                    + Statistiques.getPercentileMontantDerniereHeure(99);
+        }
+        puits = somme;
+        return (System.nanoTime() - debut) / 1000.0 / nombre;
+    }
+
+    private static void attendre(CountDownLatch depart){
+        try {
+            depart.await();
+        } catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package stockage;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mesure de ListeInstantanee sous une charge de tableau de bord, sans framework de test
+ * Comme Admin.displayStatistics, chaque lecture consulte quatre stores (taille et dernier élément)
+ * pendant qu'un écrivain ajoute et retire des éléments. Le débit des lectures par instantané est
+ * comparé aux anciennes copies défensives (new ArrayList sous verrou). Un instantané doit rester
+ * figé après les écritures suivantes, ses éléments doivent rester dans l'ordre d'ajout, et une
+ * lecture ne doit allouer aucune mémoire proportionnelle à la taille des stores.
+ * Usage : java -cp bin:bin-test stockage.MesureListeInstantanee [lecteurs] [éléments par store] [durée en ms]
+ * Code de sortie 1 en cas d'échec
+ */
+public class MesureListeInstantanee {
+
+    private static final int STORES = 4;
+
+    // Reçoit le résultat des lectures mesurées, pour que le JIT ne les élimine pas
+    private static volatile long puits;
+
+    public static void main(String[] args) throws InterruptedException {
+        int nbLecteurs = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(2, Runtime.getRuntime().availableProcessors());
+        int taille = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        long duree = args.length > 2 ? Long.parseLong(args[2]) : 2_000;
+
+        List<String> erreurs = Collections.synchronizedList(new ArrayList<>());
+
+        // Stores publiant des instantanés, et leurs équivalents copiés à chaque lecture
+        List<ListeInstantanee<Integer>> stores = new ArrayList<>();
+        List<List<Integer>> copies = new ArrayList<>();
+        for(int s = 0; s < STORES; s++){
+            ListeInstantanee<Integer> store = new ListeInstantanee<>();
+            List<Integer> copie = new ArrayList<>();
+            for(int i = 0; i < taille; i++){
+                store.ajouter(i);
+                copie.add(i);
+            }
+            stores.add(store);
+            copies.add(copie);
+        }
+
+        long parInstantane = mesurer(nbLecteurs, duree, erreurs, stores, copies, true);
+        long parCopie = mesurer(nbLecteurs, duree, erreurs, stores, copies, false);
+        System.out.println(nbLecteurs + " lecteurs, " + STORES + " stores de " + taille + " éléments : "
+                + parInstantane * 1000 / duree + " lectures/s par instantané, "
+                + parCopie * 1000 / duree + " lectures/s par copie");
+        if(parInstantane <= parCopie){
+            erreurs.add("Instantanés pas plus rapides que les copies : " + parInstantane + " lectures contre " + parCopie);
+        }
+
+        // Un instantané pris avant des écritures ne change pas
+        ListeInstantanee<Integer> store = stores.get(0);
+        List<Integer> fige = store.instantane();
+        int tailleFigee = fige.size();
+        Integer dernier = fige.get(tailleFigee - 1);
+        long version = store.version();
+        store.ajouter(Integer.MAX_VALUE);
+        store.retirer(fige.get(0));
+        if(fige.size() != tailleFigee || !fige.get(tailleFigee - 1).equals(dernier)){
+            erreurs.add("Instantané modifié par une écriture ultérieure");
+        }
+        if(store.version() != version + 2){
+            erreurs.add("Version " + store.version() + " au lieu de " + (version + 2) + " après deux écritures");
+        }
+
+        // Une lecture n'alloue rien qui dépende de la taille des stores
+        long alloue = octetsAlloues(stores, 100_000);
+        if(alloue >= 0){
+            System.out.println("Mémoire allouée par lecture : " + alloue / 100_000 + " octets");
+            if(alloue / 100_000 > 64){
+                erreurs.add("Lecture allouant " + alloue / 100_000 + " octets");
+            }
+        }
+
+        if(!erreurs.isEmpty()){
+            for(String erreur : erreurs.subList(0, Math.min(10, erreurs.size()))){
+                System.out.println("ÉCHEC : " + erreur);
+            }
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    /**
+     * Faire tourner les lecteurs pendant la durée donnée, avec un écrivain qui ajoute et retire
+     * @return Nombre total de lectures
+     */
+    private static long mesurer(int nbLecteurs, long duree, List<String> erreurs,
+                                List<ListeInstantanee<Integer>> stores, List<List<Integer>> copies,
+                                boolean parInstantane) throws InterruptedException {
+        AtomicBoolean fini = new AtomicBoolean();
+        AtomicLong lectures = new AtomicLong();
+        CountDownLatch depart = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        for(int t = 0; t < nbLecteurs; t++){
+            Thread lecteur = new Thread(() -> {
+                attendre(depart);
+                long n = 0;
+                while(!fini.get()){
+                    for(int s = 0; s < STORES; s++){
+                        List<Integer> vue;
+                        if(parInstantane){
+                            vue = stores.get(s).instantane();
+                        } else {
+                            List<Integer> copie = copies.get(s);
+                            synchronized(copie){
+                                vue = new ArrayList<>(copie);
+                            }
+                        }
+                        // Les éléments sont ajoutés dans l'ordre croissant : un instantané cohérent le reste
+                        int derniere = vue.size() - 1;
+                        if(derniere > 0 && vue.get(derniere - 1) >= vue.get(derniere)){
+                            erreurs.add("Instantané incohérent en fin de store " + s);
+                        }
+                    }
+                    n++;
+                }
+                lectures.addAndGet(n);
+            });
+            threads.add(lecteur);
+            lecteur.start();
+        }
+
+        // Écrivain : ajoute en fin de store et retire le plus ancien élément, à un rythme modéré
+        Thread ecrivain = new Thread(() -> {
+            attendre(depart);
+            int prochain = 1 << 30;
+            while(!fini.get()){
+                for(int s = 0; s < STORES; s++){
+                    if(parInstantane){
+                        ListeInstantanee<Integer> store = stores.get(s);
+                        store.ajouter(prochain);
+                        store.retirer(store.get(0));
+                    } else {
+                        List<Integer> copie = copies.get(s);
+                        synchronized(copie){
+                            copie.add(prochain);
+                            copie.remove(0);
+                        }
+                    }
+                }
+                prochain++;
+                try {
+                    Thread.sleep(1);
+                } catch(InterruptedException e){
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        });
+        threads.add(ecrivain);
+        ecrivain.start();
+
+        depart.countDown();
+        Thread.sleep(duree);
+        fini.set(true);
+        for(Thread thread : threads){
+            thread.join();
+        }
+        return lectures.get();
+    }
+
+    /**
+     * Mémoire allouée par le thread courant pour un nombre de lectures d'instantanés
+     * @return Octets alloués, ou -1 si la JVM ne sait pas les compter
+     */
+    private static long octetsAlloues(List<ListeInstantanee<Integer>> stores, int nbLectures){
+        if(!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)){
+            return -1;
+        }
+        com.sun.management.ThreadMXBean mesure = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+        long somme = 0;
+        for(int i = 0; i < nbLectures; i++){  // Chauffe du JIT
+            somme += lire(stores);
+        }
+        long avant = mesure.getThreadAllocatedBytes(id);
+        for(int i = 0; i < nbLectures; i++){
+            somme += lire(stores);
+        }
+        long apres = mesure.getThreadAllocatedBytes(id);
+        puits = somme;
+        return apres - avant;
+    }
+
+    private static long lire(List<ListeInstantanee<Integer>> stores){
+        long somme = 0;
+        for(ListeInstantanee<Integer> store : stores){
+            List<Integer> vue = store.instantane();
+            somme += vue.size() + vue.get(vue.size() - 1);
+        }
+        return somme;
+    }
+
+    private static void attendre(CountDownLatch depart){
+        try {
+            depart.await();
+        } catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+}
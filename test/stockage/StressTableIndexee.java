@@ -0,0 +1,119 @@
+package stockage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test de charge de TableIndexee, sans framework de test
+ * Plusieurs threads remplissent des cases dans le désordre pendant que d'autres prennent
+ * des instantanés : un instantané ne doit jamais contenir de trou (case null), sa taille ne doit
+ * jamais reculer, et à la fin toutes les cases doivent être publiées avec le bon élément.
+ * Usage : java -cp bin:bin-test stockage.StressTableIndexee [threads] [cases par thread]
+ * Code de sortie 1 en cas d'échec
+ */
+public class StressTableIndexee {
+
+    public static void main(String[] args) throws InterruptedException {
+        int nbThreads = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+        int parThread = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int total = nbThreads * parThread;
+
+        TableIndexee<Integer> table = new TableIndexee<>();
+        AtomicInteger prochain = new AtomicInteger();
+        AtomicBoolean fini = new AtomicBoolean();
+        List<String> erreurs = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch depart = new CountDownLatch(1);
+
+        // Écrivains : chaque index est attribué une seule fois, par petits lots dont l'ordre
+        // de remplissage est inversé pour créer des trous temporaires
+        List<Thread> ecrivains = new ArrayList<>();
+        for(int t = 0; t < nbThreads; t++){
+            Thread ecrivain = new Thread(() -> {
+                attendre(depart);
+                int debut;
+                while((debut = prochain.getAndAdd(8)) < total){
+                    int fin = Math.min(debut + 8, total);
+                    for(int index = fin - 1; index >= debut; index--){
+                        table.placer(index, index);
+                    }
+                }
+            });
+            ecrivains.add(ecrivain);
+            ecrivain.start();
+        }
+
+        // Lecteurs : un instantané ne doit pas avoir de trou et les tailles ne font que croître
+        List<Thread> lecteurs = new ArrayList<>();
+        AtomicInteger nbInstantanes = new AtomicInteger();
+        for(int t = 0; t < 2; t++){
+            Thread lecteur = new Thread(() -> {
+                attendre(depart);
+                int tailleVue = 0;
+                while(!fini.get() && erreurs.isEmpty()){
+                    List<Integer> instantane = table.instantane();
+                    if(instantane.size() < tailleVue){
+                        erreurs.add("Taille en recul : " + instantane.size() + " après " + tailleVue);
+                    }
+                    tailleVue = instantane.size();
+                    // Les dernières cases publiées sont celles qui ont le plus de chances d'être incohérentes
+                    for(int index = Math.max(0, tailleVue - 1024); index < tailleVue; index++){
+                        Integer element = instantane.get(index);
+                        if(element == null || element != index){
+                            erreurs.add("Case " + index + " incorrecte dans un instantané de taille " + tailleVue + " : " + element);
+                            break;
+                        }
+                    }
+                    nbInstantanes.incrementAndGet();
+                }
+            });
+            lecteurs.add(lecteur);
+            lecteur.start();
+        }
+
+        long debut = System.nanoTime();
+        depart.countDown();
+        for(Thread ecrivain : ecrivains){
+            ecrivain.join();
+        }
+        fini.set(true);
+        for(Thread lecteur : lecteurs){
+            lecteur.join();
+        }
+        long duree = (System.nanoTime() - debut) / 1_000_000;
+
+        // Vérification finale : tout est publié, sans trou ni élément mal placé
+        if(table.taille() != total){
+            erreurs.add("Taille finale " + table.taille() + " au lieu de " + total);
+        }
+        List<Integer> instantane = table.instantane();
+        for(int index = 0; index < instantane.size(); index++){
+            Integer element = instantane.get(index);
+            if(element == null || element != index){
+                erreurs.add("Case " + index + " incorrecte à la fin : " + element);
+                break;
+            }
+        }
+
+        System.out.println(nbThreads + " threads, " + total + " cases, " + nbInstantanes.get()
+                + " instantanés vérifiés en " + duree + " ms");
+        if(!erreurs.isEmpty()){
+            for(String erreur : erreurs.subList(0, Math.min(10, erreurs.size()))){
+                System.out.println("ÉCHEC : " + erreur);
+            }
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    private static void attendre(CountDownLatch depart){
+        try {
+            depart.await();
+        } catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+}